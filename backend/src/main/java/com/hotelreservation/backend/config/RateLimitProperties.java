@@ -0,0 +1,111 @@
+package com.hotelreservation.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-route request limits under app.rate-limit. A rule limits each client IP
+ * and, when the request carries a valid token, each user separately; a limit of
+ * 0 turns that dimension off.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private long evictIntervalMs = 60_000;
+    private List<Rule> rules = new ArrayList<>();
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getEvictIntervalMs() {
+        return evictIntervalMs;
+    }
+
+    public void setEvictIntervalMs(long evictIntervalMs) {
+        this.evictIntervalMs = evictIntervalMs;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static class Rule {
+        private String name;
+        private String pattern;          // Ant-style path pattern, e.g. /api/bookings/**
+        private List<String> methods = List.of(); // empty matches every method
+        private int ipBurst;
+        private int ipPerMinute;
+        private int userBurst;
+        private int userPerMinute;
+
+        // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public int getIpBurst() {
+            return ipBurst;
+        }
+
+        public void setIpBurst(int ipBurst) {
+            this.ipBurst = ipBurst;
+        }
+
+        public int getIpPerMinute() {
+            return ipPerMinute;
+        }
+
+        public void setIpPerMinute(int ipPerMinute) {
+            this.ipPerMinute = ipPerMinute;
+        }
+
+        public int getUserBurst() {
+            return userBurst;
+        }
+
+        public void setUserBurst(int userBurst) {
+            this.userBurst = userBurst;
+        }
+
+        public int getUserPerMinute() {
+            return userPerMinute;
+        }
+
+        public void setUserPerMinute(int userPerMinute) {
+            this.userPerMinute = userPerMinute;
+        }
+    }
+}
@@ -4,10 +4,12 @@ import com.hotelreservation.backend.dto.AuthResponse;
 import com.hotelreservation.backend.dto.LoginRequest;
 import com.hotelreservation.backend.dto.SignupRequest;
 import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.exception.ServiceBusyException;
 import com.hotelreservation.backend.service.AuthService;
 import com.hotelreservation.backend.util.JwtUtil;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +34,12 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.CREATED)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(response);
+        } catch (ServiceBusyException e) {
+            System.err.println("POST /api/auth/signup - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (RuntimeException e) {
             System.err.println("POST /api/auth/signup - Error: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -55,6 +63,12 @@ public class AuthController {
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(response);
+        } catch (ServiceBusyException e) {
+            System.err.println("POST /api/auth/login - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse(e.getMessage()));
         } catch (RuntimeException e) {
             System.err.println("POST /api/auth/login - Error: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -1,11 +1,26 @@
 package com.hotelreservation.backend.controller;
 
 import com.hotelreservation.backend.dto.BookingResponse;
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.HoldResponse;
 import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.dto.ReservationSearchCriteria;
+import com.hotelreservation.backend.dto.ReservationSummary;
 import com.hotelreservation.backend.entity.*;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.exception.ServiceBusyException;
 import com.hotelreservation.backend.repository.*;
+import com.hotelreservation.backend.security.AuthenticatedUser;
+import com.hotelreservation.backend.service.BookingHolds;
+import com.hotelreservation.backend.service.BookingPipeline;
+import com.hotelreservation.backend.service.BookingService;
+import com.hotelreservation.backend.service.IdempotencyService;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.service.ReservationSearchService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,7 +31,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -24,131 +39,76 @@ import java.util.Optional;
 public class BookingController {
 
     @Autowired
-    private ReservationRepository reservationRepository;
+    private CustomerRepository customerRepository;
 
     @Autowired
-    private RoomRepository roomRepository;
+    private BookingService bookingService;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private ReservationSearchService reservationSearchService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     @Autowired
-    private UserRepository userRepository;
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private BookingHolds bookingHolds;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Value("${app.booking.async.enabled:true}")
+    private boolean asyncBookingEnabled = true;
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String PREFER_HEADER = "Prefer";
+    static final String RESPOND_ASYNC = "respond-async";
 
     @PostMapping(value = "/hotel", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> createHotelBooking(
             @Valid @RequestBody HotelBookingRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PREFER_HEADER, required = false) String prefer,
             Authentication authentication) {
-        
-        try {
-            // Verify authentication
-            if (authentication == null || !authentication.isAuthenticated()) {
-                System.err.println("POST /api/bookings/hotel - Unauthenticated request");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
-            }
-
-            String userEmail = authentication.getName();
-            System.out.println("POST /api/bookings/hotel - Request from user: " + userEmail);
-
-            // Validate dates
-            if (request.getCheckOut().isBefore(request.getCheckIn()) || 
-                request.getCheckOut().isEqual(request.getCheckIn())) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(createErrorResponse("Check-out date must be after check-in date", 
-                                HttpStatus.BAD_REQUEST.value()));
-            }
+        // Prefer: respond-async queues the booking for its hotel's writer and answers 202 with a ticket
+        boolean async = asyncBookingEnabled && prefer != null && prefer.contains(RESPOND_ASYNC);
+        Supplier<ResponseEntity<?>> booking = async
+                ? () -> submitHotelBooking(request, authentication)
+                : () -> bookHotel(request, authentication);
+        if (idempotencyKey == null || !(authentication != null && authentication.isAuthenticated())) {
+            return booking.get();
+        }
 
-            // Find room with detailed logging
-            System.out.println("POST /api/bookings/hotel - Looking for room with ID: " + request.getRoomId());
-            System.out.println("POST /api/bookings/hotel - Hotel ID: " + request.getHotelId());
-            
-            Optional<Room> roomOpt = roomRepository.findById(request.getRoomId());
-            if (roomOpt.isEmpty()) {
-                System.err.println("POST /api/bookings/hotel - Room not found with ID: " + request.getRoomId());
-                System.err.println("POST /api/bookings/hotel - Total rooms in database: " + roomRepository.count());
-                
-                // Log available room IDs for debugging
-                List<Room> allRooms = roomRepository.findAll();
-                System.err.println("POST /api/bookings/hotel - Available room IDs: " + 
-                    allRooms.stream().map(Room::getRoomId).toList());
-                
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(createErrorResponse("Room not found with ID: " + request.getRoomId(), HttpStatus.NOT_FOUND.value()));
-            }
+        // A retry with the same key gets the first response back instead of a second booking
+        try {
+            return idempotencyService.execute(idempotencyScope(authentication), idempotencyKey, request, booking);
+        } catch (BookingException e) {
+            System.err.println("POST /api/bookings/hotel - Idempotency-Key " + idempotencyKey + ": " + e.getMessage());
+            return ResponseEntity.status(e.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), e.getStatus().value()));
+        }
+    }
 
-            Room room = roomOpt.get();
-            
-            // Verify room belongs to the hotel
-            if (room.getHotel() == null || !room.getHotel().getId().equals(request.getHotelId())) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(createErrorResponse("Room does not belong to the specified hotel", 
-                                HttpStatus.BAD_REQUEST.value()));
+    private ResponseEntity<?> bookHotel(HotelBookingRequest request, Authentication authentication) {
+        try {
+            ResponseEntity<?> invalid = validateBooking(request, authentication);
+            if (invalid != null) {
+                return invalid;
             }
 
-            // Check room availability
-            if (!room.isAvailable()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            Reservation savedReservation;
+            try {
+                savedReservation = bookingService.createHotelBooking(request, customerIdOf(authentication));
+            } catch (BookingException e) {
+                System.err.println("POST /api/bookings/hotel - Rejected: " + e.getMessage());
+                return ResponseEntity.status(e.getStatus())
                         .contentType(MediaType.APPLICATION_JSON)
-                        .body(createErrorResponse("Room is not available", HttpStatus.BAD_REQUEST.value()));
+                        .body(createErrorResponse(e.getMessage(), e.getStatus().value()));
             }
-
-            // Find or create customer
-            Customer customer = customerRepository.findByEmail(request.getContactEmail())
-                    .orElseGet(() -> {
-                        Customer newCustomer = new Customer();
-                        newCustomer.setFullName(request.getContactName());
-                        newCustomer.setEmail(request.getContactEmail());
-                        newCustomer.setPhoneNumber(request.getContactPhone());
-                        return customerRepository.save(newCustomer);
-                    });
-
-            // Calculate total price
-            long nights = ChronoUnit.DAYS.between(request.getCheckIn(), request.getCheckOut());
-            double calculatedPrice = nights * room.getPricePerNight();
-            
-            // Use provided total price or calculated price
-            double finalPrice = request.getTotalPrice() != null ? request.getTotalPrice() : calculatedPrice;
-
-            // Create reservation
-            Reservation reservation = new Reservation();
-            reservation.setRoom(room);
-            reservation.setCustomer(customer);
-            reservation.setCheckInDate(request.getCheckIn());
-            reservation.setCheckOutDate(request.getCheckOut());
-            reservation.setTotalPrice(finalPrice);
-            reservation.setStatus(Reservation.ReservationStatus.CONFIRMED);
-
-            // Update room availability
-            room.setAvailable(false);
-            roomRepository.save(room);
-
-            // Save reservation
-            Reservation savedReservation = reservationRepository.save(reservation);
-
-            // Build response
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("hotel", room.getHotel().getName());
-            summary.put("room", room.getRoomType());
-            summary.put("checkIn", savedReservation.getCheckInDate().toString());
-            summary.put("checkOut", savedReservation.getCheckOutDate().toString());
-            summary.put("guests", request.getGuests());
-            summary.put("totalPrice", savedReservation.getTotalPrice());
-
-            BookingResponse response = new BookingResponse();
-            response.setBookingId("HTL-" + savedReservation.getReservationId());
-            response.setHotelId(request.getHotelId());
-            response.setRoomId(request.getRoomId());
-            response.setCheckIn(savedReservation.getCheckInDate());
-            response.setCheckOut(savedReservation.getCheckOutDate());
-            response.setGuests(request.getGuests());
-            response.setTotalPrice(savedReservation.getTotalPrice());
-            response.setStatus("CONFIRMED");
-            response.setSummary(summary);
+            BookingResponse response = toBookingResponse(savedReservation, request);
 
             System.out.println("POST /api/bookings/hotel - Success: Booking created with ID " + 
                     response.getBookingId());
@@ -167,6 +127,198 @@ public class BookingController {
         }
     }
 
+    private ResponseEntity<?> submitHotelBooking(HotelBookingRequest request, Authentication authentication) {
+        ResponseEntity<?> invalid = validateBooking(request, authentication);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        try {
+            BookingPipeline.Ticket ticket = bookingPipeline.submit(request, customerIdOf(authentication),
+                    ownerOf(authentication), reservation -> toBookingResponse(reservation, request));
+            System.out.println("POST /api/bookings/hotel - Queued as ticket " + ticket.getId());
+
+            Map<String, Object> accepted = new HashMap<>();
+            accepted.put("ticket", ticket.getId());
+            accepted.put("status", "PENDING");
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/bookings/" + ticket.getId())
+                    .header("Preference-Applied", RESPOND_ASYNC)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(accepted);
+        } catch (ServiceBusyException e) {
+            System.err.println("POST /api/bookings/hotel - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+        }
+    }
+
+    @GetMapping(value = "/{ticket}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getBookingTicket(@PathVariable String ticket, Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
+        }
+
+        // Someone else's ticket looks exactly like one that does not exist
+        BookingPipeline.Ticket found = bookingPipeline.find(ticket)
+                .filter(t -> t.getOwner().equals(ownerOf(authentication)))
+                .orElse(null);
+        if (found == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Booking ticket not found", HttpStatus.NOT_FOUND.value()));
+        }
+
+        if (!found.isDone()) {
+            Map<String, Object> pending = new HashMap<>();
+            pending.put("ticket", found.getId());
+            pending.put("status", "PENDING");
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(pending);
+        }
+        return ResponseEntity.status(found.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(found.getBody());
+    }
+
+    @PostMapping(value = "/holds", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createHold(@Valid @RequestBody HotelBookingRequest request, Authentication authentication) {
+        ResponseEntity<?> invalid = validateBooking(request, authentication);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        try {
+            // Blocks the nights in memory only; nothing is written until the hold is confirmed
+            BookingHolds.Hold hold = bookingHolds.hold(request, ownerOf(authentication));
+            System.out.println("POST /api/bookings/holds - Room " + hold.getRoomId() + " held as " + hold.getId());
+            HoldResponse response = new HoldResponse(hold.getId(), request.getHotelId(), hold.getRoomId(),
+                    hold.getRoomNumber(), hold.getRoomType(), hold.getCheckIn(), hold.getCheckOut(),
+                    hold.getQuotedPrice(), hold.getExpiresAt());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.LOCATION, "/api/bookings/holds/" + hold.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response);
+        } catch (BookingException e) {
+            System.err.println("POST /api/bookings/holds - Rejected: " + e.getMessage());
+            return ResponseEntity.status(e.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), e.getStatus().value()));
+        } catch (ServiceBusyException e) {
+            System.err.println("POST /api/bookings/holds - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value()));
+        }
+    }
+
+    @PostMapping(value = "/holds/{holdId}/confirm", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> confirmHold(@PathVariable String holdId, Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
+        }
+
+        BookingHolds.Hold hold = bookingHolds.find(holdId, ownerOf(authentication)).orElse(null);
+        if (hold == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Hold not found", HttpStatus.NOT_FOUND.value()));
+        }
+        try {
+            Reservation reservation = bookingHolds.confirm(holdId, ownerOf(authentication), customerIdOf(authentication));
+            System.out.println("POST /api/bookings/holds/" + holdId + "/confirm - Booking created with ID "
+                    + reservation.getReservationId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(toBookingResponse(reservation, hold.getRequest()));
+        } catch (BookingException e) {
+            System.err.println("POST /api/bookings/holds/" + holdId + "/confirm - Rejected: " + e.getMessage());
+            return ResponseEntity.status(e.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), e.getStatus().value()));
+        }
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable String holdId, Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
+        }
+        if (!bookingHolds.release(holdId, ownerOf(authentication))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Hold not found", HttpStatus.NOT_FOUND.value()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // Null when the request may go ahead, otherwise the response rejecting it
+    private ResponseEntity<?> validateBooking(HotelBookingRequest request, Authentication authentication) {
+        // Verify authentication
+        if (authentication == null || !authentication.isAuthenticated()) {
+            System.err.println("POST /api/bookings/hotel - Unauthenticated request");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
+        }
+
+        String userEmail = authentication.getName();
+        System.out.println("POST /api/bookings/hotel - Request from user: " + userEmail);
+
+        // Validate dates
+        if (request.getCheckOut().isBefore(request.getCheckIn()) || 
+            request.getCheckOut().isEqual(request.getCheckIn())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("Check-out date must be after check-in date", 
+                            HttpStatus.BAD_REQUEST.value()));
+        }
+        // The ledger, index and pricer all size their work by the number of nights
+        if (ChronoUnit.DAYS.between(request.getCheckIn(), request.getCheckOut()) > pricingEngine.maxRangeDays()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse("A stay can be at most " + pricingEngine.maxRangeDays() + " nights",
+                            HttpStatus.BAD_REQUEST.value()));
+        }
+        return null;
+    }
+
+    private BookingResponse toBookingResponse(Reservation savedReservation, HotelBookingRequest request) {
+        Room room = savedReservation.getRoom();
+
+        // Build response
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("hotel", room.getHotel().getName());
+        summary.put("room", room.getRoomType());
+        summary.put("checkIn", savedReservation.getCheckInDate().toString());
+        summary.put("checkOut", savedReservation.getCheckOutDate().toString());
+        summary.put("guests", request.getGuests());
+        summary.put("totalPrice", savedReservation.getTotalPrice());
+
+        BookingResponse response = new BookingResponse();
+        response.setBookingId("HTL-" + savedReservation.getReservationId());
+        response.setHotelId(request.getHotelId());
+        response.setRoomId(room.getRoomId());
+        response.setCheckIn(savedReservation.getCheckInDate());
+        response.setCheckOut(savedReservation.getCheckOutDate());
+        response.setGuests(request.getGuests());
+        response.setTotalPrice(savedReservation.getTotalPrice());
+        response.setStatus("CONFIRMED");
+        response.setSummary(summary);
+        return response;
+    }
+
     @PostMapping(value = "/restaurant", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> createRestaurantBooking(
             @RequestBody Map<String, Object> request,
@@ -198,6 +350,8 @@ public class BookingController {
     @GetMapping(value = "/user/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getUserBookings(
             @PathVariable Long userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         
         try {
@@ -208,30 +362,38 @@ public class BookingController {
                         .body(createErrorResponse("Authentication required", HttpStatus.UNAUTHORIZED.value()));
             }
 
-            // Verify user can only access their own bookings
-            String userEmail = authentication.getName();
-            Optional<User> userOpt = userRepository.findByEmail(userEmail);
-            if (userOpt.isEmpty() || !userOpt.get().getId().equals(userId)) {
+            // Verify user can only access their own bookings; the token already says who they are
+            if (!(authentication.getPrincipal() instanceof AuthenticatedUser user) || !userId.equals(user.userId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(createErrorResponse("Access denied", HttpStatus.FORBIDDEN.value()));
             }
 
-            // Find customer by user email
-            Optional<Customer> customerOpt = customerRepository.findByEmail(userEmail);
-            if (customerOpt.isEmpty()) {
+            Long customerId = customerIdOf(authentication);
+            if (customerId == null) {
                 return ResponseEntity.ok()
                         .contentType(MediaType.APPLICATION_JSON)
-                        .body(new java.util.ArrayList<>());
+                        .body(List.of());
             }
 
-            // Get reservations for this customer
-            // Note: This requires a relationship between Customer and Reservation
-            // For now, return empty list
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(new java.util.ArrayList<>());
+            // One indexed join over reservations.customer_id, seeking past the cursor
+            ReservationSearchCriteria criteria = new ReservationSearchCriteria();
+            criteria.setCustomerId(customerId);
+            criteria.setAfter(after);
+            criteria.setLimit(limit);
+            CursorPage<ReservationSummary> page = reservationSearchService.search(criteria);
+
+            // Body stays a plain JSON array; the next page is announced in a header
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            if (page.getNextCursor() != null) {
+                response.header(HotelController.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
         } catch (Exception e) {
             System.err.println("GET /api/bookings/user/" + userId + " - Error: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -241,6 +403,29 @@ public class BookingController {
         }
     }
 
+    // Keys are unique per account, not globally
+    private String idempotencyScope(Authentication authentication) {
+        return "booking:" + ownerOf(authentication);
+    }
+
+    private String ownerOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user && user.userId() != null) {
+            return String.valueOf(user.userId());
+        }
+        return authentication.getName();
+    }
+
+    // Customer id from the token; only tokens issued before the claim existed need a lookup
+    private Long customerIdOf(Authentication authentication) {
+        if (!(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            return null;
+        }
+        if (user.customerId() != null) {
+            return user.customerId();
+        }
+        return user.userId() != null ? customerRepository.findIdByUserId(user.userId()).orElse(null) : null;
+    }
+
     private Map<String, Object> createErrorResponse(String message, int status) {
         Map<String, Object> error = new HashMap<>();
         error.put("error", message);
@@ -1,10 +1,15 @@
 package com.hotelreservation.backend.controller;
 
+import com.hotelreservation.backend.dto.LoyaltyBalance;
 import com.hotelreservation.backend.entity.Customer;
 import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.service.LoyaltyEngine;
+import com.hotelreservation.backend.service.NdjsonExporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -16,12 +21,26 @@ public class CustomerController {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private LoyaltyEngine loyaltyEngine;
+
     // Get all customers
-    @GetMapping
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public List<Customer> getAllCustomers() {
         return customerRepository.findAll();
     }
 
+    // Stream all customers, one per line (Accept: application/x-ndjson)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonExporter.export(customerRepository::streamAll));
+    }
+
     // Get customer by ID
     @GetMapping("/{id}")
     public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
@@ -30,6 +49,14 @@ public class CustomerController {
                        .orElse(ResponseEntity.notFound().build());
     }
 
+    // Loyalty balance including points not yet written back to the customer row
+    @GetMapping("/{id}/loyalty")
+    public ResponseEntity<LoyaltyBalance> getLoyaltyBalance(@PathVariable Long id) {
+        return loyaltyEngine.balance(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // Add a new customer
     @PostMapping
     public Customer createCustomer(@RequestBody Customer customer) {
@@ -1,16 +1,34 @@
 package com.hotelreservation.backend.controller;
 
-import com.hotelreservation.backend.entity.Hotel;
-import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.FacetedPage;
+import com.hotelreservation.backend.dto.FlexibleStay;
+import com.hotelreservation.backend.dto.HotelFacets;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelSuggestion;
+import com.hotelreservation.backend.dto.RoomAvailabilityResponse;
+import com.hotelreservation.backend.dto.RoomTypeRates;
+import com.hotelreservation.backend.dto.RoomView;
+import com.hotelreservation.backend.exception.ServiceBusyException;
 import com.hotelreservation.backend.repository.HotelRepository;
-import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.CatalogResponseCache;
+import com.hotelreservation.backend.service.FlexibleStaySearch;
+import com.hotelreservation.backend.service.HotelCatalog;
+import com.hotelreservation.backend.service.HotelSearchService;
+import com.hotelreservation.backend.service.HotelSuggestIndex;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.service.RoomListingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,78 +42,76 @@ public class HotelController {
     private HotelRepository hotelRepository;
 
     @Autowired
-    private RoomRepository roomRepository;
+    private RoomListingService roomListingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private HotelSearchService hotelSearchService;
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private FlexibleStaySearch flexibleStaySearch;
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_SUGGESTIONS = HotelSuggestIndex.MAX_LIMIT;
+    private static final int MAX_FLEX_RESULTS = 50;
+    private static final int MAX_FLEX_NIGHTS = 30;
 
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getAllHotels(
             @RequestParam(required = false) String city,
+            @RequestParam(required = false) String country,
             @RequestParam(required = false) Double minRating,
-            @RequestParam(required = false) Double maxPrice) {
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         try {
-            // Verify repository is available
-            if (hotelRepository == null) {
-                throw new IllegalStateException("HotelRepository is not initialized");
-            }
-            
-            List<Hotel> hotels;
-            
-            // Apply filters if provided
-            if (city != null && !city.isEmpty()) {
-                hotels = hotelRepository.findByCityContainingIgnoreCase(city);
-            } else {
-                hotels = hotelRepository.findAll();
-            }
-            
-            // Ensure we have a valid list
-            if (hotels == null) {
-                System.err.println("WARNING: hotelRepository returned null, using empty list");
-                hotels = new ArrayList<>();
-            }
-            
-            // Filter by rating if provided
-            if (minRating != null && hotels != null) {
-                hotels = hotels.stream()
-                        .filter(h -> h != null && h.getRating() != null && h.getRating() >= minRating)
-                        .toList();
-            }
-            
-            // Filter by max price if provided
-            if (maxPrice != null && hotels != null) {
-                hotels = hotels.stream()
-                        .filter(h -> h != null && h.getPricePerNight() != null && h.getPricePerNight() <= maxPrice)
-                        .toList();
-            }
-            
-            // Final null check
-            if (hotels == null) {
-                hotels = new ArrayList<>();
-            }
-            
-            System.out.println("GET /api/hotels - Hotels count = " + hotels.size());
-            System.out.println("GET /api/hotels - Filters: city=" + city + ", minRating=" + minRating + ", maxPrice=" + maxPrice);
-            
-            // Log warning if we have fewer than expected hotels (when no filters applied)
-            if (city == null && minRating == null && maxPrice == null && hotels.size() < 10) {
-                System.err.println("WARNING: GET /api/hotels returned only " + hotels.size() + " hotels. Expected 10. Check database seeding.");
+            HotelSearchCriteria criteria = new HotelSearchCriteria();
+            criteria.setCity(city);
+            criteria.setCountry(country);
+            criteria.setMinRating(minRating);
+            criteria.setMaxPrice(maxPrice);
+            criteria.setTags(tags);
+            criteria.setSort(sort);
+            criteria.setAfter(after);
+            criteria.setLimit(limit);
+
+            // Repeat requests are answered from pre-serialized bytes, or a 304
+            CatalogResponseCache.Payload cached = responseCache.hotels(criteria.cacheKey() + "&facets=" + facets,
+                    () -> searchHotels(criteria, facets));
+            if (cached != null) {
+                return responseCache.respond(cached, ifNoneMatch, acceptEncoding);
             }
-            
-            // Always return 200 OK with JSON array, even if empty
-            return ResponseEntity.ok()
+
+            CatalogResponseCache.Content content = searchHotels(criteria, facets);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+            content.headers().forEach((name, value) -> response.header(name, value));
+            return response.body(content.body());
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .contentType(MediaType.APPLICATION_JSON)
-                    .body(hotels);
-                    
+                    .body(Map.of("error", e.getMessage(), "status", 400));
         } catch (Exception e) {
             System.err.println("ERROR in getAllHotels: " + e.getClass().getSimpleName() + " - " + e.getMessage());
             e.printStackTrace();
             
-            // Log full stack trace for debugging
-            StackTraceElement[] stackTrace = e.getStackTrace();
-            System.err.println("Stack trace:");
-            for (int i = 0; i < Math.min(10, stackTrace.length); i++) {
-                System.err.println("  at " + stackTrace[i]);
-            }
-            
             // Return proper error response with JSON body
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Failed to fetch hotels");
@@ -108,46 +124,132 @@ public class HotelController {
         }
     }
 
+    private CatalogResponseCache.Content searchHotels(HotelSearchCriteria criteria, boolean facets) {
+        // Served from the in-memory snapshot; the database query is only used until it is loaded
+        CursorPage<?> page = hotelCatalog.isReady()
+                ? hotelCatalog.search(criteria)
+                : hotelSearchService.search(criteria);
+        List<?> hotels = page.getItems();
+
+        System.out.println("GET /api/hotels - Hotels count = " + hotels.size());
+        System.out.println("GET /api/hotels - Filters: " + criteria.cacheKey());
+
+        // Log warning if we have fewer than expected hotels (when no filters applied)
+        if (!criteria.hasFilters() && criteria.getAfter() == null && hotels.size() < 10) {
+            System.err.println("WARNING: GET /api/hotels returned only " + hotels.size() + " hotels. Expected 10. Check database seeding.");
+        }
+
+        // Body stays a plain JSON array unless facets are asked for; the next page is announced in a header
+        Map<String, String> headers = page.getNextCursor() != null
+                ? Map.of(NEXT_CURSOR_HEADER, page.getNextCursor())
+                : Map.of();
+        if (facets) {
+            HotelFacets counts = hotelCatalog.isReady()
+                    ? hotelCatalog.facets(criteria)
+                    : new HotelFacets(Map.of(), Map.of());
+            return new CatalogResponseCache.Content(new FacetedPage<>(hotels, page.getNextCursor(), counts), headers);
+        }
+        return new CatalogResponseCache.Content(hotels, headers);
+    }
+
+    @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<HotelSuggestion>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        // Answered from the in-memory prefix index; never reaches the database
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(hotelCatalog.suggest(q, Math.max(1, Math.min(limit, MAX_SUGGESTIONS))));
+    }
+
+    @GetMapping(value = "/flex-search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> flexSearch(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam int nights,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "1") int guests,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        String error = null;
+        if (hotelId == null && (city == null || city.isBlank())) {
+            error = "Either 'city' or 'hotelId' is required";
+        } else if (!to.isAfter(from)) {
+            error = "'to' must be after 'from'";
+        } else if (ChronoUnit.DAYS.between(from, to) > pricingEngine.maxRangeDays()) {
+            error = "Flexible search covers at most " + pricingEngine.maxRangeDays() + " nights at a time";
+        } else if (nights < 1 || nights > MAX_FLEX_NIGHTS) {
+            error = "'nights' must be between 1 and " + MAX_FLEX_NIGHTS;
+        } else if (nights > ChronoUnit.DAYS.between(from, to)) {
+            error = "'nights' does not fit between 'from' and 'to'";
+        }
+        if (error != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", error, "status", 400));
+        }
+
+        try {
+            // One sliding window per room over the in-memory index and rate calendars
+            List<FlexibleStay> stays = flexibleStaySearch.search(hotelId, city, nights, from, to,
+                    Math.max(1, guests), Math.max(1, Math.min(limit, MAX_FLEX_RESULTS)));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(stays);
+        } catch (ServiceBusyException e) {
+            System.err.println("GET /api/hotels/flex-search - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage(), "status", 503));
+        }
+    }
+
     @GetMapping("/{id}")
-    public Hotel getHotelById(@PathVariable Long id) {
-        return hotelRepository.findById(id).orElse(null);
+    public ResponseEntity<?> getHotelById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (hotelCatalog.find(id).isPresent()) {
+            CatalogResponseCache.Payload cached = responseCache.hotel(id,
+                    () -> new CatalogResponseCache.Content(hotelCatalog.find(id).orElse(null)));
+            if (cached != null) {
+                return responseCache.respond(cached, ifNoneMatch, acceptEncoding);
+            }
+        }
+        // Hotels created since the last snapshot rebuild are still read from the database
+        return ResponseEntity.ok(hotelRepository.findById(id).orElse(null));
     }
 
     @GetMapping(value = "/{id}/rooms", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> getRoomsByHotelId(@PathVariable Long id) {
+    public ResponseEntity<?> getRoomsByHotelId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             System.out.println("GET /api/hotels/" + id + "/rooms - Request received");
             
             // Verify hotel exists
-            Hotel hotel = hotelRepository.findById(id).orElse(null);
-            if (hotel == null) {
+            boolean inCatalog = hotelCatalog.find(id).isPresent();
+            if (!inCatalog && !hotelRepository.existsById(id)) {
                 System.err.println("GET /api/hotels/" + id + "/rooms - Hotel not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(Map.of("error", "Hotel not found", "status", 404));
             }
-            
-            // Query rooms directly from RoomRepository to avoid lazy loading issues
-            List<Room> rooms = roomRepository.findByHotelId(id);
-            
-            if (rooms == null) {
-                rooms = new ArrayList<>();
-            }
-            
-            System.out.println("GET /api/hotels/" + id + "/rooms - Returning " + rooms.size() + " rooms");
-            
-            // Log room IDs for debugging
-            if (!rooms.isEmpty()) {
-                System.out.println("GET /api/hotels/" + id + "/rooms - Room IDs: " + 
-                    rooms.stream().map(r -> r.getRoomId().toString()).toList());
-            } else {
-                System.err.println("GET /api/hotels/" + id + "/rooms - WARNING: No rooms found for hotel ID " + id);
-                System.err.println("GET /api/hotels/" + id + "/rooms - This may indicate rooms were not seeded properly.");
+
+            if (inCatalog) {
+                CatalogResponseCache.Payload cached = responseCache.rooms(id,
+                        () -> new CatalogResponseCache.Content(loadRooms(id)));
+                if (cached != null) {
+                    return responseCache.respond(cached, ifNoneMatch, acceptEncoding);
+                }
             }
             
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_JSON)
-                    .body(rooms);
+                    .body(loadRooms(id));
         } catch (Exception e) {
             System.err.println("GET /api/hotels/" + id + "/rooms - Error: " + e.getMessage());
             e.printStackTrace();
@@ -156,5 +258,82 @@ public class HotelController {
                     .body(Map.of("error", "Failed to fetch rooms", "status", 500));
         }
     }
-}
 
+    private List<RoomView> loadRooms(Long id) {
+        // Flat projection plus catalog hotels: a fixed number of statements however many rooms there are
+        List<RoomView> rooms = roomListingService.findByHotelId(id);
+        
+        System.out.println("GET /api/hotels/" + id + "/rooms - Returning " + rooms.size() + " rooms");
+        
+        // Log room IDs for debugging
+        if (!rooms.isEmpty()) {
+            System.out.println("GET /api/hotels/" + id + "/rooms - Room IDs: " + 
+                rooms.stream().map(r -> r.roomId().toString()).toList());
+        } else {
+            System.err.println("GET /api/hotels/" + id + "/rooms - WARNING: No rooms found for hotel ID " + id);
+            System.err.println("GET /api/hotels/" + id + "/rooms - This may indicate rooms were not seeded properly.");
+        }
+        return rooms;
+    }
+
+    @GetMapping(value = "/{id}/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getAvailability(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut) {
+
+        if (!checkOut.isAfter(checkIn)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", "Check-out date must be after check-in date", "status", 400));
+        }
+        if (ChronoUnit.DAYS.between(checkIn, checkOut) > pricingEngine.maxRangeDays()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", "A stay can be at most " + pricingEngine.maxRangeDays() + " nights",
+                            "status", 400));
+        }
+
+        // Answered from the in-memory index and rate calendars
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        List<RoomAvailabilityResponse> freeRooms = availabilityIndex.findFreeRooms(id, checkIn, checkOut).stream()
+                .map(slot -> new RoomAvailabilityResponse(
+                        slot.getRoomId(),
+                        slot.getRoomNumber(),
+                        slot.getRoomType(),
+                        slot.getPricePerNight(),
+                        slot.getCapacity(),
+                        nights,
+                        pricingEngine.quote(id, slot.getRoomType(), slot.getPricePerNight(), checkIn, checkOut)))
+                .toList();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(freeRooms);
+    }
+
+    @GetMapping(value = "/{id}/rates", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getRates(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        if (!to.isAfter(from)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", "'to' must be after 'from'", "status", 400));
+        }
+        if (ChronoUnit.DAYS.between(from, to) > pricingEngine.maxRangeDays()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", "Rates are available for at most " + pricingEngine.maxRangeDays()
+                            + " nights at a time", "status", 400));
+        }
+
+        // Each night's price is the room type's base price times its rate calendar entry
+        List<RoomTypeRates> rates = pricingEngine.rates(id, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(rates);
+    }
+}
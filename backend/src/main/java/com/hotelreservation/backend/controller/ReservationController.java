@@ -1,91 +1,225 @@
 package com.hotelreservation.backend.controller;
 
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.ReservationSearchCriteria;
+import com.hotelreservation.backend.dto.ReservationSummary;
 import com.hotelreservation.backend.entity.*;
+import com.hotelreservation.backend.exception.BookingException;
 import com.hotelreservation.backend.repository.*;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.BookingJournal;
+import com.hotelreservation.backend.service.BookingService;
+import com.hotelreservation.backend.service.NdjsonExporter;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.service.ReservationSearchService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reservations")
 @CrossOrigin(origins = "*")
 public class ReservationController {
 
+    private static final int JOURNAL_DIFF_LIMIT = 100;
+
     private final ReservationRepository reservationRepository;
-    private final RoomRepository roomRepository;
-    private final CustomerRepository customerRepository;
+    private final BookingService bookingService;
+    private final NdjsonExporter ndjsonExporter;
+    private final ReservationSearchService reservationSearchService;
+    private final BookingJournal bookingJournal;
+    private final AvailabilityIndex availabilityIndex;
+    private final PricingEngine pricingEngine;
 
     public ReservationController(
             ReservationRepository reservationRepository,
-            RoomRepository roomRepository,
-            CustomerRepository customerRepository) {
+            BookingService bookingService,
+            NdjsonExporter ndjsonExporter,
+            ReservationSearchService reservationSearchService,
+            BookingJournal bookingJournal,
+            AvailabilityIndex availabilityIndex,
+            PricingEngine pricingEngine) {
         this.reservationRepository = reservationRepository;
-        this.roomRepository = roomRepository;
-        this.customerRepository = customerRepository;
+        this.bookingService = bookingService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.reservationSearchService = reservationSearchService;
+        this.bookingJournal = bookingJournal;
+        this.availabilityIndex = availabilityIndex;
+        this.pricingEngine = pricingEngine;
     }
 
-    @GetMapping
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public List<Reservation> getAllReservations() {
         return reservationRepository.findAll();
     }
 
-    @PostMapping
-    public ResponseEntity<?> createReservation(@RequestBody Reservation reservation) {
-        Optional<Room> roomOpt = roomRepository.findById(reservation.getRoom().getRoomId());
-        Optional<Customer> customerOpt = customerRepository.findById(reservation.getCustomer().getCustomerId());
+    // Accept: application/x-ndjson streams one reservation per line instead of building the list
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllReservations() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonExporter.export(reservationRepository::streamAll));
+    }
 
-        if (roomOpt.isEmpty() || customerOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body("Invalid room or customer ID");
+    // Filtered, seek-paginated listing, ROLE_ADMIN only (see SecurityConfig); pass nextCursor back as 'after'
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> searchReservations(
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            ReservationSearchCriteria criteria = new ReservationSearchCriteria();
+            criteria.setHotelId(hotelId);
+            criteria.setCustomerId(customerId);
+            criteria.setStatus(status);
+            criteria.setFrom(from);
+            criteria.setTo(to);
+            criteria.setAfter(after);
+            criteria.setLimit(limit);
+            CursorPage<ReservationSummary> page = reservationSearchService.search(criteria);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage(), "status", 400));
         }
+    }
 
-        Room room = roomOpt.get();
-        if (!room.isAvailable()) {
-            return ResponseEntity.badRequest().body("Room is not available");
+    @PostMapping
+    public ResponseEntity<?> createReservation(@RequestBody Reservation reservation) {
+        if (reservation.getRoom() == null || reservation.getCustomer() == null) {
+            return ResponseEntity.badRequest().body("Invalid room or customer ID");
         }
 
         long days = ChronoUnit.DAYS.between(reservation.getCheckInDate(), reservation.getCheckOutDate());
         if (days <= 0) {
             return ResponseEntity.badRequest().body("Invalid date range");
         }
+        if (days > pricingEngine.maxRangeDays()) {
+            return ResponseEntity.badRequest().body("A stay can be at most " + pricingEngine.maxRangeDays() + " nights");
+        }
 
-        double totalPrice = days * room.getPricePerNight();
-
-        reservation.setRoom(room);
-        reservation.setCustomer(customerOpt.get());
-        reservation.setTotalPrice(totalPrice);
-        reservation.setStatus(Reservation.ReservationStatus.CONFIRMED);
-
-        // Update room availability
-        room.setAvailable(false);
-        roomRepository.save(room);
-
-        Reservation saved = reservationRepository.save(reservation);
-        return ResponseEntity.ok(saved);
+        try {
+            Reservation saved = bookingService.createReservation(
+                    reservation.getRoom().getRoomId(),
+                    reservation.getCustomer().getCustomerId(),
+                    reservation.getCheckInDate(),
+                    reservation.getCheckOutDate());
+            return ResponseEntity.ok(saved);
+        } catch (BookingException e) {
+            return ResponseEntity.status(e.getStatus()).body(e.getMessage());
+        }
     }
 
     @PutMapping("/{id}/cancel")
     public ResponseEntity<?> cancelReservation(@PathVariable Long id) {
-        Optional<Reservation> reservationOpt = reservationRepository.findById(id);
-        if (reservationOpt.isEmpty()) return ResponseEntity.notFound().build();
+        try {
+            if (bookingService.cancel(id).isEmpty()) return ResponseEntity.notFound().build();
+            return ResponseEntity.ok("Reservation cancelled successfully.");
+        } catch (BookingException e) {
+            return ResponseEntity.status(e.getStatus()).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteReservation(@PathVariable Long id) {
+        try {
+            bookingService.delete(id);
+            return ResponseEntity.ok("Reservation deleted.");
+        } catch (BookingException e) {
+            return ResponseEntity.status(e.getStatus()).body(e.getMessage());
+        }
+    }
 
-        Reservation reservation = reservationOpt.get();
-        reservation.setStatus(Reservation.ReservationStatus.CANCELLED);
+    // Rebuilds the availability index from the booking journal instead of the reservations table, ROLE_ADMIN only
+    @PostMapping(value = "/journal/replay", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> replayJournal() {
+        try {
+            Map<Long, BookingJournal.Entry> reservations = new LinkedHashMap<>();
+            BookingJournal.ReplayStats stats = bookingJournal.replayState(reservations);
+            Set<AvailabilityIndex.Stay> stays = confirmedStays(reservations);
+            availabilityIndex.rebuild(stays);
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("records", stats.records());
+            body.put("tornRecords", stats.tornRecords());
+            body.put("reservations", reservations.size());
+            body.put("activeStays", stays.size());
+            body.put("lastSequence", bookingJournal.lastSequence());
+            body.put("millis", stats.millis());
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            System.err.println("Journal replay failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to replay booking journal", "status", 500));
+        }
+    }
 
-        // Make room available again
-        Room room = reservation.getRoom();
-        room.setAvailable(true);
-        roomRepository.save(room);
+    // Compares the stays the booking journal replays to against the reservations table, ROLE_ADMIN only
+    @GetMapping(value = "/journal/verify", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> verifyJournal() {
+        try {
+            Map<Long, BookingJournal.Entry> reservations = new LinkedHashMap<>();
+            BookingJournal.ReplayStats stats = bookingJournal.replayState(reservations);
+            Set<AvailabilityIndex.Stay> journalStays = confirmedStays(reservations);
+            Set<AvailabilityIndex.Stay> tableStays = new HashSet<>();
+            for (Object[] row : reservationRepository.findActiveStays(Reservation.ReservationStatus.CANCELLED)) {
+                tableStays.add(new AvailabilityIndex.Stay((Long) row[0], (LocalDate) row[1], (LocalDate) row[2]));
+            }
+            List<AvailabilityIndex.Stay> missingFromJournal = difference(tableStays, journalStays);
+            List<AvailabilityIndex.Stay> missingFromTable = difference(journalStays, tableStays);
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("records", stats.records());
+            body.put("tornRecords", stats.tornRecords());
+            body.put("reservations", reservations.size());
+            body.put("journalStays", journalStays.size());
+            body.put("tableStays", tableStays.size());
+            body.put("missingFromJournal", missingFromJournal);
+            body.put("missingFromTable", missingFromTable);
+            body.put("consistent", missingFromJournal.isEmpty() && missingFromTable.isEmpty());
+            body.put("lastSequence", bookingJournal.lastSequence());
+            body.put("millis", stats.millis());
+            return ResponseEntity.ok(body);
+        } catch (IOException e) {
+            System.err.println("Journal replay failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to replay booking journal", "status", 500));
+        }
+    }
 
-        reservationRepository.save(reservation);
-        return ResponseEntity.ok("Reservation cancelled successfully.");
+    private static Set<AvailabilityIndex.Stay> confirmedStays(Map<Long, BookingJournal.Entry> reservations) {
+        Set<AvailabilityIndex.Stay> stays = new HashSet<>();
+        for (BookingJournal.Entry entry : reservations.values()) {
+            if (entry.type() == BookingJournal.Type.CONFIRMED) {
+                stays.add(new AvailabilityIndex.Stay(entry.roomId(), entry.checkIn(), entry.checkOut()));
+            }
+        }
+        return stays;
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteReservation(@PathVariable Long id) {
-        reservationRepository.deleteById(id);
-        return ResponseEntity.ok("Reservation deleted.");
+    // Up to JOURNAL_DIFF_LIMIT stays in 'from' that 'other' lacks
+    private static List<AvailabilityIndex.Stay> difference(Set<AvailabilityIndex.Stay> from,
+                                                           Set<AvailabilityIndex.Stay> other) {
+        return from.stream()
+                .filter(stay -> !other.contains(stay))
+                .limit(JOURNAL_DIFF_LIMIT)
+                .toList();
     }
 }
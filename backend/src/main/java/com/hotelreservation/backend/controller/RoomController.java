@@ -1,8 +1,16 @@
 package com.hotelreservation.backend.controller;
 
+import com.hotelreservation.backend.dto.RoomView;
 import com.hotelreservation.backend.entity.Room;
 import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.InventoryLedger;
+import com.hotelreservation.backend.service.NdjsonExporter;
+import com.hotelreservation.backend.service.RoomListingService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -12,19 +20,42 @@ import java.util.List;
 public class RoomController {
 
     private final RoomRepository roomRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final InventoryLedger inventoryLedger;
+    private final RoomListingService roomListingService;
+    private final NdjsonExporter ndjsonExporter;
 
-    public RoomController(RoomRepository roomRepository) {
+    public RoomController(RoomRepository roomRepository, AvailabilityIndex availabilityIndex,
+                          InventoryLedger inventoryLedger, RoomListingService roomListingService,
+                          NdjsonExporter ndjsonExporter) {
         this.roomRepository = roomRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.roomListingService = roomListingService;
+        this.ndjsonExporter = ndjsonExporter;
     }
 
-    @GetMapping
-    public List<Room> getAllRooms() {
-        return roomRepository.findAll();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<RoomView> getAllRooms() {
+        return roomListingService.findAll();
+    }
+
+    // Accept: application/x-ndjson streams one room per line instead of building the list
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRooms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjsonExporter.export(roomListingService::streamAll));
     }
 
     @PostMapping
     public Room addRoom(@RequestBody Room room) {
-        return roomRepository.save(room);
+        Room saved = roomRepository.save(room);
+        availabilityIndex.register(saved);
+        if (saved.getHotel() != null) {
+            inventoryLedger.invalidate(saved.getHotel().getId(), saved.getRoomType());
+        }
+        return saved;
     }
 
     @GetMapping("/{id}")
@@ -34,6 +65,11 @@ public class RoomController {
 
     @DeleteMapping("/{id}")
     public void deleteRoom(@PathVariable Long id) {
+        Room room = roomRepository.findById(id).orElse(null);
         roomRepository.deleteById(id);
+        availabilityIndex.remove(id);
+        if (room != null && room.getHotel() != null) {
+            inventoryLedger.invalidate(room.getHotel().getId(), room.getRoomType());
+        }
     }
 }
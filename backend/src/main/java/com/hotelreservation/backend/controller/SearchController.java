@@ -0,0 +1,72 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.dto.HotelStay;
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.service.StaySearchService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private static final int MAX_GUESTS = 20;
+    private static final int MAX_RESULTS = 100;
+
+    private final StaySearchService staySearchService;
+    private final PricingEngine pricingEngine;
+
+    public SearchController(StaySearchService staySearchService, PricingEngine pricingEngine) {
+        this.staySearchService = staySearchService;
+        this.pricingEngine = pricingEngine;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> search(
+            @RequestParam(required = false) String city,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+            @RequestParam(defaultValue = "1") int guests,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        String error = null;
+        if (!checkOut.isAfter(checkIn)) {
+            error = "Check-out date must be after check-in date";
+        } else if (ChronoUnit.DAYS.between(checkIn, checkOut) > pricingEngine.maxRangeDays()) {
+            error = "A stay can be at most " + pricingEngine.maxRangeDays() + " nights";
+        } else if (guests < 1 || guests > MAX_GUESTS) {
+            error = "'guests' must be between 1 and " + MAX_GUESTS;
+        }
+        if (error != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", error, "status", 400));
+        }
+
+        try {
+            // Every candidate hotel is checked in memory, in parallel; each comes with its cheapest fitting room
+            List<HotelStay> stays = staySearchService.search(city == null || city.isBlank() ? null : city,
+                    checkIn, checkOut, guests, Math.max(1, Math.min(limit, MAX_RESULTS)));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(stays);
+        } catch (ServiceBusyException e) {
+            System.err.println("GET /api/search - Rejected: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage(), "status", 503));
+        }
+    }
+}
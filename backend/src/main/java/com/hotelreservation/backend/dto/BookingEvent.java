@@ -0,0 +1,17 @@
+package com.hotelreservation.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A committed reservation change as delivered to event bus subscribers. The id
+ * is the outbox row's; delivery is at-least-once, so subscribers that must not
+ * act twice should remember the ids they have handled.
+ */
+public record BookingEvent(long id, Type type, Long reservationId, Long roomId, Long hotelId, Long customerId,
+                           LocalDate checkIn, LocalDate checkOut, double totalPrice, LocalDateTime occurredAt) {
+
+    public enum Type {
+        CONFIRMED, CANCELLED, DELETED
+    }
+}
@@ -0,0 +1,28 @@
+package com.hotelreservation.backend.dto;
+
+import java.util.List;
+
+/**
+ * A page of hotels together with the facet counts of the full result, returned
+ * by GET /api/hotels when facets are requested.
+ */
+public class FacetedPage<T> extends CursorPage<T> {
+    private HotelFacets facets;
+
+    public FacetedPage() {
+    }
+
+    public FacetedPage(List<T> items, String nextCursor, HotelFacets facets) {
+        super(items, nextCursor);
+        this.facets = facets;
+    }
+
+    // Getters and Setters
+    public HotelFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(HotelFacets facets) {
+        this.facets = facets;
+    }
+}
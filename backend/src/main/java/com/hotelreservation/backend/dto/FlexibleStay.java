@@ -0,0 +1,11 @@
+package com.hotelreservation.backend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One bookable stay found by the flexible-dates search, priced as the booking
+ * path would price it.
+ */
+public record FlexibleStay(Long hotelId, String hotelName, Long roomId, String roomNumber, String roomType,
+                           LocalDate checkIn, LocalDate checkOut, double totalPrice) {
+}
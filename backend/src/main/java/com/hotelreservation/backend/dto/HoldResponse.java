@@ -0,0 +1,12 @@
+package com.hotelreservation.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A room held during checkout. totalPrice is the current quote; the booking is
+ * priced again when the hold is confirmed.
+ */
+public record HoldResponse(String holdId, Long hotelId, Long roomId, String roomNumber, String roomType,
+                           LocalDate checkIn, LocalDate checkOut, double totalPrice, LocalDateTime expiresAt) {
+}
@@ -8,8 +8,10 @@ public class HotelBookingRequest {
     @NotNull(message = "Hotel ID is required")
     private Long hotelId;
     
-    @NotNull(message = "Room ID is required")
+    // Either a specific room or a room type to allocate from
     private Long roomId;
+
+    private String roomType;
     
     @NotNull(message = "Check-in date is required")
     private LocalDate checkIn;
@@ -31,7 +33,7 @@ public class HotelBookingRequest {
     @NotBlank(message = "Contact phone is required")
     private String contactPhone;
     
-    @NotNull(message = "Total price is required")
+    // Accepted for older clients but ignored: bookings are priced by the server
     @Positive(message = "Total price must be positive")
     private Double totalPrice;
 
@@ -52,6 +54,19 @@ public class HotelBookingRequest {
         this.roomId = roomId;
     }
 
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public void setRoomType(String roomType) {
+        this.roomType = roomType;
+    }
+
+    @AssertTrue(message = "Room ID or room type is required")
+    private boolean isRoomSelected() {
+        return roomId != null || (roomType != null && !roomType.isBlank());
+    }
+
     public LocalDate getCheckIn() {
         return checkIn;
     }
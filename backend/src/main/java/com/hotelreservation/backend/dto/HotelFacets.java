@@ -0,0 +1,37 @@
+package com.hotelreservation.backend.dto;
+
+import java.util.Map;
+
+/**
+ * Hotel counts per tag and per badge over a whole search result, not just the
+ * returned page.
+ */
+public class HotelFacets {
+    private Map<String, Integer> tags;
+    private Map<String, Integer> badges;
+
+    public HotelFacets() {
+    }
+
+    public HotelFacets(Map<String, Integer> tags, Map<String, Integer> badges) {
+        this.tags = tags;
+        this.badges = badges;
+    }
+
+    // Getters and Setters
+    public Map<String, Integer> getTags() {
+        return tags;
+    }
+
+    public void setTags(Map<String, Integer> tags) {
+        this.tags = tags;
+    }
+
+    public Map<String, Integer> getBadges() {
+        return badges;
+    }
+
+    public void setBadges(Map<String, Integer> badges) {
+        this.badges = badges;
+    }
+}
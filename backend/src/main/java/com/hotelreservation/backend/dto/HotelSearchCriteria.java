@@ -0,0 +1,108 @@
+package com.hotelreservation.backend.dto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Filters, sort order and seek position for GET /api/hotels.
+ */
+public class HotelSearchCriteria {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private String city;
+    private String country;
+    private Double minRating;
+    private Double maxPrice;
+    private List<String> tags = List.of();
+    private String sort;   // price, rating, name or id; prefix with '-' for descending
+    private String after;  // cursor returned with the previous page
+    private int limit = DEFAULT_LIMIT;
+
+    // Getters and Setters
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags == null ? List.of() : tags.stream().filter(t -> t != null && !t.isBlank()).toList();
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Canonical form of the criteria: equivalent requests (case, tag order,
+     * whitespace) map to the same key.
+     */
+    public String cacheKey() {
+        String tagKey = tags.stream().map(t -> t.trim().toLowerCase()).distinct().sorted()
+                .collect(Collectors.joining(","));
+        return "city=" + normalize(city) + "&country=" + normalize(country)
+                + "&minRating=" + minRating + "&maxPrice=" + maxPrice + "&tags=" + tagKey
+                + "&sort=" + normalize(sort) + "&after=" + (after != null ? after.trim() : "") + "&limit=" + limit;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    public boolean hasFilters() {
+        return (city != null && !city.isBlank()) || (country != null && !country.isBlank())
+                || minRating != null || maxPrice != null || !tags.isEmpty();
+    }
+}
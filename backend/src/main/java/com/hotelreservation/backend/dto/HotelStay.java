@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.dto;
+
+/**
+ * A hotel that can host the party for the whole stay, with the cheapest room
+ * that does so.
+ */
+public record HotelStay(HotelView hotel, RoomAvailabilityResponse cheapestRoom) {
+}
@@ -0,0 +1,54 @@
+package com.hotelreservation.backend.dto;
+
+/**
+ * One typeahead suggestion: a hotel, a city or a country.
+ */
+public class HotelSuggestion {
+    private String type;    // hotel, city or country
+    private String text;
+    private String detail;  // where a hotel or city is, for display
+    private Long hotelId;   // set for hotel suggestions only
+
+    public HotelSuggestion() {
+    }
+
+    public HotelSuggestion(String type, String text, String detail, Long hotelId) {
+        this.type = type;
+        this.text = text;
+        this.detail = detail;
+        this.hotelId = hotelId;
+    }
+
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public void setHotelId(Long hotelId) {
+        this.hotelId = hotelId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.hotelreservation.backend.dto;
+
+import com.hotelreservation.backend.entity.Hotel;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable copy of a hotel as served from the in-memory catalog. Serializes to
+ * the same JSON as the Hotel entity.
+ */
+public record HotelView(Long id, String name, String city, String country, Double rating, Double pricePerNight,
+                        String heroImage, List<String> tags, String badge, String description) {
+
+    public static HotelView of(Hotel hotel) {
+        List<String> tags = hotel.getTags() == null
+                ? List.of()
+                : hotel.getTags().stream().filter(Objects::nonNull).toList();
+        return new HotelView(hotel.getId(), hotel.getName(), hotel.getCity(), hotel.getCountry(),
+                hotel.getRating(), hotel.getPricePerNight(), hotel.getHeroImage(), tags,
+                hotel.getBadge(), hotel.getDescription());
+    }
+}
@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.dto;
+
+/**
+ * A customer's points: what is stored plus accruals not yet written back.
+ * pendingPoints is already included in points.
+ */
+public record LoyaltyBalance(Long customerId, long points, long pendingPoints) {
+}
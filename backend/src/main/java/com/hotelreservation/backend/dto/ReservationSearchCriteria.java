@@ -0,0 +1,88 @@
+package com.hotelreservation.backend.dto;
+
+import com.hotelreservation.backend.entity.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * Filters and seek position for GET /api/reservations/search. Results are always
+ * ordered by check-in date, then reservation id.
+ */
+public class ReservationSearchCriteria {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private Long hotelId;
+    private Long customerId;
+    private Reservation.ReservationStatus status;
+    private LocalDate from;  // stays overlapping [from, to)
+    private LocalDate to;
+    private String after;    // cursor returned with the previous page
+    private int limit = DEFAULT_LIMIT;
+
+    // Getters and Setters
+    public Long getHotelId() {
+        return hotelId;
+    }
+
+    public void setHotelId(Long hotelId) {
+        this.hotelId = hotelId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Reservation.ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        if (status == null || status.isBlank()) {
+            this.status = null;
+            return;
+        }
+        try {
+            this.status = Reservation.ReservationStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown reservation status: " + status);
+        }
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,16 @@
+package com.hotelreservation.backend.dto;
+
+import com.hotelreservation.backend.entity.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * One row of the admin reservation search, read with a constructor projection
+ * so no Room, Hotel or Customer entity is loaded.
+ */
+public record ReservationSummary(Long reservationId, LocalDate checkInDate, LocalDate checkOutDate,
+                                 double totalPrice, Reservation.ReservationStatus status,
+                                 Long roomId, String roomNumber, String roomType,
+                                 Long hotelId, String hotelName,
+                                 Long customerId, String customerName, String customerEmail) {
+}
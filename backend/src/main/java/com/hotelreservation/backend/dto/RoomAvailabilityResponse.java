@@ -0,0 +1,82 @@
+package com.hotelreservation.backend.dto;
+
+public class RoomAvailabilityResponse {
+    private Long roomId;
+    private String roomNumber;
+    private String roomType;
+    private Double pricePerNight;
+    private Integer capacity;
+    private Long nights;
+    private Double totalPrice;
+
+    public RoomAvailabilityResponse() {
+    }
+
+    public RoomAvailabilityResponse(Long roomId, String roomNumber, String roomType, Double pricePerNight,
+                                    Integer capacity, Long nights, Double totalPrice) {
+        this.roomId = roomId;
+        this.roomNumber = roomNumber;
+        this.roomType = roomType;
+        this.pricePerNight = pricePerNight;
+        this.capacity = capacity;
+        this.nights = nights;
+        this.totalPrice = totalPrice;
+    }
+
+    // Getters and Setters
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public void setRoomId(Long roomId) {
+        this.roomId = roomId;
+    }
+
+    public String getRoomNumber() {
+        return roomNumber;
+    }
+
+    public void setRoomNumber(String roomNumber) {
+        this.roomNumber = roomNumber;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public void setRoomType(String roomType) {
+        this.roomType = roomType;
+    }
+
+    public Double getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public void setPricePerNight(Double pricePerNight) {
+        this.pricePerNight = pricePerNight;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Long getNights() {
+        return nights;
+    }
+
+    public void setNights(Long nights) {
+        this.nights = nights;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(Double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hotelreservation.backend.dto;
+
+/**
+ * Flat room columns read with a JPQL constructor expression; the hotel is
+ * resolved separately so a listing never loads hotels row by row.
+ */
+public record RoomRow(Long roomId, String roomNumber, String roomType, double pricePerNight,
+                      boolean available, Integer capacity, Long hotelId) {
+}
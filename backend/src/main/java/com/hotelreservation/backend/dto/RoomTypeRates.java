@@ -0,0 +1,14 @@
+package com.hotelreservation.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Nightly rates of one room type over a date range, priced from the type's
+ * cheapest room. total is what booking that room for the whole range costs.
+ */
+public record RoomTypeRates(String roomType, double basePrice, List<NightlyRate> nights, double total) {
+
+    public record NightlyRate(LocalDate date, double price) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.hotelreservation.backend.dto;
+
+/**
+ * Room as returned by the listing endpoints. Serializes to the same JSON as the
+ * Room entity, hotel included.
+ */
+public record RoomView(Long roomId, String roomNumber, String roomType, double pricePerNight,
+                       boolean available, Integer capacity, HotelView hotel) {
+
+    public static RoomView of(RoomRow row, HotelView hotel) {
+        return new RoomView(row.roomId(), row.roomNumber(), row.roomType(), row.pricePerNight(),
+                row.available(), row.capacity(), hotel);
+    }
+}
@@ -0,0 +1,82 @@
+package com.hotelreservation.backend.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Finished async booking, so its ticket can still be polled after a restart or
+ * from another node. Successful bookings write the row in the same transaction
+ * as the reservation; refused ones right after. Pending tickets exist only in
+ * the memory of the node that queued them.
+ */
+@Entity
+@Table(name = "booking_tickets",
+       indexes = @Index(name = "idx_booking_tickets_completed_at", columnList = "completed_at"))
+public class BookingTicket implements Persistable<String> {
+
+    @Id
+    @Column(name = "ticket_id", length = 36)
+    private String ticketId;
+
+    // User id (or email) of whoever queued the booking; nobody else may poll it
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "response_status", nullable = false)
+    private int responseStatus;
+
+    @Lob
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt = LocalDateTime.now();
+
+    // Ticket ids are assigned up front, so save() would otherwise select before every insert
+    @Transient
+    private boolean persisted;
+
+    public BookingTicket() {
+    }
+
+    public BookingTicket(String ticketId, String owner, int responseStatus, String responseBody) {
+        this.ticketId = ticketId;
+        this.owner = owner;
+        this.responseStatus = responseStatus;
+        this.responseBody = responseBody;
+    }
+
+    @Override
+    public String getId() {
+        return ticketId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    // Getters and Setters
+    public String getTicketId() { return ticketId; }
+    public void setTicketId(String ticketId) { this.ticketId = ticketId; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public int getResponseStatus() { return responseStatus; }
+    public void setResponseStatus(int responseStatus) { this.responseStatus = responseStatus; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
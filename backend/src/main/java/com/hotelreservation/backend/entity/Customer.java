@@ -1,8 +1,11 @@
 package com.hotelreservation.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hotelreservation.backend.entity.listener.CustomerChangeListener;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(CustomerChangeListener.class)
 @Table(name = "customers")
 public class Customer {
 
@@ -23,6 +26,12 @@ public class Customer {
     @Column(nullable = false)
     private Integer loyaltyPoints = 0;
 
+    // Account that owns this customer record; null for guest bookings
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", unique = true)
+    @JsonIgnore
+    private User user;
+
     // Getters and Setters
     public Long getCustomerId() { return customerId; }
     public void setCustomerId(Long customerId) { this.customerId = customerId; }
@@ -38,4 +47,7 @@ public class Customer {
     
     public Integer getLoyaltyPoints() { return loyaltyPoints; }
     public void setLoyaltyPoints(Integer loyaltyPoints) { this.loyaltyPoints = loyaltyPoints; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
 }
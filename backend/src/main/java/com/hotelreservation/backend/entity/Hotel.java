@@ -1,12 +1,22 @@
 package com.hotelreservation.backend.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.hotelreservation.backend.entity.listener.HotelChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "hotels")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Room.hotel is a lazy proxy
+@EntityListeners(HotelChangeListener.class)
+@Table(name = "hotels", indexes = {
+        @Index(name = "idx_hotels_city", columnList = "city"),
+        @Index(name = "idx_hotels_country", columnList = "country"),
+        @Index(name = "idx_hotels_price_id", columnList = "pricePerNight, id"),
+        @Index(name = "idx_hotels_rating_id", columnList = "rating, id")
+})
 public class Hotel {
 
     @Id
@@ -46,6 +56,16 @@ public class Hotel {
     @JsonIgnore  // Prevent circular reference in JSON serialization
     private List<Room> rooms = new ArrayList<>();
 
+    @OneToMany(mappedBy = "hotel", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private List<RatePlan> ratePlans = new ArrayList<>();
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version; // bumped on every change, including tags; drives catalog refresh
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -134,5 +154,20 @@ public class Hotel {
     public void setRooms(List<Room> rooms) {
         this.rooms = rooms;
     }
-}
 
+    public List<RatePlan> getRatePlans() {
+        return ratePlans;
+    }
+
+    public void setRatePlans(List<RatePlan> ratePlans) {
+        this.ratePlans = ratePlans;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hotelreservation.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marker written in the same transaction as a loyalty journal segment's point
+ * updates. A segment found on disk after a crash is replayed only if it has no
+ * marker, so its points are applied exactly once.
+ */
+@Entity
+@Table(name = "loyalty_flushes",
+       indexes = @Index(name = "idx_loyalty_flushes_flushed_at", columnList = "flushed_at"))
+public class LoyaltyFlush {
+
+    @Id
+    @Column(length = 36)
+    private String segment;
+
+    @Column(name = "flushed_at", nullable = false)
+    private LocalDateTime flushedAt;
+
+    // Getters and Setters
+    public String getSegment() { return segment; }
+    public void setSegment(String segment) { this.segment = segment; }
+
+    public LocalDateTime getFlushedAt() { return flushedAt; }
+    public void setFlushedAt(LocalDateTime flushedAt) { this.flushedAt = flushedAt; }
+}
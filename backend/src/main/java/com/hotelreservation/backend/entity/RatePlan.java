@@ -0,0 +1,150 @@
+package com.hotelreservation.backend.entity;
+
+import com.hotelreservation.backend.entity.listener.RatePlanChangeListener;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nightly price multipliers for a hotel's rooms. A plan with a room type
+ * applies to that type only; a plan without one covers the hotel's other
+ * types. A night's multiplier is the product of the weekend, season and
+ * occupancy multipliers that apply to it.
+ *
+ * A hotel has at most one plan per room type and one hotel-wide plan. The
+ * unique key is on scope rather than room_type because MySQL lets any number
+ * of rows share a NULL room_type.
+ */
+@Entity
+@EntityListeners(RatePlanChangeListener.class)
+@Table(name = "rate_plans",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rate_plans_hotel_scope",
+                                             columnNames = {"hotel_id", "scope"}))
+public class RatePlan {
+
+    // scope of the hotel-wide plan
+    public static final String HOTEL_WIDE = "*";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "hotel_id", nullable = false)
+    private Hotel hotel;
+
+    // Null for the hotel-wide plan
+    @Column(name = "room_type", length = 100)
+    private String roomType;
+
+    // roomType, or HOTEL_WIDE; kept in step by syncScope
+    @Column(nullable = false, length = 100)
+    private String scope;
+
+    // Applied to Friday and Saturday nights
+    @Column(name = "weekend_multiplier", nullable = false)
+    private double weekendMultiplier = 1.0;
+
+    // A night in several seasons takes the highest multiplier
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "rate_plan_seasons", joinColumns = @JoinColumn(name = "rate_plan_id"))
+    private List<Season> seasons = new ArrayList<>();
+
+    // The tier with the highest threshold the night's occupancy reaches applies
+    @ElementCollection
+    @BatchSize(size = 100)
+    @CollectionTable(name = "rate_plan_occupancy_tiers", joinColumns = @JoinColumn(name = "rate_plan_id"))
+    private List<OccupancyTier> occupancyTiers = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    void syncScope() {
+        scope = roomType != null ? roomType : HOTEL_WIDE;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Hotel getHotel() { return hotel; }
+    public void setHotel(Hotel hotel) { this.hotel = hotel; }
+
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+
+    public String getScope() { return scope; }
+
+    public double getWeekendMultiplier() { return weekendMultiplier; }
+    public void setWeekendMultiplier(double weekendMultiplier) { this.weekendMultiplier = weekendMultiplier; }
+
+    public List<Season> getSeasons() { return seasons; }
+    public void setSeasons(List<Season> seasons) { this.seasons = seasons; }
+
+    public List<OccupancyTier> getOccupancyTiers() { return occupancyTiers; }
+    public void setOccupancyTiers(List<OccupancyTier> occupancyTiers) { this.occupancyTiers = occupancyTiers; }
+
+    /**
+     * Multiplier for the nights from startDate through endDate, both included.
+     */
+    @Embeddable
+    public static class Season {
+
+        @Column(name = "start_date", nullable = false)
+        private LocalDate startDate;
+
+        @Column(name = "end_date", nullable = false)
+        private LocalDate endDate;
+
+        @Column(nullable = false)
+        private double multiplier;
+
+        public Season() {
+        }
+
+        public Season(LocalDate startDate, LocalDate endDate, double multiplier) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.multiplier = multiplier;
+        }
+
+        public LocalDate getStartDate() { return startDate; }
+        public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+        public LocalDate getEndDate() { return endDate; }
+        public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+        public double getMultiplier() { return multiplier; }
+        public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+    }
+
+    /**
+     * Multiplier for nights on which at least minOccupancy (0 to 1) of the
+     * room type's rooms are booked.
+     */
+    @Embeddable
+    public static class OccupancyTier {
+
+        @Column(name = "min_occupancy", nullable = false)
+        private double minOccupancy;
+
+        @Column(nullable = false)
+        private double multiplier;
+
+        public OccupancyTier() {
+        }
+
+        public OccupancyTier(double minOccupancy, double multiplier) {
+            this.minOccupancy = minOccupancy;
+            this.multiplier = multiplier;
+        }
+
+        public double getMinOccupancy() { return minOccupancy; }
+        public void setMinOccupancy(double minOccupancy) { this.minOccupancy = minOccupancy; }
+
+        public double getMultiplier() { return multiplier; }
+        public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+    }
+}
@@ -1,10 +1,19 @@
 package com.hotelreservation.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        // Overlap checks per room and the hotel filter of the admin search
+        @Index(name = "idx_reservations_room_dates", columnList = "room_id, checkInDate, checkOutDate"),
+        // Status filter seeking on check-in; InnoDB appends the id, completing the keyset
+        @Index(name = "idx_reservations_status_check_in", columnList = "status, checkInDate"),
+        // A customer's own bookings, already in seek order
+        @Index(name = "idx_reservations_customer_check_in", columnList = "customer_id, checkInDate"),
+        @Index(name = "idx_reservations_check_in", columnList = "checkInDate")
+})
 public class Reservation {
 
     @Id
@@ -31,6 +40,11 @@ public class Reservation {
     @Enumerated(EnumType.STRING)
     private ReservationStatus status = ReservationStatus.CONFIRMED;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version; // optimistic-lock backstop for concurrent bookings
+
     // Enum for clarity
     public enum ReservationStatus {
         CONFIRMED, CANCELLED, COMPLETED
@@ -57,4 +71,7 @@ public class Reservation {
 
     public ReservationStatus getStatus() { return status; }
     public void setStatus(ReservationStatus status) { this.status = status; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -1,8 +1,12 @@
 package com.hotelreservation.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.hotelreservation.backend.entity.listener.RoomChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@EntityListeners(RoomChangeListener.class)
 @Table(name = "rooms")
 public class Room {
 
@@ -25,10 +29,16 @@ public class Room {
     @Column(nullable = false)
     private Integer capacity = 2; // Default capacity
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hotel_id")
     private Hotel hotel;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version; // optimistic-lock backstop for concurrent bookings
+
     // Getters and setters
     public Long getRoomId() { return roomId; }
     public void setRoomId(Long roomId) { this.roomId = roomId; }
@@ -50,4 +60,7 @@ public class Room {
 
     public Hotel getHotel() { return hotel; }
     public void setHotel(Hotel hotel) { this.hotel = hotel; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
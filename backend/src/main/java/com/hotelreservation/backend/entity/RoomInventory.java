@@ -0,0 +1,57 @@
+package com.hotelreservation.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Ledger row: how many rooms of one type a hotel can still sell for one night.
+ * Bookings decrement it with a single conditional bulk update.
+ */
+@Entity
+@Table(name = "room_inventory",
+       uniqueConstraints = @UniqueConstraint(name = "uk_inventory_hotel_type_night",
+                                             columnNames = {"hotel_id", "room_type", "night"}))
+public class RoomInventory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "room_type", nullable = false)
+    private String roomType;
+
+    @Column(nullable = false)
+    private LocalDate night;
+
+    @Column(nullable = false)
+    private int remaining;
+
+    public RoomInventory() {
+    }
+
+    public RoomInventory(Long hotelId, String roomType, LocalDate night, int remaining) {
+        this.hotelId = hotelId;
+        this.roomType = roomType;
+        this.night = night;
+        this.remaining = remaining;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getHotelId() { return hotelId; }
+    public void setHotelId(Long hotelId) { this.hotelId = hotelId; }
+
+    public String getRoomType() { return roomType; }
+    public void setRoomType(String roomType) { this.roomType = roomType; }
+
+    public LocalDate getNight() { return night; }
+    public void setNight(LocalDate night) { this.night = night; }
+
+    public int getRemaining() { return remaining; }
+    public void setRemaining(int remaining) { this.remaining = remaining; }
+}
@@ -0,0 +1,26 @@
+package com.hotelreservation.backend.entity.listener;
+
+import com.hotelreservation.backend.entity.Customer;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on Customer that announces updates and deletes, so cached
+ * email lookups never hand out a stale id. Instantiated by Hibernate through
+ * the Spring bean container.
+ */
+public class CustomerChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void customerChanged(Customer customer) {
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer.getCustomerId()));
+    }
+}
@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.entity.listener;
+
+/**
+ * Published by {@link CustomerChangeListener} when a customer is updated or
+ * deleted; applied once the transaction commits.
+ */
+public record CustomerChangedEvent(Long customerId) {
+}
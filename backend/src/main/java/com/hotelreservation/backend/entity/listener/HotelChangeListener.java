@@ -0,0 +1,28 @@
+package com.hotelreservation.backend.entity.listener;
+
+import com.hotelreservation.backend.entity.Hotel;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on Hotel that turns every insert, update and delete into a
+ * {@link HotelChangedEvent}. Instantiated by Hibernate through the
+ * Spring bean container.
+ */
+public class HotelChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public HotelChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void hotelChanged(Hotel hotel) {
+        eventPublisher.publishEvent(new HotelChangedEvent(hotel.getId()));
+    }
+}
@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.entity.listener;
+
+/**
+ * Published by {@link HotelChangeListener} when a hotel is inserted, updated or
+ * deleted; the catalog applies it after the writing transaction commits.
+ */
+public record HotelChangedEvent(Long hotelId) {
+}
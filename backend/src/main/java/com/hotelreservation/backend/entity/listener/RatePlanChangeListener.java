@@ -0,0 +1,28 @@
+package com.hotelreservation.backend.entity.listener;
+
+import com.hotelreservation.backend.entity.RatePlan;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on RatePlan that announces which hotel's rates changed, so its
+ * rate calendars are rebuilt. Instantiated by Hibernate through the Spring bean
+ * container.
+ */
+public class RatePlanChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RatePlanChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void ratePlanChanged(RatePlan ratePlan) {
+        eventPublisher.publishEvent(new RatesChangedEvent(ratePlan.getHotel().getId()));
+    }
+}
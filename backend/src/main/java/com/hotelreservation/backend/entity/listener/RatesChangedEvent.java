@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.entity.listener;
+
+/**
+ * Published by {@link RatePlanChangeListener} when a hotel's rate plans change,
+ * so its rate calendars are rebuilt.
+ */
+public record RatesChangedEvent(Long hotelId) {
+}
@@ -0,0 +1,29 @@
+package com.hotelreservation.backend.entity.listener;
+
+import com.hotelreservation.backend.entity.Room;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on Room that announces which hotel's room list changed.
+ * Instantiated by Hibernate through the Spring bean container.
+ */
+public class RoomChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RoomChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void roomChanged(Room room) {
+        if (room.getHotel() != null) {
+            eventPublisher.publishEvent(new RoomsChangedEvent(room.getHotel().getId()));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.hotelreservation.backend.entity.listener;
+
+/**
+ * Published by {@link RoomChangeListener} when one of a hotel's rooms changes;
+ * handled after the writing transaction commits.
+ */
+public record RoomsChangedEvent(Long hotelId) {
+}
@@ -0,0 +1,21 @@
+package com.hotelreservation.backend.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Business failure on the booking path, carrying the HTTP status the
+ * controllers should answer with.
+ */
+public class BookingException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public BookingException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,12 @@
+package com.hotelreservation.backend.exception;
+
+/**
+ * A booking event subscriber gave up on an event after all its attempts; the
+ * outbox keeps the event instead of deleting it.
+ */
+public class EventDeliveryException extends RuntimeException {
+
+    public EventDeliveryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.hotelreservation.backend.exception;
+
+/**
+ * A bounded resource refused work instead of queueing it; controllers answer
+ * 503 so the client backs off and retries.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.hotelreservation.backend.repository;
+
+import com.hotelreservation.backend.entity.BookingTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BookingTicketRepository extends JpaRepository<BookingTicket, String> {
+
+    @Modifying
+    @Query("DELETE FROM BookingTicket t WHERE t.completedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
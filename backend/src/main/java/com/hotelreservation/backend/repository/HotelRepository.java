@@ -2,14 +2,24 @@ package com.hotelreservation.backend.repository;
 
 import com.hotelreservation.backend.entity.Hotel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface HotelRepository extends JpaRepository<Hotel, Long> {
-    List<Hotel> findByCityContainingIgnoreCase(String city);
-    List<Hotel> findByRatingGreaterThanEqual(Double minRating);
-    List<Hotel> findByPricePerNightLessThanEqual(Double maxPrice);
-}
+public interface HotelRepository extends JpaRepository<Hotel, Long>, JpaSpecificationExecutor<Hotel> {
+
+    @Query("SELECT DISTINCT h FROM Hotel h LEFT JOIN FETCH h.tags ORDER BY h.id")
+    List<Hotel> findAllWithTags();
 
+    @Query("SELECT DISTINCT h FROM Hotel h LEFT JOIN FETCH h.tags WHERE h.id IN :ids")
+    List<Hotel> findAllWithTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Single row of (count, sum of versions, max id); changes whenever any hotel is written
+    @Query("SELECT COUNT(h), COALESCE(SUM(h.version), 0), COALESCE(MAX(h.id), 0) FROM Hotel h")
+    List<Object[]> catalogFingerprint();
+}
@@ -0,0 +1,180 @@
+package com.hotelreservation.backend.repository;
+
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.util.KeysetCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Criteria building blocks for the hotel search, so every filter and the seek
+ * position end up in one SQL statement.
+ */
+public final class HotelSpecifications {
+
+    private HotelSpecifications() {
+    }
+
+    public static Specification<Hotel> search(HotelSearchCriteria criteria, HotelSort sort, KeysetCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            // Bare columns so idx_hotels_city / idx_hotels_country apply: a prefix LIKE is a
+            // range scan, unlike LIKE '%city%' or lower(city). Case folding is left to the
+            // column's case-insensitive collation (MySQL's default, IGNORECASE on H2).
+            if (criteria.getCity() != null && !criteria.getCity().isBlank()) {
+                predicates.add(cb.like(root.get("city"), criteria.getCity().trim() + "%"));
+            }
+            if (criteria.getCountry() != null && !criteria.getCountry().isBlank()) {
+                predicates.add(cb.equal(root.get("country"), criteria.getCountry().trim()));
+            }
+            if (criteria.getMinRating() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("rating"), criteria.getMinRating()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("pricePerNight"), criteria.getMaxPrice()));
+            }
+            // Every requested tag must be present
+            for (String tag : criteria.getTags()) {
+                Subquery<Long> tagged = query.subquery(Long.class);
+                Root<Hotel> hotel = tagged.from(Hotel.class);
+                Join<Hotel, String> tags = hotel.join("tags");
+                tagged.select(hotel.get("id"))
+                        .where(cb.equal(hotel.get("id"), root.get("id")),
+                               cb.equal(cb.lower(tags), tag.trim().toLowerCase()));
+                predicates.add(cb.exists(tagged));
+            }
+            if (after != null) {
+                predicates.add(seek(root, cb, sort, after));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // (sortValue, id) strictly after the cursor in the requested direction
+    private static Predicate seek(Root<Hotel> root, CriteriaBuilder cb, HotelSort sort, KeysetCursor after) {
+        Path<Long> id = root.get("id");
+        Predicate idAfter = sort.descending() ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id());
+        if (sort.field() == HotelSort.Field.ID) {
+            return idAfter;
+        }
+        if (sort.field() == HotelSort.Field.NAME) {
+            Expression<String> name = root.get("name");
+            Predicate beyond = sort.descending() ? cb.lessThan(name, after.value()) : cb.greaterThan(name, after.value());
+            return cb.or(beyond, cb.and(cb.equal(name, after.value()), idAfter));
+        }
+        Expression<Double> value = root.get(sort.field().attribute());
+        double last = after.doubleValue();
+        Predicate beyond = sort.descending() ? cb.lessThan(value, last) : cb.greaterThan(value, last);
+        return cb.or(beyond, cb.and(cb.equal(value, last), idAfter));
+    }
+
+    /**
+     * Sort order for hotel listings; the id is always the tie-breaker so the
+     * order is total and cursors are stable.
+     */
+    public record HotelSort(Field field, boolean descending) {
+
+        /**
+         * How names compare wherever hotels are sorted or sought in memory. It must
+         * agree with the database's ORDER BY name, which runs under the column's
+         * case-insensitive collation (MySQL's default, IGNORECASE on H2), or a cursor
+         * minted by one source skips or repeats rows on the other.
+         */
+        public static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER;
+
+        public enum Field {
+            PRICE("price", "pricePerNight"),
+            RATING("rating", "rating"),
+            NAME("name", "name"),
+            ID("id", "id");
+
+            private final String key;
+            private final String attribute;
+
+            Field(String key, String attribute) {
+                this.key = key;
+                this.attribute = attribute;
+            }
+
+            public String key() {
+                return key;
+            }
+
+            public String attribute() {
+                return attribute;
+            }
+        }
+
+        public static HotelSort parse(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return new HotelSort(Field.ID, false);
+            }
+            String value = sort.trim().toLowerCase();
+            boolean descending = value.startsWith("-");
+            String key = descending ? value.substring(1) : value;
+            for (Field field : Field.values()) {
+                if (field.key.equals(key)) {
+                    return new HotelSort(field, descending);
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+
+        public String key() {
+            return (descending ? "-" : "") + field.key;
+        }
+
+        public Sort toSort() {
+            Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            return field == Field.ID
+                    ? Sort.by(direction, "id")
+                    : Sort.by(direction, field.attribute).and(Sort.by(direction, "id"));
+        }
+
+        /**
+         * Decodes the client's cursor, or returns null when there is none. A cursor
+         * issued for a different sort order is rejected.
+         */
+        public KeysetCursor decodeCursor(String after) {
+            if (after == null || after.isBlank()) {
+                return null;
+            }
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            if (!cursor.sortKey().equals(key())) {
+                throw new IllegalArgumentException("Cursor was issued for sort '" + cursor.sortKey() + "'");
+            }
+            return cursor;
+        }
+
+        public KeysetCursor cursorAfter(Hotel last) {
+            return cursorAfter(last.getId(), last.getPricePerNight(), last.getRating(), last.getName());
+        }
+
+        public KeysetCursor cursorAfter(HotelView last) {
+            return cursorAfter(last.id(), last.pricePerNight(), last.rating(), last.name());
+        }
+
+        private KeysetCursor cursorAfter(Long id, Double price, Double rating, String name) {
+            String value = switch (field) {
+                case PRICE -> String.valueOf(price);
+                case RATING -> String.valueOf(rating);
+                case NAME -> name;
+                case ID -> null;
+            };
+            return new KeysetCursor(key(), value, id);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.hotelreservation.backend.repository;
+
+import com.hotelreservation.backend.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    // Each write is conditional on still holding the claim, so a claimant that lost it to a takeover changes nothing
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body " +
+           "WHERE r.id = :id AND r.claimedAt = :claimedAt")
+    int complete(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("status") int status, @Param("body") String body);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.claimedAt = :claimedAt AND r.responseStatus IS NULL")
+    int release(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    // Rows from before claimed_at existed count as claimed when they were created
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :now WHERE r.id = :id AND r.responseStatus IS NULL " +
+           "AND COALESCE(r.claimedAt, r.createdAt) < :staleBefore")
+    int takeOver(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
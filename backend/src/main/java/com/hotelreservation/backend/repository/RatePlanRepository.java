@@ -0,0 +1,16 @@
+package com.hotelreservation.backend.repository;
+
+import com.hotelreservation.backend.entity.RatePlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RatePlanRepository extends JpaRepository<RatePlan, Long> {
+
+    List<RatePlan> findByHotelId(Long hotelId);
+
+    List<RatePlan> findByHotelIdIn(Collection<Long> hotelIds);
+}
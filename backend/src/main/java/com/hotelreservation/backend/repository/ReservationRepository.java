@@ -1,9 +1,41 @@
 package com.hotelreservation.backend.repository;
 
 import com.hotelreservation.backend.entity.Reservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    // (roomId, checkInDate, checkOutDate) for every stay that still occupies its room
+    @Query("SELECT r.room.roomId, r.checkInDate, r.checkOutDate FROM Reservation r WHERE r.status <> :excluded")
+    List<Object[]> findActiveStays(@Param("excluded") Reservation.ReservationStatus excluded);
+
+    @Query("SELECT COUNT(r) > 0 FROM Reservation r WHERE r.room.roomId = :roomId AND r.status <> :excluded " +
+           "AND r.checkInDate < :checkOut AND r.checkOutDate > :checkIn")
+    boolean existsOverlapping(@Param("roomId") Long roomId,
+                              @Param("checkIn") LocalDate checkIn,
+                              @Param("checkOut") LocalDate checkOut,
+                              @Param("excluded") Reservation.ReservationStatus excluded);
+
+    // Whether a customer has any booking history, whatever its status
+    boolean existsByCustomerCustomerId(Long customerId);
+
+    // Every reservation with its room, hotel and customer joined in, read in fetch-size chunks
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.room rm LEFT JOIN FETCH rm.hotel JOIN FETCH r.customer " +
+           "ORDER BY r.reservationId")
+    Stream<Reservation> streamAll();
 }
@@ -0,0 +1,47 @@
+package com.hotelreservation.backend.repository;
+
+import com.hotelreservation.backend.entity.RoomInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RoomInventoryRepository extends JpaRepository<RoomInventory, Long> {
+
+    // Takes one room of the type for every night in [from, to); returns the number of nights taken
+    @Modifying
+    @Query("UPDATE RoomInventory i SET i.remaining = i.remaining - 1 " +
+           "WHERE i.hotelId = :hotelId AND i.roomType = :roomType " +
+           "AND i.night >= :from AND i.night < :to AND i.remaining > 0")
+    int decrement(@Param("hotelId") Long hotelId,
+                  @Param("roomType") String roomType,
+                  @Param("from") LocalDate from,
+                  @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("UPDATE RoomInventory i SET i.remaining = i.remaining + 1 " +
+           "WHERE i.hotelId = :hotelId AND i.roomType = :roomType " +
+           "AND i.night >= :from AND i.night < :to")
+    int increment(@Param("hotelId") Long hotelId,
+                  @Param("roomType") String roomType,
+                  @Param("from") LocalDate from,
+                  @Param("to") LocalDate to);
+
+    @Query("SELECT i.night FROM RoomInventory i " +
+           "WHERE i.hotelId = :hotelId AND i.roomType = :roomType AND i.night >= :from AND i.night < :to")
+    List<LocalDate> findNights(@Param("hotelId") Long hotelId,
+                               @Param("roomType") String roomType,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM RoomInventory i WHERE i.hotelId = :hotelId AND i.roomType = :roomType AND i.night >= :from")
+    int deleteFrom(@Param("hotelId") Long hotelId,
+                   @Param("roomType") String roomType,
+                   @Param("from") LocalDate from);
+}
@@ -1,12 +1,20 @@
 package com.hotelreservation.backend.repository;
 
+import com.hotelreservation.backend.dto.RoomRow;
 import com.hotelreservation.backend.entity.Room;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
@@ -14,4 +22,29 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     // Query rooms by hotel ID
     @Query("SELECT r FROM Room r WHERE r.hotel.id = :hotelId")
     List<Room> findByHotelId(@Param("hotelId") Long hotelId);
+
+    @Query("SELECT new com.hotelreservation.backend.dto.RoomRow(r.roomId, r.roomNumber, r.roomType, "
+            + "r.pricePerNight, r.available, r.capacity, r.hotel.id) FROM Room r WHERE r.hotel.id = :hotelId ORDER BY r.roomId")
+    List<RoomRow> findRowsByHotelId(@Param("hotelId") Long hotelId);
+
+    @Query("SELECT new com.hotelreservation.backend.dto.RoomRow(r.roomId, r.roomNumber, r.roomType, "
+            + "r.pricePerNight, r.available, r.capacity, h.id) FROM Room r LEFT JOIN r.hotel h ORDER BY r.roomId")
+    List<RoomRow> findAllRows();
+
+    // Same rows read in fetch-size chunks; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.hotelreservation.backend.dto.RoomRow(r.roomId, r.roomNumber, r.roomType, "
+            + "r.pricePerNight, r.available, r.capacity, h.id) FROM Room r LEFT JOIN r.hotel h ORDER BY r.roomId")
+    Stream<RoomRow> streamAllRows();
+
+    @Query("SELECT r FROM Room r LEFT JOIN FETCH r.hotel")
+    List<Room> findAllWithHotel();
+
+    // Bumps the room's version on commit so concurrent bookings of the same room conflict
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT r FROM Room r WHERE r.roomId = :roomId")
+    Optional<Room> findByIdForBooking(@Param("roomId") Long roomId);
 }
@@ -0,0 +1,16 @@
+package com.hotelreservation.backend.security;
+
+import java.security.Principal;
+
+/**
+ * Principal built from JWT claims alone, so handlers know who is calling without
+ * a user or customer lookup. customerId is null for tokens issued before users
+ * were linked to customers. getName() is the email, as before.
+ */
+public record AuthenticatedUser(Long userId, String email, Long customerId) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
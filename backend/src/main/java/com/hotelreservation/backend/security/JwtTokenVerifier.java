@@ -0,0 +1,97 @@
+package com.hotelreservation.backend.security;
+
+import com.hotelreservation.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns a bearer token into its principal. A token is verified and parsed once;
+ * the result is kept in a bounded map keyed by the token's SHA-256 until the
+ * token expires, so repeat requests skip the HMAC check and JSON parsing.
+ * Raw tokens are never held. Rejected tokens are not cached.
+ *
+ * Lookups never lock. When the map outgrows its bound, one caller sweeps out
+ * expired tokens and then, if it is still too big, arbitrary ones; with hashed
+ * keys that is a random sample, and needs none of the global locking an LRU does.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final JwtUtil jwtUtil;
+    private final Map<String, Verified> verified = new ConcurrentHashMap<>(256);
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxEntries;
+
+    public JwtTokenVerifier(JwtUtil jwtUtil,
+                            @Value("${app.security.token-cache-size:10000}") int maxEntries) {
+        this.jwtUtil = jwtUtil;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Throws a JwtException if the token is tampered, malformed or expired.
+     */
+    public AuthenticatedUser verify(String token) {
+        String key = hash(token);
+        Verified hit = verified.get(key);
+        if (hit != null) {
+            if (System.currentTimeMillis() < hit.expiresAt()) {
+                return hit.user();
+            }
+            verified.remove(key, hit);
+        }
+
+        Claims claims = jwtUtil.parseClaims(token);
+        AuthenticatedUser user = new AuthenticatedUser(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("customerId", Long.class));
+        verified.put(key, new Verified(user, claims.getExpiration().getTime()));
+        if (verified.size() > maxEntries && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+        return user;
+    }
+
+    public int size() {
+        return verified.size();
+    }
+
+    // Down to nine tenths of the bound, so the sweep runs once per batch of new tokens, not per token
+    private void evict() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(entry -> now >= entry.expiresAt());
+        int target = maxEntries - maxEntries / 10;
+        Iterator<String> keys = verified.keySet().iterator();
+        while (verified.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Verified(AuthenticatedUser user, long expiresAt) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.hotelreservation.backend.security;
+
+import com.hotelreservation.backend.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects abusive traffic with 429 before it reaches authentication, BCrypt or
+ * the database. Each matching rule is checked per client IP and, when a valid
+ * bearer token is present, per user. Runs ahead of {@link JwtAuthenticationFilter};
+ * the token it verifies is cached, so the later filter does not parse it again.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] TOO_MANY_REQUESTS =
+            "{\"error\":\"Too many requests\",\"status\":429}".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitProperties properties;
+    private final JwtTokenVerifier tokenVerifier;
+    private final RateLimiter limiter = new RateLimiter();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, Counter> rejections = new HashMap<>();
+
+    public RateLimitFilter(RateLimitProperties properties, JwtTokenVerifier tokenVerifier,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokenVerifier = tokenVerifier;
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            for (String scope : new String[] {"ip", "user"}) {
+                rejections.put(rule.getName() + "|" + scope, Counter.builder("http.ratelimit.rejected")
+                        .description("Requests refused with 429 by the rate limiter")
+                        .tag("route", rule.getName())
+                        .tag("scope", scope)
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || properties.getRules().isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Long userId = null;
+        boolean userResolved = false;
+
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if (!matches(rule, request.getMethod(), path)) {
+                continue;
+            }
+            if (rule.getIpPerMinute() > 0) {
+                long wait = limiter.tryAcquire(rule.getName() + "|ip|" + request.getRemoteAddr(),
+                        rule.getIpBurst(), rule.getIpPerMinute());
+                if (wait > 0) {
+                    reject(response, rule, "ip", wait);
+                    return;
+                }
+            }
+            if (rule.getUserPerMinute() > 0) {
+                if (!userResolved) {
+                    userId = userIdOf(request);
+                    userResolved = true;
+                }
+                if (userId != null) {
+                    long wait = limiter.tryAcquire(rule.getName() + "|user|" + userId,
+                            rule.getUserBurst(), rule.getUserPerMinute());
+                    if (wait > 0) {
+                        reject(response, rule, "user", wait);
+                        return;
+                    }
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Buckets that have refilled hold no information, so idle clients cost nothing
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-interval-ms:60000}")
+    public void evictIdle() {
+        limiter.evictIdle();
+    }
+
+    private boolean matches(RateLimitProperties.Rule rule, String method, String path) {
+        if (!rule.getMethods().isEmpty() && rule.getMethods().stream().noneMatch(method::equalsIgnoreCase)) {
+            return false;
+        }
+        return pathMatcher.match(rule.getPattern(), path);
+    }
+
+    private Long userIdOf(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return tokenVerifier.verify(authHeader.substring(7)).userId();
+        } catch (Exception e) {
+            // Invalid tokens are rejected later by authentication; only the IP limit applies
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, RateLimitProperties.Rule rule, String scope, long waitNanos)
+            throws IOException {
+        rejections.get(rule.getName() + "|" + scope).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getOutputStream().write(TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,62 @@
+package com.hotelreservation.backend.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets kept as a single timestamp each (the generic cell rate
+ * algorithm): a key stores the time at which its bucket would be full again, and
+ * a request is admitted by moving that time forward one emission interval with a
+ * CAS. No locks are taken; the map is a ConcurrentHashMap, which stripes its
+ * bins. Keys whose bucket has refilled carry no state and are swept by
+ * {@link #evictIdle()}.
+ */
+public class RateLimiter {
+
+    private final Map<String, AtomicLong> fullAt = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public RateLimiter() {
+        this(System::nanoTime);
+    }
+
+    RateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for the key. Returns 0 if admitted, otherwise the nanoseconds
+     * until a token will be available.
+     */
+    public long tryAcquire(String key, int burst, int perMinute) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        long tolerance = interval * Math.max(1, burst);
+        AtomicLong state = fullAt.computeIfAbsent(key, k -> new AtomicLong(clock.getAsLong()));
+        while (true) {
+            long now = clock.getAsLong();
+            long current = state.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (state.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = fullAt.size();
+        fullAt.values().removeIf(state -> state.get() - now <= 0);
+        return before - fullAt.size();
+    }
+
+    public int size() {
+        return fullAt.size();
+    }
+}
@@ -3,13 +3,17 @@ package com.hotelreservation.backend.service;
 import com.hotelreservation.backend.dto.AuthResponse;
 import com.hotelreservation.backend.dto.LoginRequest;
 import com.hotelreservation.backend.dto.SignupRequest;
+import com.hotelreservation.backend.entity.Customer;
 import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
 import com.hotelreservation.backend.repository.UserRepository;
 import com.hotelreservation.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class AuthService {
@@ -18,30 +22,46 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    @Transactional
     public AuthResponse signup(SignupRequest request) {
         // Check if user already exists
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("User with this email already exists");
         }
 
+        // Hashed before the transaction opens, so no connection is held while the hasher works
+        String passwordHash = passwordHasher.encode(request.getPassword());
+
         // Create new user
         User user = new User();
         user.setFullName(request.getFullName());
         user.setEmail(request.getEmail().toLowerCase().trim());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setPhoneNumber(request.getPhoneNumber());
 
-        // Save user
-        User savedUser = userRepository.save(user);
+        // Save the user and link its customer together
+        Long[] customerId = new Long[1];
+        User savedUser = new TransactionTemplate(transactionManager).execute(status -> {
+            User saved = userRepository.save(user);
+            customerId[0] = linkCustomer(saved);
+            return saved;
+        });
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getEmail());
+        String token = jwtUtil.generateToken(savedUser.getId(), savedUser.getEmail(), customerId[0]);
 
         // Return auth response
         return new AuthResponse(
@@ -57,13 +77,21 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail().toLowerCase().trim())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // Verify password on the hashing bulkhead, never on the request thread
+        PasswordHasher.Verification verification = passwordHasher.verify(request.getPassword(), user.getPassword());
+        if (!verification.matches()) {
             throw new RuntimeException("Invalid email or password");
         }
+        // Stored at an old cost: swap in the new hash while we have the plain password
+        if (verification.upgradedHash() != null) {
+            user.setPassword(verification.upgradedHash());
+            userRepository.save(user);
+        }
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getId(), user.getEmail());
+        // Generate JWT token; accounts created before the customer link get it on first login
+        Long customerId = customerRepository.findIdByUserId(user.getId())
+                .orElseGet(() -> backfillCustomer(user));
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), customerId);
 
         // Return auth response
         return new AuthResponse(
@@ -74,6 +102,41 @@ public class AuthService {
         );
     }
 
+    /**
+     * Attaches the user to the customer record with the same email, creating one
+     * if there is none. Returns the customer id for the token, or null when the
+     * account is left unlinked.
+     *
+     * Signing up does not prove the address belongs to the caller, so a guest
+     * customer that already has reservations is never handed over: those stays
+     * stay with the guest record and the account books without a linked customer.
+     */
+    private Long linkCustomer(User user) {
+        Customer customer = customerRepository.findByEmail(user.getEmail()).orElse(null);
+        if (customer == null) {
+            customer = new Customer();
+            customer.setFullName(user.getFullName());
+            customer.setEmail(user.getEmail());
+            customer.setPhoneNumber(user.getPhoneNumber());
+        } else if (customer.getUser() != null) {
+            return customer.getUser().getId().equals(user.getId()) ? customer.getCustomerId() : null;
+        } else if (reservationRepository.existsByCustomerCustomerId(customer.getCustomerId())) {
+            return null;
+        }
+        customer.setUser(user);
+        return customerRepository.save(customer).getCustomerId();
+    }
+
+    // Login is not transactional; two first logins of one account race on the unique user_id
+    private Long backfillCustomer(User user) {
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> linkCustomer(user));
+        } catch (DataIntegrityViolationException e) {
+            // The other login (or a guest booking of the same email) committed first
+            return customerRepository.findIdByUserId(user.getId()).orElse(null);
+        }
+    }
+
     public User getCurrentUser(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
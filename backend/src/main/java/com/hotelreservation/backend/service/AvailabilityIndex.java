@@ -0,0 +1,432 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.util.NightBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-room night occupancy, so "is room X free for [checkIn, checkOut)"
+ * never has to touch the database. Rebuilt from the reservations table on startup
+ * and kept current by the booking and cancellation paths.
+ */
+@Service
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final RoomRepository roomRepository;
+    private final ReservationRepository reservationRepository;
+
+    private final Map<Long, RoomSlot> rooms = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> roomsByHotel = new ConcurrentHashMap<>();
+    private final Set<Long> loadedHotels = ConcurrentHashMap.newKeySet();
+    // Built on first search and dropped whenever one of the hotel's rooms changes
+    private final Map<Long, HotelRooms> searchIndex = new ConcurrentHashMap<>();
+
+    public AvailabilityIndex(RoomRepository roomRepository, ReservationRepository reservationRepository) {
+        this.roomRepository = roomRepository;
+        this.reservationRepository = reservationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuild(reservationRepository.findActiveStays(Reservation.ReservationStatus.CANCELLED).stream()
+                .map(row -> new Stay((Long) row[0], (LocalDate) row[1], (LocalDate) row[2]))
+                .toList());
+    }
+
+    /**
+     * Reloads the rooms and blocks the given stays, e.g. ones replayed from the
+     * booking journal instead of read from the reservations table.
+     */
+    public void rebuild(Iterable<Stay> activeStays) {
+        long start = System.nanoTime();
+        // Checkout holds exist only here, so they survive the rebuild
+        Map<Long, NightBitmap> held = new HashMap<>();
+        rooms.forEach((roomId, slot) -> held.put(roomId, slot.held));
+        rooms.clear();
+        roomsByHotel.clear();
+        loadedHotels.clear();
+        searchIndex.clear();
+
+        for (Room room : roomRepository.findAllWithHotel()) {
+            register(room, held.get(room.getRoomId()));
+            if (room.getHotel() != null) {
+                loadedHotels.add(room.getHotel().getId());
+            }
+        }
+
+        int stays = 0;
+        for (Stay stay : activeStays) {
+            RoomSlot slot = rooms.get(stay.roomId());
+            if (slot != null) {
+                slot.block(stay.checkIn(), stay.checkOut());
+                stays++;
+            }
+        }
+
+        logger.info("Availability index rebuilt: {} rooms, {} stays in {} ms",
+                rooms.size(), stays, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public RoomSlot register(Room room) {
+        return register(room, null);
+    }
+
+    private RoomSlot register(Room room, NightBitmap carriedHolds) {
+        RoomSlot slot = rooms.compute(room.getRoomId(), (id, existing) -> {
+            RoomSlot updated = existing != null
+                    ? new RoomSlot(room, existing.nights, existing.held)
+                    : new RoomSlot(room, new NightBitmap(), carriedHolds != null ? carriedHolds : new NightBitmap());
+            if (existing != null && existing.hotelId != null && !existing.hotelId.equals(updated.hotelId)) {
+                Set<Long> previous = roomsByHotel.get(existing.hotelId);
+                if (previous != null) {
+                    previous.remove(id);
+                }
+                searchIndex.remove(existing.hotelId);
+            }
+            return updated;
+        });
+        if (slot.hotelId != null) {
+            roomsByHotel.computeIfAbsent(slot.hotelId, h -> ConcurrentHashMap.newKeySet()).add(slot.roomId);
+            searchIndex.remove(slot.hotelId);
+        }
+        return slot;
+    }
+
+    public void registerIfAbsent(Room room) {
+        if (!rooms.containsKey(room.getRoomId())) {
+            register(room);
+        }
+    }
+
+    public void remove(Long roomId) {
+        RoomSlot slot = rooms.remove(roomId);
+        if (slot != null && slot.hotelId != null) {
+            Set<Long> hotelRooms = roomsByHotel.get(slot.hotelId);
+            if (hotelRooms != null) {
+                hotelRooms.remove(roomId);
+            }
+            searchIndex.remove(slot.hotelId);
+        }
+    }
+
+    public Optional<RoomSlot> find(Long roomId) {
+        return Optional.ofNullable(rooms.get(roomId));
+    }
+
+    public boolean isFree(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(roomId);
+        return slot == null || slot.isFree(checkIn, checkOut);
+    }
+
+    /**
+     * Atomically claims the nights for a room. Returns false if any night in
+     * [checkIn, checkOut) is already taken.
+     */
+    public boolean tryBlock(Room room, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(room.getRoomId());
+        if (slot == null) {
+            slot = register(room);
+        }
+        return slot.tryBlock(checkIn, checkOut);
+    }
+
+    public void release(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(roomId);
+        if (slot != null) {
+            slot.release(checkIn, checkOut);
+        }
+    }
+
+    /**
+     * Turns a checkout hold on the nights into a booking without the nights ever
+     * being free. Returns false if they are neither held nor free.
+     */
+    public boolean claimHeld(Room room, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(room.getRoomId());
+        if (slot == null) {
+            slot = register(room);
+        }
+        return slot.claimHeld(checkIn, checkOut);
+    }
+
+    /**
+     * Undoes {@link #claimHeld} when the booking did not commit.
+     */
+    public void restoreHeld(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(roomId);
+        if (slot != null) {
+            slot.restoreHeld(checkIn, checkOut);
+        }
+    }
+
+    public void releaseHold(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        RoomSlot slot = rooms.get(roomId);
+        if (slot != null) {
+            slot.releaseHold(checkIn, checkOut);
+        }
+    }
+
+    /**
+     * Rooms of a hotel that are in service and free for every night of the stay,
+     * cheapest first.
+     */
+    public List<RoomSlot> findFreeRooms(Long hotelId, LocalDate checkIn, LocalDate checkOut) {
+        ensureHotelLoaded(hotelId);
+        List<RoomSlot> free = new ArrayList<>();
+        for (Long roomId : roomsByHotel.getOrDefault(hotelId, Set.of())) {
+            RoomSlot slot = rooms.get(roomId);
+            if (slot != null && slot.inService && slot.isFree(checkIn, checkOut)) {
+                free.add(slot);
+            }
+        }
+        free.sort(Comparator.comparingDouble(RoomSlot::getPricePerNight).thenComparing(RoomSlot::getRoomId));
+        return free;
+    }
+
+    /**
+     * Rooms of a hotel that are in service, booked or not, cheapest first.
+     */
+    public List<RoomSlot> findRooms(Long hotelId) {
+        ensureHotelLoaded(hotelId);
+        List<RoomSlot> inService = new ArrayList<>();
+        for (Long roomId : roomsByHotel.getOrDefault(hotelId, Set.of())) {
+            RoomSlot slot = rooms.get(roomId);
+            if (slot != null && slot.inService) {
+                inService.add(slot);
+            }
+        }
+        inService.sort(Comparator.comparingDouble(RoomSlot::getPricePerNight).thenComparing(RoomSlot::getRoomId));
+        return inService;
+    }
+
+    /**
+     * For each night in [from, to), how many in-service rooms of the type are not
+     * booked. Held nights count as free: a hold is not a sale until it is confirmed.
+     */
+    public int[] countFreeRooms(Long hotelId, String roomType, LocalDate from, LocalDate to) {
+        ensureHotelLoaded(hotelId);
+        long start = from.toEpochDay();
+        int[] counts = new int[(int) (to.toEpochDay() - start)];
+        for (Long roomId : roomsByHotel.getOrDefault(hotelId, Set.of())) {
+            RoomSlot slot = rooms.get(roomId);
+            if (slot == null || !slot.inService || !roomType.equals(slot.roomType)) {
+                continue;
+            }
+            synchronized (slot.nights) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (!slot.nights.isSet(start + i)) {
+                        counts[i]++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The hotel's in-service rooms that sleep at least the given number of guests,
+     * by capacity and then price. Free-ness is not checked; the slots read their
+     * nights live.
+     */
+    public List<RoomSlot> findRoomsFor(Long hotelId, int guests) {
+        ensureHotelLoaded(hotelId);
+        // Built inside computeIfAbsent so it cannot race past a concurrent invalidation
+        HotelRooms index = searchIndex.computeIfAbsent(hotelId, this::buildSearchIndex);
+        return Arrays.asList(index.rooms).subList(index.firstFitting(guests), index.rooms.length);
+    }
+
+    private HotelRooms buildSearchIndex(Long hotelId) {
+        List<RoomSlot> inService = new ArrayList<>();
+        for (Long roomId : roomsByHotel.getOrDefault(hotelId, Set.of())) {
+            RoomSlot slot = rooms.get(roomId);
+            if (slot != null && slot.inService) {
+                inService.add(slot);
+            }
+        }
+        inService.sort(Comparator.comparingInt(RoomSlot::getCapacity)
+                .thenComparingDouble(RoomSlot::getPricePerNight)
+                .thenComparing(RoomSlot::getRoomId));
+        RoomSlot[] sorted = inService.toArray(new RoomSlot[0]);
+        int[] capacities = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            capacities[i] = sorted[i].capacity;
+        }
+        return new HotelRooms(sorted, capacities);
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+
+    // Hotels whose rooms were added after startup are loaded once on first use
+    private void ensureHotelLoaded(Long hotelId) {
+        if (loadedHotels.contains(hotelId)) {
+            return;
+        }
+        for (Room room : roomRepository.findByHotelId(hotelId)) {
+            if (!rooms.containsKey(room.getRoomId())) {
+                register(room);
+            }
+        }
+        loadedHotels.add(hotelId);
+    }
+
+    public record Stay(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+    }
+
+    // A hotel's in-service rooms ordered by capacity then price, with the capacities unboxed for the search
+    private record HotelRooms(RoomSlot[] rooms, int[] capacities) {
+
+        // Index of the first room that sleeps the party, or rooms.length if none does
+        int firstFitting(int guests) {
+            int low = 0;
+            int high = capacities.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (capacities[mid] < guests) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Immutable room attributes plus the mutable bitmaps of booked and held nights,
+     * both guarded by the booked bitmap's monitor. A night in either is not free.
+     */
+    public static final class RoomSlot {
+        private final Long roomId;
+        private final Long hotelId;
+        private final String roomNumber;
+        private final String roomType;
+        private final double pricePerNight;
+        private final int capacity;
+        private final boolean inService;
+        private final NightBitmap nights;
+        private final NightBitmap held;
+
+        private RoomSlot(Room room, NightBitmap nights, NightBitmap held) {
+            this.roomId = room.getRoomId();
+            this.hotelId = room.getHotel() != null ? room.getHotel().getId() : null;
+            this.roomNumber = room.getRoomNumber();
+            this.roomType = room.getRoomType();
+            this.pricePerNight = room.getPricePerNight();
+            this.capacity = room.getCapacity() != null ? room.getCapacity() : 0;
+            this.inService = room.isAvailable();
+            this.nights = nights;
+            this.held = held;
+        }
+
+        public boolean isFree(LocalDate checkIn, LocalDate checkOut) {
+            synchronized (nights) {
+                return nights.isFree(checkIn.toEpochDay(), checkOut.toEpochDay())
+                        && held.isFree(checkIn.toEpochDay(), checkOut.toEpochDay());
+            }
+        }
+
+        /**
+         * Fills into[i] with whether the night from + i is booked or held, read as one snapshot.
+         */
+        public void bookedNights(LocalDate from, boolean[] into) {
+            long start = from.toEpochDay();
+            synchronized (nights) {
+                for (int i = 0; i < into.length; i++) {
+                    into[i] = nights.isSet(start + i) || held.isSet(start + i);
+                }
+            }
+        }
+
+        boolean tryBlock(LocalDate checkIn, LocalDate checkOut) {
+            long from = checkIn.toEpochDay();
+            long to = checkOut.toEpochDay();
+            synchronized (nights) {
+                if (!nights.isFree(from, to) || !held.isFree(from, to)) {
+                    return false;
+                }
+                nights.set(from, to);
+                return true;
+            }
+        }
+
+        boolean tryHold(LocalDate checkIn, LocalDate checkOut) {
+            long from = checkIn.toEpochDay();
+            long to = checkOut.toEpochDay();
+            synchronized (nights) {
+                if (!nights.isFree(from, to) || !held.isFree(from, to)) {
+                    return false;
+                }
+                held.set(from, to);
+                return true;
+            }
+        }
+
+        boolean claimHeld(LocalDate checkIn, LocalDate checkOut) {
+            long from = checkIn.toEpochDay();
+            long to = checkOut.toEpochDay();
+            synchronized (nights) {
+                if (!nights.isFree(from, to) || !(held.isAllSet(from, to) || held.isFree(from, to))) {
+                    return false;
+                }
+                held.clear(from, to);
+                nights.set(from, to);
+                return true;
+            }
+        }
+
+        void restoreHeld(LocalDate checkIn, LocalDate checkOut) {
+            synchronized (nights) {
+                nights.clear(checkIn.toEpochDay(), checkOut.toEpochDay());
+                held.set(checkIn.toEpochDay(), checkOut.toEpochDay());
+            }
+        }
+
+        void releaseHold(LocalDate checkIn, LocalDate checkOut) {
+            synchronized (nights) {
+                held.clear(checkIn.toEpochDay(), checkOut.toEpochDay());
+            }
+        }
+
+        void block(LocalDate checkIn, LocalDate checkOut) {
+            synchronized (nights) {
+                nights.set(checkIn.toEpochDay(), checkOut.toEpochDay());
+            }
+        }
+
+        void release(LocalDate checkIn, LocalDate checkOut) {
+            synchronized (nights) {
+                nights.clear(checkIn.toEpochDay(), checkOut.toEpochDay());
+            }
+        }
+
+        public Long getRoomId() { return roomId; }
+        public Long getHotelId() { return hotelId; }
+        public String getRoomNumber() { return roomNumber; }
+        public String getRoomType() { return roomType; }
+        public double getPricePerNight() { return pricePerNight; }
+        public int getCapacity() { return capacity; }
+        public boolean isInService() { return inService; }
+    }
+}
@@ -0,0 +1,70 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Booking analytics fed from the event bus: booked and cancelled room nights
+ * and revenue, counted off the request path. Delivery is at-least-once, so the
+ * ids of the last REMEMBERED_EVENTS events are kept and redeliveries skipped.
+ * Meters are tagged by event type only; a per-hotel tag would add a meter for
+ * every hotel ever booked.
+ */
+@Component
+public class BookingAnalytics implements BookingEventSubscriber {
+
+    private static final int REMEMBERED_EVENTS = 10_000;
+
+    private final Map<BookingEvent.Type, Counter> nights = new EnumMap<>(BookingEvent.Type.class);
+    private final Map<BookingEvent.Type, Counter> revenue = new EnumMap<>(BookingEvent.Type.class);
+    // Only the analytics lane thread calls onEvent
+    private final Set<Long> handled = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > REMEMBERED_EVENTS;
+        }
+    });
+
+    public BookingAnalytics(MeterRegistry meterRegistry) {
+        for (BookingEvent.Type type : types()) {
+            String tag = type.name().toLowerCase();
+            nights.put(type, Counter.builder("booking.analytics.nights")
+                    .description("Room nights booked or cancelled")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+            revenue.put(type, Counter.builder("booking.analytics.revenue")
+                    .description("Value of stays booked or cancelled")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "analytics";
+    }
+
+    @Override
+    public Set<BookingEvent.Type> types() {
+        return EnumSet.of(BookingEvent.Type.CONFIRMED, BookingEvent.Type.CANCELLED);
+    }
+
+    @Override
+    public void onEvent(BookingEvent event) {
+        if (!handled.add(event.id())) {
+            return;
+        }
+        nights.get(event.type()).increment(ChronoUnit.DAYS.between(event.checkIn(), event.checkOut()));
+        revenue.get(event.type()).increment(event.totalPrice());
+    }
+}
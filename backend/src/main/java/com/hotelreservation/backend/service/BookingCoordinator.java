@@ -0,0 +1,86 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.exception.BookingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking work per room. Each room in flight gets its own
+ * reference-counted lock from a concurrent lock table, so two different rooms
+ * never wait on each other and idle rooms hold no memory.
+ *
+ * Work that runs inside a caller's transaction only takes effect when that
+ * transaction commits, so the room stays locked until it completes.
+ */
+@Component
+public class BookingCoordinator {
+
+    private final Map<Long, RoomLock> locks = new ConcurrentHashMap<>();
+
+    @Value("${app.booking.lock-timeout-ms:2000}")
+    private long lockTimeoutMs = 2000;
+
+    public <T> T withRoomLock(Long roomId, Supplier<T> work) {
+        RoomLock lock = locks.compute(roomId, (id, existing) -> {
+            RoomLock entry = existing != null ? existing : new RoomLock();
+            entry.users++;
+            return entry;
+        });
+        boolean handedOff = false;
+        try {
+            if (!lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new BookingException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Room is busy, please retry the booking");
+            }
+            try {
+                T result = work.get();
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            release(roomId, lock, true);
+                        }
+                    });
+                    handedOff = true;
+                }
+                return result;
+            } finally {
+                if (!handedOff) {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingException(HttpStatus.SERVICE_UNAVAILABLE, "Booking was interrupted");
+        } finally {
+            if (!handedOff) {
+                release(roomId, lock, false);
+            }
+        }
+    }
+
+    private void release(Long roomId, RoomLock lock, boolean locked) {
+        if (locked) {
+            lock.unlock();
+        }
+        locks.computeIfPresent(roomId, (id, entry) -> --entry.users == 0 ? null : entry);
+    }
+
+    int activeLocks() {
+        return locks.size();
+    }
+
+    // users is only touched inside ConcurrentHashMap.compute for this key
+    private static final class RoomLock extends ReentrantLock {
+        private int users;
+    }
+}
@@ -0,0 +1,183 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import com.hotelreservation.backend.exception.EventDeliveryException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process bus that hands booking events to their subscribers. Each
+ * subscriber has a bounded queue drained by its own thread; publishing blocks
+ * while a subscriber's queue is full, which holds back the outbox relay rather
+ * than letting events pile up in memory.
+ *
+ * A failing subscriber is retried up to app.events.max-attempts times with a
+ * growing pause. If it still fails, the event's delivery completes with an
+ * {@link EventDeliveryException} so the publisher can keep the event.
+ */
+@Service
+public class BookingEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingEventBus.class);
+
+    private final MeterRegistry meterRegistry;
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    public BookingEventBus(List<BookingEventSubscriber> subscribers,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.events.queue-capacity:1024}") int queueCapacity,
+                           @Value("${app.events.max-attempts:3}") int maxAttempts,
+                           @Value("${app.events.retry-backoff-ms:100}") long retryBackoffMillis) {
+        this.meterRegistry = meterRegistry;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        subscribers.forEach(this::subscribe);
+    }
+
+    /**
+     * Starts delivering events to the subscriber. The returned handle
+     * unsubscribes it once the events already queued for it are handled.
+     */
+    public Runnable subscribe(BookingEventSubscriber subscriber) {
+        Lane lane = new Lane(subscriber, new ArrayBlockingQueue<>(queueCapacity));
+        Gauge.builder("booking.events.queue", lane.queue, BlockingQueue::size)
+                .description("Booking events waiting for a subscriber")
+                .tag("subscriber", subscriber.name())
+                .register(meterRegistry);
+        Thread thread = new Thread(() -> drain(lane), "booking-events-" + subscriber.name());
+        thread.setDaemon(true);
+        lane.thread = thread;
+        lanes.add(lane);
+        thread.start();
+        return () -> {
+            lanes.remove(lane);
+            lane.open = false;
+        };
+    }
+
+    /**
+     * Queues the event for every subscriber that wants its type, waiting for room
+     * if a queue is full. The future completes once all of them have handled it,
+     * exceptionally with an {@link EventDeliveryException} if one gave up on it.
+     */
+    public CompletableFuture<Void> publish(BookingEvent event) throws InterruptedException {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (Lane lane : lanes) {
+            if (lane.open && lane.subscriber.types().contains(event.type())) {
+                Delivery delivery = new Delivery(event, new CompletableFuture<>());
+                lane.queue.put(delivery);
+                deliveries.add(delivery.done());
+            }
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new));
+    }
+
+    private void drain(Lane lane) {
+        String name = lane.subscriber.name();
+        Counter delivered = Counter.builder("booking.events.delivered")
+                .description("Booking events handled by a subscriber")
+                .tag("subscriber", name)
+                .register(meterRegistry);
+        Counter failed = Counter.builder("booking.events.failed")
+                .description("Booking events a subscriber gave up on after retrying")
+                .tag("subscriber", name)
+                .register(meterRegistry);
+        Timer lag = Timer.builder("booking.events.lag")
+                .description("Time from the booking commit to a subscriber handling its event")
+                .tag("subscriber", name)
+                .register(meterRegistry);
+
+        while (lane.open || !lane.queue.isEmpty()) {
+            Delivery delivery;
+            try {
+                delivery = lane.queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (delivery == null) {
+                continue;
+            }
+            if (deliver(lane.subscriber, delivery.event())) {
+                delivered.increment();
+                lag.record(Duration.between(delivery.event().occurredAt(), LocalDateTime.now()));
+                delivery.done().complete(null);
+            } else {
+                failed.increment();
+                delivery.done().completeExceptionally(new EventDeliveryException(
+                        "Subscriber " + name + " gave up on booking event " + delivery.event().id()));
+            }
+        }
+        // Anything left after an interrupt is picked up again from the outbox on the next start
+        lane.queue.forEach(delivery -> delivery.done().cancel(false));
+    }
+
+    private boolean deliver(BookingEventSubscriber subscriber, BookingEvent event) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                subscriber.onEvent(event);
+                return true;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    logger.error("Subscriber {} failed booking event {} after {} attempts",
+                            subscriber.name(), event.id(), attempt, e);
+                    return false;
+                }
+                logger.warn("Subscriber {} failed booking event {} on attempt {}/{}, retrying: {}",
+                        subscriber.name(), event.id(), attempt, maxAttempts, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMillis * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (Lane lane : lanes) {
+            lane.open = false;
+        }
+        for (Lane lane : lanes) {
+            lane.thread.join(5000);
+        }
+    }
+
+    private record Delivery(BookingEvent event, CompletableFuture<Void> done) {
+    }
+
+    private static final class Lane {
+        private final BookingEventSubscriber subscriber;
+        private final BlockingQueue<Delivery> queue;
+        private volatile boolean open = true;
+        private Thread thread;
+
+        Lane(BookingEventSubscriber subscriber, BlockingQueue<Delivery> queue) {
+            this.subscriber = subscriber;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Receiver of booking events from the {@link BookingEventBus}. Beans
+ * implementing this are subscribed at startup; each gets its own queue and
+ * thread, so a slow subscriber never holds up the others.
+ */
+public interface BookingEventSubscriber {
+
+    /**
+     * Short name used for the subscriber's thread and metrics.
+     */
+    String name();
+
+    /**
+     * Event types this subscriber wants; the others are never queued for it.
+     */
+    default Set<BookingEvent.Type> types() {
+        return EnumSet.allOf(BookingEvent.Type.class);
+    }
+
+    /**
+     * Handles one event. Throwing makes the bus retry it a bounded number of times.
+     */
+    void onEvent(BookingEvent event) throws Exception;
+}
@@ -0,0 +1,308 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import com.hotelreservation.backend.util.HashedTimerWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout holds: a room's nights are held in the {@link AvailabilityIndex} for
+ * app.holds.ttl-seconds while the guest pays, without writing a reservation.
+ * Held nights are not free to anyone else but are not sold either, so the
+ * inventory ledger and occupancy pricing ignore them. Holds live only in memory
+ * and are forgotten on restart.
+ *
+ * Every hold is one timeout in a {@link HashedTimerWheel} advanced by a single
+ * "booking-hold-expiry" thread, so live holds cost a map entry and a wheel node
+ * each, and expiry never polls the database. Confirming cancels the timeout
+ * first; whichever of confirm and expiry wins that race owns the nights, and a
+ * confirmed hold hands them to the reservation without ever freeing them.
+ */
+@Service
+public class BookingHolds {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingHolds.class);
+
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingCoordinator bookingCoordinator;
+    private final BookingService bookingService;
+    private final PricingEngine pricingEngine;
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> holdsByOwner = new ConcurrentHashMap<>();
+    private final HashedTimerWheel<Hold> wheel;
+    private final int maxActive;
+    private final int maxPerOwner;
+    private final Counter created;
+    private final Counter expired;
+    private final Counter confirmed;
+    private volatile boolean running = true;
+    private Thread expiry;
+
+    @Value("${app.holds.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    public BookingHolds(AvailabilityIndex availabilityIndex,
+                        BookingCoordinator bookingCoordinator,
+                        BookingService bookingService,
+                        PricingEngine pricingEngine,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.holds.tick-ms:100}") long tickMillis,
+                        @Value("${app.holds.wheel-size:1024}") int wheelSize,
+                        @Value("${app.holds.max-active:500000}") int maxActive,
+                        @Value("${app.holds.max-per-owner:5}") int maxPerOwner) {
+        this.availabilityIndex = availabilityIndex;
+        this.bookingCoordinator = bookingCoordinator;
+        this.bookingService = bookingService;
+        this.pricingEngine = pricingEngine;
+        this.wheel = new HashedTimerWheel<>(tickMillis, wheelSize, this::expire);
+        this.maxActive = maxActive;
+        this.maxPerOwner = maxPerOwner;
+        this.created = Counter.builder("booking.holds.created")
+                .description("Checkout holds placed")
+                .register(meterRegistry);
+        this.expired = Counter.builder("booking.holds.expired")
+                .description("Checkout holds released by their TTL")
+                .register(meterRegistry);
+        this.confirmed = Counter.builder("booking.holds.confirmed")
+                .description("Checkout holds turned into bookings")
+                .register(meterRegistry);
+        Gauge.builder("booking.holds.active", holds, Map::size)
+                .description("Checkout holds currently blocking nights")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        expiry = new Thread(this::run, "booking-hold-expiry");
+        expiry.setDaemon(true);
+        expiry.start();
+    }
+
+    /**
+     * Blocks the requested room, or the first free room of the requested type,
+     * for the stay. Throws {@link BookingException} if nothing can be held and
+     * {@link ServiceBusyException} when too many holds are live.
+     */
+    public Hold hold(HotelBookingRequest request, String owner) {
+        LocalDate checkIn = request.getCheckIn();
+        LocalDate checkOut = request.getCheckOut();
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new BookingException(HttpStatus.BAD_REQUEST, "Check-out date must be after check-in date");
+        }
+        if (holds.size() >= maxActive) {
+            throw new ServiceBusyException("Too many rooms are on hold right now, please retry shortly");
+        }
+
+        List<AvailabilityIndex.RoomSlot> candidates;
+        if (request.getRoomId() != null) {
+            AvailabilityIndex.RoomSlot slot = availabilityIndex.findRooms(request.getHotelId()).stream()
+                    .filter(candidate -> candidate.getRoomId().equals(request.getRoomId()))
+                    .findFirst()
+                    .orElseThrow(() -> new BookingException(HttpStatus.NOT_FOUND,
+                            "Room not found with ID: " + request.getRoomId()));
+            candidates = List.of(slot);
+        } else {
+            candidates = availabilityIndex.findFreeRooms(request.getHotelId(), checkIn, checkOut).stream()
+                    .filter(slot -> slot.getRoomType().equalsIgnoreCase(request.getRoomType()))
+                    .toList();
+        }
+
+        // Checked and counted under the owner's map entry, which releaseOwnerSlot also updates in place
+        holdsByOwner.compute(owner, (key, count) -> {
+            int held = count == null ? 0 : count;
+            if (held >= maxPerOwner) {
+                throw new BookingException(HttpStatus.TOO_MANY_REQUESTS,
+                        "At most " + maxPerOwner + " rooms can be on hold at once");
+            }
+            return held + 1;
+        });
+        try {
+            for (AvailabilityIndex.RoomSlot slot : candidates) {
+                // Priced before the nights are taken, so a failing quote leaves nothing to give back
+                double quote = pricingEngine.quote(request.getHotelId(), slot.getRoomType(),
+                        slot.getPricePerNight(), checkIn, checkOut);
+                // Same lock as the booking path, so a hold never lands between its checks
+                if (bookingCoordinator.withRoomLock(slot.getRoomId(), () -> slot.tryHold(checkIn, checkOut))) {
+                    Hold hold = new Hold(UUID.randomUUID().toString(), owner, request, slot,
+                            LocalDateTime.now().plusSeconds(ttlSeconds), quote);
+                    // Visible before it can expire; find() skips it until the timeout is armed
+                    holds.put(hold.id, hold);
+                    try {
+                        hold.timeout = wheel.schedule(hold, TimeUnit.SECONDS.toMillis(ttlSeconds));
+                    } catch (RuntimeException e) {
+                        holds.remove(hold.id, hold);
+                        availabilityIndex.releaseHold(hold.roomId, checkIn, checkOut);
+                        throw e;
+                    }
+                    created.increment();
+                    return hold;
+                }
+            }
+        } catch (RuntimeException e) {
+            releaseOwnerSlot(owner);
+            throw e;
+        }
+        releaseOwnerSlot(owner);
+        throw new BookingException(HttpStatus.CONFLICT, request.getRoomId() != null
+                ? "Room is not available for the selected dates"
+                : "No " + request.getRoomType() + " rooms left for the selected dates");
+    }
+
+    public Optional<Hold> find(String holdId, String owner) {
+        return Optional.ofNullable(holds.get(holdId))
+                .filter(hold -> hold.owner.equals(owner) && hold.timeout != null);
+    }
+
+    /**
+     * Books the held room for the customer. The hold is gone afterwards; if the
+     * booking fails the hold keeps its nights for the rest of its TTL.
+     */
+    public Reservation confirm(String holdId, String owner, Long customerId) {
+        Hold hold = find(holdId, owner)
+                .orElseThrow(() -> new BookingException(HttpStatus.NOT_FOUND, "Hold not found"));
+        HashedTimerWheel.Timeout<Hold> timeout = hold.timeout;
+        if (!timeout.cancel()) {
+            throw timeout.isExpired()
+                    ? new BookingException(HttpStatus.GONE, "Hold has expired")
+                    : new BookingException(HttpStatus.CONFLICT, "Hold is already being confirmed");
+        }
+        try {
+            Reservation reservation = bookingService.confirmHeld(hold.request, hold.roomId, customerId);
+            remove(hold);
+            confirmed.increment();
+            return reservation;
+        } catch (RuntimeException e) {
+            long remaining = Duration.between(LocalDateTime.now(), hold.expiresAt).toMillis();
+            hold.timeout = wheel.schedule(hold, remaining);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the held nights back. Returns false if there is no such hold or it
+     * is being confirmed or expired right now.
+     */
+    public boolean release(String holdId, String owner) {
+        Optional<Hold> hold = find(holdId, owner);
+        if (hold.isEmpty() || !hold.get().timeout.cancel()) {
+            return false;
+        }
+        freeNights(hold.get());
+        return true;
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    // Runs on the expiry thread
+    private void expire(Hold hold) {
+        try {
+            freeNights(hold);
+            expired.increment();
+            logger.debug("Hold {} on room {} expired", hold.id, hold.roomId);
+        } catch (RuntimeException e) {
+            logger.error("Failed to release expired hold {}", hold.id, e);
+        }
+    }
+
+    private void freeNights(Hold hold) {
+        remove(hold);
+        availabilityIndex.releaseHold(hold.roomId, hold.checkIn, hold.checkOut);
+    }
+
+    private void remove(Hold hold) {
+        if (holds.remove(hold.id, hold)) {
+            releaseOwnerSlot(hold.owner);
+        }
+    }
+
+    private void releaseOwnerSlot(String owner) {
+        holdsByOwner.computeIfPresent(owner, (key, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                wheel.advance();
+            } catch (RuntimeException e) {
+                logger.error("Hold expiry pass failed", e);
+            }
+            try {
+                Thread.sleep(Math.max(1, wheel.millisToNextTick()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        expiry.interrupt();
+        expiry.join(5000);
+    }
+
+    /**
+     * One live hold. Everything but the timeout is fixed when the hold is placed.
+     */
+    public static final class Hold {
+        private final String id;
+        private final String owner;
+        private final HotelBookingRequest request;
+        private final Long roomId;
+        private final String roomNumber;
+        private final String roomType;
+        private final LocalDate checkIn;
+        private final LocalDate checkOut;
+        private final LocalDateTime expiresAt;
+        private final double quotedPrice;
+        private volatile HashedTimerWheel.Timeout<Hold> timeout;
+
+        private Hold(String id, String owner, HotelBookingRequest request, AvailabilityIndex.RoomSlot slot,
+                     LocalDateTime expiresAt, double quotedPrice) {
+            this.id = id;
+            this.owner = owner;
+            this.request = request;
+            this.roomId = slot.getRoomId();
+            this.roomNumber = slot.getRoomNumber();
+            this.roomType = slot.getRoomType();
+            this.checkIn = request.getCheckIn();
+            this.checkOut = request.getCheckOut();
+            this.expiresAt = expiresAt;
+            this.quotedPrice = quotedPrice;
+        }
+
+        public String getId() { return id; }
+        public HotelBookingRequest getRequest() { return request; }
+        public Long getRoomId() { return roomId; }
+        public String getRoomNumber() { return roomNumber; }
+        public String getRoomType() { return roomType; }
+        public LocalDate getCheckIn() { return checkIn; }
+        public LocalDate getCheckOut() { return checkOut; }
+        public LocalDateTime getExpiresAt() { return expiresAt; }
+        public double getQuotedPrice() { return quotedPrice; }
+    }
+}
@@ -0,0 +1,443 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit journal of committed reservation state changes, in
+ * memory-mapped segment files of fixed-size binary records. Replaying it gives
+ * the current state of every reservation, and the stays that occupy rooms,
+ * without reading the reservations table.
+ *
+ * Record layout, 64 bytes, big-endian:
+ * <pre>
+ *  0 int   CRC32C of bytes 4..63
+ *  4 byte  type (1 confirmed, 2 cancelled, 3 deleted), then 3 bytes padding
+ *  8 long  sequence
+ * 16 long  epoch millis
+ * 24 long  reservation id
+ * 32 long  room id
+ * 40 long  customer id
+ * 48 int   check-in epoch day
+ * 52 int   check-out epoch day
+ * 56 long  total price in cents
+ * </pre>
+ * Segments are named after their first sequence and rolled when full. An
+ * all-zero slot marks the end of a segment; a record whose CRC does not match
+ * was torn by a crash and ends replay of its segment.
+ *
+ * Appending reuses one scratch record and writes it into the mapping with an
+ * absolute bulk put, so the hot path allocates nothing. app.journal.fsync picks
+ * durability: "group" forces before append returns, with concurrent appenders
+ * sharing one force; "interval" forces every app.journal.fsync-interval-ms;
+ * "none" leaves it to the operating system.
+ *
+ * Records are appended just before their transaction commits and a failed
+ * append rolls the transaction back, so every committed change is journaled.
+ * A commit that fails after its append is followed by a record putting the
+ * reservation's previous state back. Only a crash between the two leaves the
+ * journal ahead of the table, with a stay that blocks nights nobody booked,
+ * so replay is safe to rebuild the availability index from.
+ */
+@Service
+public class BookingJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingJournal.class);
+
+    static final int RECORD_BYTES = 64;
+    private static final String SEGMENT_PREFIX = "bookings-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    public enum Type {
+        CONFIRMED(1), CANCELLED(2), DELETED(3);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        static Type of(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path dir;
+    private final long segmentBytes;
+    private final String fsync;
+    private final long fsyncIntervalMillis;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private final byte[] scratch = new byte[RECORD_BYTES];
+    private final ByteBuffer record = ByteBuffer.wrap(scratch);
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel lockChannel;
+    private FileLock dirLock;
+    private volatile MappedByteBuffer segment;
+    private int position;
+    private long nextSequence = 1;
+    private volatile long written;
+    private long durable;
+    private ScheduledExecutorService syncer;
+
+    public BookingJournal(ReservationRepository reservationRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.journal.dir:./data/journal}") String dir,
+                          @Value("${app.journal.segment-bytes:67108864}") long segmentBytes,
+                          @Value("${app.journal.fsync:interval}") String fsync,
+                          @Value("${app.journal.fsync-interval-ms:100}") long fsyncIntervalMillis) {
+        this.reservationRepository = reservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.dir = Paths.get(dir);
+        this.segmentBytes = Math.max(RECORD_BYTES, segmentBytes / RECORD_BYTES * RECORD_BYTES);
+        this.fsync = fsync;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(dir);
+        lockChannel = FileChannel.open(dir.resolve("journal.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        dirLock = lockChannel.tryLock();
+        if (dirLock == null) {
+            throw new IllegalStateException("Booking journal " + dir + " is in use by another process");
+        }
+
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+            writeBaseline();
+        } else {
+            resumeTail(segments.get(segments.size() - 1));
+        }
+
+        if ("interval".equals(fsync)) {
+            syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "booking-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(() -> sync(written), fsyncIntervalMillis, fsyncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Journals the reservation's current state as the surrounding transaction
+     * commits. Throws, failing the transaction, if the record cannot be appended.
+     */
+    public void record(Type type, Reservation reservation) {
+        long reservationId = reservation.getReservationId();
+        long roomId = reservation.getRoom().getRoomId();
+        long customerId = reservation.getCustomer() != null ? reservation.getCustomer().getCustomerId() : 0;
+        long checkIn = reservation.getCheckInDate().toEpochDay();
+        long checkOut = reservation.getCheckOutDate().toEpochDay();
+        long priceCents = Math.round(reservation.getTotalPrice() * 100);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(type, reservationId, roomId, customerId, checkIn, checkOut, priceCents);
+            return;
+        }
+        // What replay has to see again if the change is journaled but never commits
+        Type previous = switch (type) {
+            case CONFIRMED -> Type.DELETED;
+            case CANCELLED -> Type.CONFIRMED;
+            case DELETED -> reservation.getStatus() == Reservation.ReservationStatus.CANCELLED
+                    ? Type.CANCELLED : Type.CONFIRMED;
+        };
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean appended;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                append(type, reservationId, roomId, customerId, checkIn, checkOut, priceCents);
+                appended = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (appended && status == STATUS_ROLLED_BACK) {
+                    appendQuietly(previous, reservationId, roomId, customerId, checkIn, checkOut, priceCents);
+                }
+            }
+        });
+    }
+
+    /**
+     * Appends one record and returns its sequence.
+     */
+    public long append(Type type, long reservationId, long roomId, long customerId,
+                       long checkInDay, long checkOutDay, long priceCents) {
+        long sequence;
+        appendLock.lock();
+        try {
+            if (position + RECORD_BYTES > segmentBytes) {
+                roll();
+            }
+            sequence = nextSequence++;
+            record.put(4, type.code)
+                    .putLong(8, sequence)
+                    .putLong(16, System.currentTimeMillis())
+                    .putLong(24, reservationId)
+                    .putLong(32, roomId)
+                    .putLong(40, customerId)
+                    .putInt(48, (int) checkInDay)
+                    .putInt(52, (int) checkOutDay)
+                    .putLong(56, priceCents);
+            crc.reset();
+            crc.update(scratch, 4, RECORD_BYTES - 4);
+            record.putInt(0, (int) crc.getValue());
+            segment.put(position, scratch);
+            position += RECORD_BYTES;
+            written = sequence;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if ("group".equals(fsync)) {
+            sync(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Reads every segment in order and hands each intact record to the consumer.
+     */
+    public ReplayStats replay(Consumer<Entry> consumer) throws IOException {
+        long start = System.nanoTime();
+        long[] records = {0};
+        int torn = 0;
+        for (Path file : segments()) {
+            if (replayFile(file, entry -> {
+                records[0]++;
+                consumer.accept(entry);
+            })) {
+                torn++;
+            }
+        }
+        return new ReplayStats(records[0], torn, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Fills the map with the latest state of every reservation that has not been
+     * deleted, by id.
+     */
+    public ReplayStats replayState(Map<Long, Entry> reservations) throws IOException {
+        return replay(entry -> {
+            if (entry.type() == Type.DELETED) {
+                reservations.remove(entry.reservationId());
+            } else {
+                reservations.put(entry.reservationId(), entry);
+            }
+        });
+    }
+
+    public long lastSequence() {
+        return written;
+    }
+
+    // Callers that arrive while a force is running share the next one
+    private void sync(long sequence) {
+        synchronized (syncMonitor) {
+            if (durable >= sequence) {
+                return;
+            }
+            long target = written;
+            segment.force();
+            durable = target;
+        }
+    }
+
+    // A record that fails here leaves the journal ahead of the table for this reservation
+    private void appendQuietly(Type type, long reservationId, long roomId, long customerId,
+                               long checkInDay, long checkOutDay, long priceCents) {
+        try {
+            append(type, reservationId, roomId, customerId, checkInDay, checkOutDay, priceCents);
+        } catch (RuntimeException e) {
+            logger.error("Could not journal {} of reservation {}", type, reservationId, e);
+        }
+    }
+
+    // The journal starts from the reservations that exist when it is first created
+    private void writeBaseline() {
+        int[] count = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var reservations = reservationRepository.streamAll()) {
+                reservations.forEach(reservation -> {
+                    Type type = reservation.getStatus() == Reservation.ReservationStatus.CANCELLED
+                            ? Type.CANCELLED : Type.CONFIRMED;
+                    append(type, reservation.getReservationId(), reservation.getRoom().getRoomId(),
+                            reservation.getCustomer().getCustomerId(),
+                            reservation.getCheckInDate().toEpochDay(), reservation.getCheckOutDate().toEpochDay(),
+                            Math.round(reservation.getTotalPrice() * 100));
+                    count[0]++;
+                });
+            }
+        });
+        if (count[0] > 0) {
+            segment.force();
+            logger.info("Booking journal started with {} existing reservations", count[0]);
+        }
+    }
+
+    // Continue after the last intact record of the newest segment
+    private void resumeTail(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long firstSequence = Long.parseLong(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        long[] last = {firstSequence - 1};
+        int[] records = {0};
+        replayFile(file, entry -> {
+            last[0] = entry.sequence();
+            records[0]++;
+        });
+        nextSequence = last[0] + 1;
+        written = last[0];
+        durable = last[0];
+        map(file);
+        position = records[0] * RECORD_BYTES;
+
+        // Whatever follows was torn by a crash; clear it so the next append starts on a clean slot
+        byte[] empty = new byte[RECORD_BYTES];
+        for (int offset = position; offset + RECORD_BYTES <= segmentBytes && !isEmptySlot(segment, offset);
+             offset += RECORD_BYTES) {
+            segment.put(offset, empty);
+        }
+    }
+
+    // Returns true if the segment ends in a damaged record
+    private boolean replayFile(Path file, Consumer<Entry> consumer) throws IOException {
+        byte[] buffer = new byte[RECORD_BYTES];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        CRC32C check = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + RECORD_BYTES <= mapped.capacity(); offset += RECORD_BYTES) {
+                if (isEmptySlot(mapped, offset)) {
+                    return false;
+                }
+                mapped.get(offset, buffer);
+                check.reset();
+                check.update(buffer, 4, RECORD_BYTES - 4);
+                Type type = Type.of(view.get(4));
+                if (type == null || (int) check.getValue() != view.getInt(0)) {
+                    logger.warn("Booking journal {} has a damaged record at offset {}; ignoring the rest of it",
+                            file.getFileName(), offset);
+                    return true;
+                }
+                consumer.accept(new Entry(type, view.getLong(8), view.getLong(16), view.getLong(24),
+                        view.getLong(32), view.getLong(40),
+                        LocalDate.ofEpochDay(view.getInt(48)), LocalDate.ofEpochDay(view.getInt(52)),
+                        view.getLong(56) / 100.0));
+            }
+        }
+        return false;
+    }
+
+    // Sequences start at 1, so a written record never has zeros in its first 16 bytes
+    private static boolean isEmptySlot(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset) == 0 && buffer.getLong(offset + 8) == 0;
+    }
+
+    private void roll() {
+        segment.force();
+        synchronized (syncMonitor) {
+            durable = written;
+        }
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) {
+        map(dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)));
+        position = 0;
+    }
+
+    private void map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map booking journal segment " + file, e);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        // Zero-padded sequences sort by name
+        segments.sort(null);
+        return segments;
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+        dirLock.release();
+        lockChannel.close();
+    }
+
+    /**
+     * One journal record as read back by replay.
+     */
+    public record Entry(Type type, long sequence, long timestamp, long reservationId, long roomId,
+                        long customerId, LocalDate checkIn, LocalDate checkOut, double totalPrice) {
+    }
+
+    public record ReplayStats(long records, int tornRecords, long millis) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.exception.EventDeliveryException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transactional outbox for booking events. Booking, cancelling and deleting
+ * insert an outbox row in the reservation's own transaction, so an event exists
+ * exactly when its change committed; the request thread does nothing else.
+ *
+ * A relay thread drains the table oldest first in batches of
+ * app.outbox.batch-size, publishes each batch to the {@link BookingEventBus},
+ * waits for the subscribers and only then deletes the rows. A crash or timeout
+ * before the delete delivers the batch again, so delivery is at-least-once. An
+ * event a subscriber gave up on is not deleted but stamped with failed_at,
+ * which takes it out of the relay and leaves it for an operator to inspect.
+ * The relay wakes on every commit that wrote an event and otherwise polls every
+ * app.outbox.poll-interval-ms.
+ */
+@Service
+public class BookingOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingOutbox.class);
+
+    private static final String INSERT = "INSERT INTO booking_outbox (event_type, reservation_id, room_id, "
+            + "hotel_id, customer_id, check_in, check_out, total_price, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BATCH = "SELECT id, event_type, reservation_id, room_id, hotel_id, "
+            + "customer_id, check_in, check_out, total_price, created_at FROM booking_outbox WHERE failed_at IS NULL "
+            + "ORDER BY id LIMIT ?";
+    private static final String DELETE = "DELETE FROM booking_outbox WHERE id = ?";
+    private static final String MARK_FAILED = "UPDATE booking_outbox SET failed_at = ? WHERE id = ?";
+
+    private static final RowMapper<BookingEvent> EVENT = (rs, row) -> new BookingEvent(
+            rs.getLong("id"),
+            BookingEvent.Type.valueOf(rs.getString("event_type")),
+            rs.getLong("reservation_id"),
+            rs.getLong("room_id"),
+            rs.getObject("hotel_id", Long.class),
+            rs.getObject("customer_id", Long.class),
+            rs.getDate("check_in").toLocalDate(),
+            rs.getDate("check_out").toLocalDate(),
+            rs.getDouble("total_price"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingEventBus eventBus;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long deliveryTimeoutMillis;
+    private final Object wakeUp = new Object();
+    private final Counter relayed;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private final Timer relayTime;
+    private volatile boolean running = true;
+    private boolean pending;
+    private Thread relay;
+
+    public BookingOutbox(JdbcTemplate jdbcTemplate,
+                         BookingEventBus eventBus,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.outbox.batch-size:200}") int batchSize,
+                         @Value("${app.outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+                         @Value("${app.outbox.delivery-timeout-ms:30000}") long deliveryTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventBus = eventBus;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.deliveryTimeoutMillis = deliveryTimeoutMillis;
+        this.relayed = Counter.builder("booking.outbox.relayed")
+                .description("Booking events delivered from the outbox and removed from it")
+                .register(meterRegistry);
+        this.failed = Counter.builder("booking.outbox.failed")
+                .description("Booking events a subscriber gave up on, kept in the outbox")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("booking.outbox.batch.size")
+                .description("Outbox rows relayed per batch")
+                .register(meterRegistry);
+        this.relayTime = Timer.builder("booking.outbox.relay")
+                .description("Time to publish an outbox batch and wait for its subscribers")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        relay = new Thread(this::run, "booking-outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    /**
+     * Writes the event for the reservation's current state in the surrounding
+     * transaction, which must be the one that changed the reservation.
+     */
+    public void add(BookingEvent.Type type, Reservation reservation) {
+        Room room = reservation.getRoom();
+        jdbcTemplate.update(INSERT,
+                type.name(),
+                reservation.getReservationId(),
+                room.getRoomId(),
+                room.getHotel() != null ? room.getHotel().getId() : null,
+                reservation.getCustomer() != null ? reservation.getCustomer().getCustomerId() : null,
+                Date.valueOf(reservation.getCheckInDate()),
+                Date.valueOf(reservation.getCheckOutDate()),
+                reservation.getTotalPrice(),
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    /**
+     * Relays everything currently in the outbox and returns how many events were
+     * delivered. Stops at the first batch whose subscribers do not finish in time.
+     */
+    public synchronized int relay() {
+        int total = 0;
+        while (true) {
+            List<BookingEvent> batch = jdbcTemplate.query(SELECT_BATCH, EVENT, batchSize);
+            if (batch.isEmpty()) {
+                return total;
+            }
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> deliveries = publish(batch);
+            if (deliveries == null) {
+                return total;
+            }
+            // Row by row: ids are not committed in order, so no range delete
+            List<Object[]> delivered = new ArrayList<>(batch.size());
+            List<Object[]> gaveUp = new ArrayList<>();
+            boolean interrupted = false;
+            for (int i = 0; i < batch.size(); i++) {
+                long id = batch.get(i).id();
+                try {
+                    deliveries.get(i).join();
+                    delivered.add(new Object[]{id});
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof EventDeliveryException) {
+                        gaveUp.add(new Object[]{Timestamp.valueOf(LocalDateTime.now()), id});
+                    } else {
+                        interrupted = true;
+                    }
+                } catch (CancellationException e) {
+                    interrupted = true;
+                }
+            }
+            jdbcTemplate.batchUpdate(DELETE, delivered);
+            if (!gaveUp.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARK_FAILED, gaveUp);
+                failed.increment(gaveUp.size());
+                logger.error("Subscribers gave up on {} booking events; they stay in the outbox with failed_at set",
+                        gaveUp.size());
+            }
+
+            relayTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+            relayed.increment(delivered.size());
+            total += delivered.size();
+            if (interrupted) {
+                logger.warn("Delivery of {} booking events was interrupted; they will be delivered again",
+                        batch.size() - delivered.size() - gaveUp.size());
+                return total;
+            }
+            if (batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    // Each event's delivery once all of them have finished, or null if they did not finish in time
+    private List<CompletableFuture<Void>> publish(List<BookingEvent> batch) {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(batch.size());
+        try {
+            for (BookingEvent event : batch) {
+                deliveries.add(eventBus.publish(event));
+            }
+            CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+                    .get(deliveryTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            logger.warn("Subscribers did not finish {} booking events within {} ms; they will be delivered again",
+                    batch.size(), deliveryTimeoutMillis);
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            // Some deliveries failed; relay() sorts them out one by one
+        }
+        return deliveries;
+    }
+
+    private void wake() {
+        synchronized (wakeUp) {
+            pending = true;
+            wakeUp.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                relay();
+            } catch (RuntimeException e) {
+                logger.error("Booking outbox relay failed", e);
+            }
+            synchronized (wakeUp) {
+                try {
+                    if (!pending && running) {
+                        wakeUp.wait(pollIntervalMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                pending = false;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        wake();
+        relay.join(5000);
+    }
+}
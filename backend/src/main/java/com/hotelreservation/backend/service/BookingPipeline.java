@@ -0,0 +1,351 @@
+package com.hotelreservation.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.entity.BookingTicket;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import com.hotelreservation.backend.repository.BookingTicketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Asynchronous booking path for flash sales. Accepted bookings go into a
+ * bounded queue per hotel partition, and a single writer thread per partition
+ * drains it, booking up to app.booking.async.batch-size requests in one
+ * transaction. Bookings for the same hotel therefore never contend with each
+ * other for room locks or inventory rows; they are written one after another.
+ *
+ * Requests the availability index already shows as unbookable are rejected
+ * without touching the batch. If a booking still fails inside the batch, the
+ * batch is rolled back and its requests are booked one at a time, so one bad
+ * request never fails the others. The rooms a batch books stay locked, and
+ * their nights claimed, until the batch commits or rolls back.
+ *
+ * Finished tickets are also written to booking_tickets (a confirmed one in its
+ * booking's transaction), so they can be polled after a restart or on another
+ * node. A ticket still queued exists only on the node that accepted it.
+ */
+@Service
+public class BookingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingPipeline.class);
+
+    private final BookingService bookingService;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingTicketRepository ticketRepository;
+    private final ObjectMapper objectMapper;
+    private final Partition[] partitions;
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    @Value("${app.booking.async.ticket-ttl-ms:600000}")
+    private long ticketTtlMillis = 600_000;
+
+    public BookingPipeline(BookingService bookingService,
+                           AvailabilityIndex availabilityIndex,
+                           PlatformTransactionManager transactionManager,
+                           BookingTicketRepository ticketRepository,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.booking.async.partitions:0}") int partitionCount,
+                           @Value("${app.booking.async.queue-capacity:1024}") int queueCapacity,
+                           @Value("${app.booking.async.batch-size:32}") int batchSize) {
+        this.bookingService = bookingService;
+        this.availabilityIndex = availabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ticketRepository = ticketRepository;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.rejected = Counter.builder("booking.pipeline.rejected")
+                .description("Async bookings refused because their hotel's queue was full")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("booking.pipeline.batch.size")
+                .description("Bookings written per transaction by the hotel writers")
+                .register(meterRegistry);
+
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            // Tagged by partition rather than hotel, so a hot hotel shows up without a series per hotel
+            Counter booked = Counter.builder("booking.pipeline.booked")
+                    .description("Bookings written by the async pipeline")
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+            Partition partition = new Partition(i, new ArrayBlockingQueue<>(queueCapacity), booked);
+            Gauge.builder("booking.pipeline.queue", partition.queue(), BlockingQueue::size)
+                    .description("Async bookings waiting for their hotel's writer")
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+            Thread writer = new Thread(() -> drain(partition), "booking-writer-" + i);
+            writer.setDaemon(true);
+            partition.writer = writer;
+            partitions[i] = partition;
+            writer.start();
+        }
+    }
+
+    /**
+     * Queues the booking and returns its ticket at once. The view turns the saved
+     * reservation into the response body and runs inside the writing transaction.
+     */
+    public Ticket submit(HotelBookingRequest request, Long customerId, String owner,
+                         Function<Reservation, ?> view) {
+        if (!running) {
+            throw new ServiceBusyException("Bookings are not being accepted right now, please retry shortly");
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), owner);
+        Partition partition = partitions[Math.floorMod(request.getHotelId().hashCode(), partitions.length)];
+        tickets.put(ticket.getId(), ticket);
+        if (!partition.queue().offer(new Job(ticket, request, customerId, view))) {
+            tickets.remove(ticket.getId());
+            rejected.increment();
+            throw new ServiceBusyException("Too many bookings for this hotel right now, please retry shortly");
+        }
+        return ticket;
+    }
+
+    /**
+     * The ticket from memory, or a finished one from the table when this node
+     * never saw it or has restarted since.
+     */
+    public Optional<Ticket> find(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket != null) {
+            return Optional.of(ticket);
+        }
+        return ticketRepository.findById(ticketId).map(this::restore);
+    }
+
+    private void drain(Partition partition) {
+        List<Job> batch = new ArrayList<>(batchSize);
+        while (running || !partition.queue().isEmpty()) {
+            try {
+                Job first = partition.queue().poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                partition.queue().drainTo(batch, batchSize - 1);
+                write(partition, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Booking writer {} failed a batch", partition.index(), e);
+                batch.stream().filter(job -> !job.ticket().isDone())
+                        .forEach(job -> fail(job, HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create booking"));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Partition partition, List<Job> batch) {
+        batchSizes.record(batch.size());
+        Map<Job, Object> confirmed = new LinkedHashMap<>();
+        Map<Job, String> soldOut = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Job job : batch) {
+                    // Sold-out requests are answered here instead of poisoning the batch
+                    String unavailable = unavailableReason(job.request());
+                    if (unavailable != null) {
+                        soldOut.put(job, unavailable);
+                        continue;
+                    }
+                    Reservation reservation = bookingService.createHotelBooking(job.request(), job.customerId());
+                    confirmed.put(job, record(job, job.view().apply(reservation)));
+                }
+            });
+        } catch (RuntimeException e) {
+            // BookingService gives the claimed nights back when the batch rolls back
+            logger.debug("Batch of {} bookings rolled back, writing them one at a time: {}",
+                    batch.size(), e.getMessage());
+            if (batch.size() == 1 && e instanceof BookingException rejectedBooking) {
+                fail(batch.get(0), rejectedBooking.getStatus(), rejectedBooking.getMessage());
+            } else {
+                batch.forEach(job -> writeOne(partition, job));
+            }
+            return;
+        }
+        soldOut.forEach((job, reason) -> fail(job, HttpStatus.CONFLICT, reason));
+        confirmed.forEach((job, body) -> confirm(partition, job, body));
+    }
+
+    private void writeOne(Partition partition, Job job) {
+        try {
+            Object body = transactionTemplate.execute(status -> record(job,
+                    job.view().apply(bookingService.createHotelBooking(job.request(), job.customerId()))));
+            confirm(partition, job, body);
+        } catch (BookingException e) {
+            fail(job, e.getStatus(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Async booking {} failed", job.ticket().getId(), e);
+            fail(job, HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create booking: " + e.getMessage());
+        }
+    }
+
+    // Created, as the synchronous booking answers
+    private void confirm(Partition partition, Job job, Object body) {
+        job.ticket().complete(HttpStatus.CREATED, body);
+        partition.booked().increment();
+    }
+
+    // Runs in the booking transaction, so the ticket row commits or rolls back with the reservation
+    private Object record(Job job, Object body) {
+        ticketRepository.save(new BookingTicket(job.ticket().getId(), job.ticket().getOwner(),
+                HttpStatus.CREATED.value(), serialize(body)));
+        return body;
+    }
+
+    private void fail(Job job, HttpStatus status, String message) {
+        job.ticket().fail(status, message);
+        try {
+            ticketRepository.save(new BookingTicket(job.ticket().getId(), job.ticket().getOwner(),
+                    status.value(), serialize(job.ticket().getBody())));
+        } catch (RuntimeException e) {
+            // The ticket still answers from memory on this node
+            logger.warn("Could not store failed booking ticket {}: {}", job.ticket().getId(), e.getMessage());
+        }
+    }
+
+    private Ticket restore(BookingTicket row) {
+        Ticket ticket = new Ticket(row.getTicketId(), row.getOwner());
+        try {
+            ticket.complete(HttpStatus.valueOf(row.getResponseStatus()),
+                    row.getResponseBody() != null ? objectMapper.readTree(row.getResponseBody()) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored booking ticket " + row.getTicketId() + " is not valid JSON", e);
+        }
+        return ticket;
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body != null ? objectMapper.writeValueAsString(body) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store booking ticket", e);
+        }
+    }
+
+    // Null when the index shows the stay can still be booked
+    private String unavailableReason(HotelBookingRequest request) {
+        if (!request.getCheckOut().isAfter(request.getCheckIn())) {
+            return null; // the booking path reports bad dates itself
+        }
+        if (request.getRoomId() != null) {
+            return availabilityIndex.isFree(request.getRoomId(), request.getCheckIn(), request.getCheckOut())
+                    ? null : "Room is not available for the selected dates";
+        }
+        boolean typeFree = availabilityIndex.findFreeRooms(request.getHotelId(), request.getCheckIn(),
+                        request.getCheckOut()).stream()
+                .anyMatch(slot -> slot.getRoomType().equalsIgnoreCase(request.getRoomType()));
+        return typeFree ? null : "No " + request.getRoomType() + " rooms left for the selected dates";
+    }
+
+    // Finished tickets are kept long enough for clients to poll them
+    @Scheduled(fixedDelayString = "${app.booking.async.sweep-interval-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - ticketTtlMillis;
+        tickets.values().removeIf(ticket -> ticket.isDone() && ticket.completedAt < cutoff);
+        transactionTemplate.execute(status ->
+                ticketRepository.deleteOlderThan(LocalDateTime.now().minus(ticketTtlMillis, ChronoUnit.MILLIS)));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Writers finish what was already accepted before the context closes
+        running = false;
+        for (Partition partition : partitions) {
+            partition.writer.join(5000);
+        }
+    }
+
+    /**
+     * Handle the client polls for an async booking. Until the writer picks it up
+     * the ticket is pending; afterwards it holds the response status and body.
+     */
+    public static final class Ticket {
+        private final String id;
+        private final String owner;
+        private volatile HttpStatus status;
+        private volatile Object body;
+        private volatile long completedAt;
+
+        Ticket(String id, String owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+
+        void complete(HttpStatus status, Object body) {
+            this.body = body;
+            this.completedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        void fail(HttpStatus status, String message) {
+            complete(status, Map.of("error", message, "status", status.value()));
+        }
+
+        public boolean isDone() {
+            return status != null;
+        }
+
+        public String getId() { return id; }
+        public String getOwner() { return owner; }
+        public HttpStatus getStatus() { return status; }
+        public Object getBody() { return body; }
+    }
+
+    private record Job(Ticket ticket, HotelBookingRequest request, Long customerId, Function<Reservation, ?> view) {
+    }
+
+    private static final class Partition {
+        private final int index;
+        private final BlockingQueue<Job> queue;
+        private final Counter booked;
+        private Thread writer;
+
+        Partition(int index, BlockingQueue<Job> queue, Counter booked) {
+            this.index = index;
+            this.queue = queue;
+            this.booked = booked;
+        }
+
+        int index() { return index; }
+        BlockingQueue<Job> queue() { return queue; }
+        Counter booked() { return booked; }
+    }
+}
@@ -0,0 +1,345 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Booking write path shared by the booking and reservation endpoints.
+ *
+ * Each booking runs under its room's lock from {@link BookingCoordinator}, takes the
+ * room type's nights from the {@link InventoryLedger}, claims the room's nights in the
+ * {@link AvailabilityIndex} and persists the reservation in one transaction. The room
+ * row is version-bumped on every booking, so a writer that bypasses this node's lock
+ * fails on commit and is retried a bounded number of times.
+ */
+@Service
+public class BookingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
+
+    private final RoomRepository roomRepository;
+    private final ReservationRepository reservationRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerResolver customerResolver;
+    private final AvailabilityIndex availabilityIndex;
+    private final InventoryLedger inventoryLedger;
+    private final BookingCoordinator bookingCoordinator;
+    private final LoyaltyEngine loyaltyEngine;
+    private final BookingJournal bookingJournal;
+    private final BookingOutbox bookingOutbox;
+    private final PricingEngine pricingEngine;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.booking.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    public BookingService(RoomRepository roomRepository,
+                          ReservationRepository reservationRepository,
+                          CustomerRepository customerRepository,
+                          CustomerResolver customerResolver,
+                          AvailabilityIndex availabilityIndex,
+                          InventoryLedger inventoryLedger,
+                          BookingCoordinator bookingCoordinator,
+                          LoyaltyEngine loyaltyEngine,
+                          BookingJournal bookingJournal,
+                          BookingOutbox bookingOutbox,
+                          PricingEngine pricingEngine,
+                          PlatformTransactionManager transactionManager) {
+        this.roomRepository = roomRepository;
+        this.reservationRepository = reservationRepository;
+        this.customerRepository = customerRepository;
+        this.customerResolver = customerResolver;
+        this.availabilityIndex = availabilityIndex;
+        this.inventoryLedger = inventoryLedger;
+        this.bookingCoordinator = bookingCoordinator;
+        this.loyaltyEngine = loyaltyEngine;
+        this.bookingJournal = bookingJournal;
+        this.bookingOutbox = bookingOutbox;
+        this.pricingEngine = pricingEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Reservation createHotelBooking(HotelBookingRequest request) {
+        return createHotelBooking(request, null);
+    }
+
+    /**
+     * Books for the given customer when the caller is signed in, so the stay shows
+     * up under their bookings; guests are matched or created by contact email.
+     */
+    public Reservation createHotelBooking(HotelBookingRequest request, Long customerId) {
+        if (request.getRoomId() != null) {
+            return bookHotelRoom(request, request.getRoomId(), customerId);
+        }
+
+        // Booking by room type: the ledger rejects sold-out types in one statement,
+        // otherwise the first free room of the type from the index is assigned
+        List<AvailabilityIndex.RoomSlot> candidates = availabilityIndex
+                .findFreeRooms(request.getHotelId(), request.getCheckIn(), request.getCheckOut()).stream()
+                .filter(slot -> slot.getRoomType().equalsIgnoreCase(request.getRoomType()))
+                .toList();
+        for (AvailabilityIndex.RoomSlot candidate : candidates) {
+            try {
+                return bookHotelRoom(request, candidate.getRoomId(), customerId);
+            } catch (RoomTakenException e) {
+                logger.debug("Room {} was taken concurrently, trying the next one", candidate.getRoomId());
+            }
+        }
+        throw new BookingException(HttpStatus.CONFLICT,
+                "No " + request.getRoomType() + " rooms left for the selected dates");
+    }
+
+    /**
+     * Books a room whose nights a {@link BookingHolds} hold blocks in the
+     * availability index. The nights pass from the hold to the reservation without
+     * ever being free; if the booking fails they go back to the hold.
+     */
+    public Reservation confirmHeld(HotelBookingRequest request, Long roomId, Long customerId) {
+        return bookHotelRoom(request, roomId, customerId, true);
+    }
+
+    private Reservation bookHotelRoom(HotelBookingRequest request, Long roomId, Long customerId) {
+        return bookHotelRoom(request, roomId, customerId, false);
+    }
+
+    private Reservation bookHotelRoom(HotelBookingRequest request, Long roomId, Long customerId, boolean nightsHeld) {
+        return book(roomId, request.getHotelId(), request.getCheckIn(), request.getCheckOut(), nightsHeld, room -> {
+            // Signed-in customer, otherwise an atomic find-or-create by contact email;
+            // the reference is never loaded, so a cached email costs no customer query
+            Customer customer = Optional.ofNullable(customerId).flatMap(customerRepository::findById)
+                    .orElseGet(() -> customerRepository.getReferenceById(customerResolver.resolve(
+                            request.getContactEmail(), request.getContactName(), request.getContactPhone())));
+
+            // Always the server's quote; a client-sent total is ignored
+            double price = pricingEngine.quote(room, request.getCheckIn(), request.getCheckOut());
+            return newReservation(room, customer, request.getCheckIn(), request.getCheckOut(), price);
+        });
+    }
+
+    public Reservation createReservation(Long roomId, Long customerId, LocalDate checkIn, LocalDate checkOut) {
+        return book(roomId, null, checkIn, checkOut, false, room -> {
+            Customer customer = customerRepository.findById(customerId)
+                    .orElseThrow(() -> new BookingException(HttpStatus.BAD_REQUEST, "Invalid room or customer ID"));
+            return newReservation(room, customer, checkIn, checkOut, pricingEngine.quote(room, checkIn, checkOut));
+        });
+    }
+
+    /**
+     * Marks a reservation cancelled and frees its nights. Returns empty if the
+     * reservation does not exist.
+     */
+    public Optional<Reservation> cancel(Long reservationId) {
+        Optional<Reservation> existing = reservationRepository.findById(reservationId);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        Long roomId = existing.get().getRoom().getRoomId();
+
+        return Optional.ofNullable(bookingCoordinator.withRoomLock(roomId, () -> withRetry(attempt ->
+                transactionTemplate.execute(status -> {
+                    Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+                    if (reservation == null) {
+                        return null;
+                    }
+                    if (reservation.getStatus() != Reservation.ReservationStatus.CANCELLED) {
+                        reservation.setStatus(Reservation.ReservationStatus.CANCELLED);
+                        reservationRepository.saveAndFlush(reservation);
+                        releaseInventory(reservation);
+                        releaseNights(reservation);
+                        revokePoints(reservation);
+                        bookingJournal.record(BookingJournal.Type.CANCELLED, reservation);
+                        bookingOutbox.add(BookingEvent.Type.CANCELLED, reservation);
+                    }
+                    return reservation;
+                }))));
+    }
+
+    public void delete(Long reservationId) {
+        Optional<Reservation> existing = reservationRepository.findById(reservationId);
+        if (existing.isEmpty()) {
+            return;
+        }
+        Long roomId = existing.get().getRoom().getRoomId();
+
+        bookingCoordinator.withRoomLock(roomId, () -> withRetry(attempt ->
+                transactionTemplate.execute(status -> {
+                    reservationRepository.findById(reservationId).ifPresent(reservation -> {
+                        reservationRepository.delete(reservation);
+                        reservationRepository.flush();
+                        bookingJournal.record(BookingJournal.Type.DELETED, reservation);
+                        bookingOutbox.add(BookingEvent.Type.DELETED, reservation);
+                        if (reservation.getStatus() != Reservation.ReservationStatus.CANCELLED) {
+                            releaseInventory(reservation);
+                            releaseNights(reservation);
+                            revokePoints(reservation);
+                        }
+                    });
+                    return null;
+                })));
+    }
+
+    private Reservation book(Long roomId, Long hotelId, LocalDate checkIn, LocalDate checkOut, boolean nightsHeld,
+                             Function<Room, Reservation> reservationFactory) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new BookingException(HttpStatus.BAD_REQUEST, "Check-out date must be after check-in date");
+        }
+
+        return bookingCoordinator.withRoomLock(roomId, () -> {
+            // Nobody else blocks this room's nights while we hold its lock, so a room taken since
+            // the caller listed it is turned away here, before a caller's transaction is touched
+            if (!nightsHeld && !availabilityIndex.isFree(roomId, checkIn, checkOut)) {
+                throw new RoomTakenException();
+            }
+            return withRetry(attempt -> transactionTemplate.execute(status -> {
+                Room room = roomRepository.findByIdForBooking(roomId)
+                        .orElseThrow(() -> new BookingException(HttpStatus.NOT_FOUND,
+                                "Room not found with ID: " + roomId));
+
+                if (hotelId != null && (room.getHotel() == null || !room.getHotel().getId().equals(hotelId))) {
+                    throw new BookingException(HttpStatus.BAD_REQUEST, "Room does not belong to the specified hotel");
+                }
+
+                // Rooms taken out of service cannot be sold at all
+                if (!room.isAvailable()) {
+                    throw new BookingException(HttpStatus.BAD_REQUEST, "Room is not available");
+                }
+
+                // A version conflict means someone outside this node's lock wrote the room,
+                // so the database is the only source we can trust for the retry
+                if (attempt > 1 && reservationRepository.existsOverlapping(roomId, checkIn, checkOut,
+                        Reservation.ReservationStatus.CANCELLED)) {
+                    throw new BookingException(HttpStatus.CONFLICT, "Room is not available for the selected dates");
+                }
+
+                // One conditional UPDATE across the nights; rolled back with the booking
+                availabilityIndex.registerIfAbsent(room);
+                if (room.getHotel() != null) {
+                    inventoryLedger.reserve(room.getHotel().getId(), room.getRoomType(), checkIn, checkOut);
+                }
+
+                boolean claimed = nightsHeld
+                        ? availabilityIndex.claimHeld(room, checkIn, checkOut)
+                        : availabilityIndex.tryBlock(room, checkIn, checkOut);
+                if (!claimed) {
+                    throw new RoomTakenException();
+                }
+                undoClaimOnRollback(roomId, checkIn, checkOut, nightsHeld);
+
+                Reservation saved = reservationRepository.save(reservationFactory.apply(room));
+                // Counted once the booking commits; the customer row is not touched here
+                loyaltyEngine.accrue(saved.getCustomer().getCustomerId(),
+                        loyaltyEngine.pointsFor(saved.getTotalPrice()));
+                bookingJournal.record(BookingJournal.Type.CONFIRMED, saved);
+                // Follow-up work runs off the outbox, never on this thread
+                bookingOutbox.add(BookingEvent.Type.CONFIRMED, saved);
+                return saved;
+            }));
+        });
+    }
+
+    // Tied to the transaction that finally commits or rolls back, which is the caller's when
+    // this booking joined one (the async pipeline's batches); a failed commit frees the nights too
+    private void undoClaimOnRollback(Long roomId, LocalDate checkIn, LocalDate checkOut, boolean nightsHeld) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                if (nightsHeld) {
+                    availabilityIndex.restoreHeld(roomId, checkIn, checkOut);
+                } else {
+                    availabilityIndex.release(roomId, checkIn, checkOut);
+                }
+            }
+        });
+    }
+
+    private <T> T withRetry(IntFunction<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.apply(attempt);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new BookingException(HttpStatus.CONFLICT,
+                            "Room was modified concurrently, please retry the booking");
+                }
+                logger.warn("Optimistic lock conflict on attempt {}/{}, retrying: {}",
+                        attempt, maxAttempts, e.getMessage());
+            }
+        }
+    }
+
+    private Reservation newReservation(Room room, Customer customer, LocalDate checkIn, LocalDate checkOut,
+                                       double totalPrice) {
+        Reservation reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setCustomer(customer);
+        reservation.setCheckInDate(checkIn);
+        reservation.setCheckOutDate(checkOut);
+        reservation.setTotalPrice(totalPrice);
+        reservation.setStatus(Reservation.ReservationStatus.CONFIRMED);
+        return reservation;
+    }
+
+    // Freed only once the cancel or delete commits: a rolled-back transaction leaves the
+    // row confirmed, and its nights must stay blocked. Still runs under the room lock.
+    private void releaseNights(Reservation reservation) {
+        Long roomId = reservation.getRoom().getRoomId();
+        LocalDate checkIn = reservation.getCheckInDate();
+        LocalDate checkOut = reservation.getCheckOutDate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availabilityIndex.release(roomId, checkIn, checkOut);
+                }
+            });
+        } else {
+            availabilityIndex.release(roomId, checkIn, checkOut);
+        }
+    }
+
+    private void revokePoints(Reservation reservation) {
+        loyaltyEngine.accrue(reservation.getCustomer().getCustomerId(),
+                -loyaltyEngine.pointsFor(reservation.getTotalPrice()));
+    }
+
+    private void releaseInventory(Reservation reservation) {
+        Room room = reservation.getRoom();
+        if (room.getHotel() != null) {
+            inventoryLedger.release(room.getHotel().getId(), room.getRoomType(),
+                    reservation.getCheckInDate(), reservation.getCheckOutDate());
+        }
+    }
+
+    // The specific room is taken for at least one night, though others of its type may be free
+    private static class RoomTakenException extends BookingException {
+        RoomTakenException() {
+            super(HttpStatus.CONFLICT, "Room is not available for the selected dates");
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.hotelreservation.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.listener.RoomsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized (and pre-gzipped) catalog responses, so repeat requests skip Jackson
+ * and polls with a matching If-None-Match cost a 304.
+ *
+ * Hotel entries are keyed by the catalog snapshot version they were rendered
+ * from, and older versions' entries are dropped once a newer one is seen. Room
+ * lists come from the database instead: they are keyed by the hotel's room
+ * generation, which local room writes bump, and expire after a short TTL to
+ * pick up other nodes' writes.
+ */
+@Service
+public class CatalogResponseCache {
+
+    private static final int GZIP_MIN_BYTES = 256;
+    // Prefix of the keys that carry a catalog snapshot version
+    private static final String VERSIONED = "v";
+
+    private final ObjectMapper objectMapper;
+    private final HotelCatalog hotelCatalog;
+    private final Map<String, Payload> entries;
+    private final Map<Long, Long> roomGenerations = new ConcurrentHashMap<>();
+    private volatile long catalogVersion = -1;
+
+    @Value("${app.catalog.cache-max-age-seconds:30}")
+    private long maxAgeSeconds = 30;
+
+    @Value("${app.catalog.rooms-ttl-ms:30000}")
+    private long roomsTtlMillis = 30000;
+
+    public CatalogResponseCache(ObjectMapper objectMapper, HotelCatalog hotelCatalog,
+                                @Value("${app.catalog.response-cache-size:1000}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.hotelCatalog = hotelCatalog;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Payload> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Cached payload for a catalog view, rendered on first use. Returns null while
+     * the catalog is still loading, in which case the caller serves uncached.
+     */
+    public Payload hotels(String key, Supplier<Content> render) {
+        return versioned("hotels?" + key, render);
+    }
+
+    public Payload hotel(Long hotelId, Supplier<Content> render) {
+        return versioned("hotel/" + hotelId, render);
+    }
+
+    public Payload rooms(Long hotelId, Supplier<Content> render) {
+        if (hotelCatalog.version() < 0) {
+            return null;
+        }
+        long generation = roomGenerations.getOrDefault(hotelId, 0L);
+        return lookup("rooms/" + hotelId + "#" + generation, roomsTtlMillis, render,
+                () -> roomGenerations.getOrDefault(hotelId, 0L) == generation);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomsChanged(RoomsChangedEvent event) {
+        if (event.hotelId() != null) {
+            roomGenerations.merge(event.hotelId(), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * 304 when the client already holds this payload, otherwise the gzip or
+     * identity bytes depending on Accept-Encoding.
+     */
+    public ResponseEntity<byte[]> respond(Payload payload, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = payload.gzipped != null && acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? payload.gzipEtag : payload.etag);
+        headers.setCacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        payload.headers.forEach(headers::set);
+
+        if (matches(ifNoneMatch, payload)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new ResponseEntity<>(gzip ? payload.gzipped : payload.json, headers, HttpStatus.OK);
+    }
+
+    private Payload versioned(String key, Supplier<Content> render) {
+        long version = hotelCatalog.version();
+        if (version < 0) {
+            return null;
+        }
+        if (version > catalogVersion) {
+            // Hotel entries of older snapshots can no longer be hit; room lists stay
+            synchronized (entries) {
+                if (version > catalogVersion) {
+                    String current = VERSIONED + version + ":";
+                    entries.keySet().removeIf(k -> k.startsWith(VERSIONED) && !k.startsWith(current));
+                    catalogVersion = version;
+                }
+            }
+        }
+        return lookup(VERSIONED + version + ":" + key, 0, render, () -> hotelCatalog.version() == version);
+    }
+
+    // Renders on a miss, and caches the result only if what it was rendered from is still current
+    private Payload lookup(String key, long ttlMillis, Supplier<Content> render, BooleanSupplier stillCurrent) {
+        Payload cached = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && (ttlMillis <= 0 || now - cached.createdAtMillis < ttlMillis)) {
+            return cached;
+        }
+        Content content = render.get();
+        Payload payload = Payload.of(serialize(content.body()), content.headers(), now);
+        if (stillCurrent.getAsBoolean()) {
+            entries.put(key, payload);
+        }
+        return payload;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog response", e);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").equalsIgnoreCase("q=0");
+            }
+        }
+        return false;
+    }
+
+    // Weak comparison as If-None-Match requires; either encoding's tag identifies the same content
+    private static boolean matches(String ifNoneMatch, Payload payload) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(payload.etag) || candidate.equals(payload.gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * What a catalog endpoint renders: the body to serialize plus any response
+     * headers that belong to it.
+     */
+    public record Content(Object body, Map<String, String> headers) {
+        public Content(Object body) {
+            this(body, Map.of());
+        }
+    }
+
+    public static final class Payload {
+        final byte[] json;
+        final byte[] gzipped;
+        final String etag;
+        final String gzipEtag;
+        final Map<String, String> headers;
+        final long createdAtMillis;
+
+        private Payload(byte[] json, byte[] gzipped, String etag, Map<String, String> headers, long createdAtMillis) {
+            this.json = json;
+            this.gzipped = gzipped;
+            this.etag = "\"" + etag + "\"";
+            this.gzipEtag = "\"" + etag + "-gzip\"";
+            this.headers = headers;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        static Payload of(byte[] json, Map<String, String> headers, long createdAtMillis) {
+            byte[] gzipped = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+            return new Payload(json, gzipped, contentHash(json), Map.copyOf(headers), createdAtMillis);
+        }
+
+        // Strong validator derived from the bytes, so every node issues the same tag
+        private static String contentHash(byte[] json) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        private static byte[] gzip(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.listener.CustomerChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds or creates the customer for a contact email in one atomic statement,
+ * so two bookings by the same new guest can no longer race on the unique email.
+ * MySQL uses INSERT ... ON DUPLICATE KEY UPDATE and reads the id back from the
+ * generated keys; other databases (H2 in tests) use MERGE followed by a lookup.
+ *
+ * Resolved ids are kept in a bounded LRU keyed by email, so repeat bookers
+ * cost no customer queries at all. An id is only cached once the transaction
+ * that resolved it has committed, and is dropped when the customer changes.
+ */
+@Service
+public class CustomerResolver {
+
+    private static final String MYSQL_UPSERT =
+            "INSERT INTO customers (full_name, email, phone_number, loyalty_points) VALUES (?, ?, ?, 0) "
+            + "ON DUPLICATE KEY UPDATE cust_id = LAST_INSERT_ID(cust_id)";
+
+    private static final String MERGE =
+            "MERGE INTO customers c USING (SELECT CAST(? AS VARCHAR(255)) AS email) s ON c.email = s.email "
+            + "WHEN NOT MATCHED THEN INSERT (full_name, email, phone_number, loyalty_points) VALUES (?, s.email, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> idsByEmail;
+    private volatile Boolean mysql;
+
+    public CustomerResolver(JdbcTemplate jdbcTemplate,
+                            @Value("${app.customer.cache-size:10000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idsByEmail = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Id of the customer with this email, creating the customer from the given
+     * details if there is none. Existing customers keep their stored details.
+     */
+    public Long resolve(String email, String fullName, String phoneNumber) {
+        Long cached = idsByEmail.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        Long id = isMySql() ? upsertMySql(email, fullName, phoneNumber) : merge(email, fullName, phoneNumber);
+        remember(email, id);
+        return id;
+    }
+
+    public int size() {
+        return idsByEmail.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        idsByEmail.values().removeIf(id -> id.equals(event.customerId()));
+    }
+
+    private Long upsertMySql(String email, String fullName, String phoneNumber) {
+        // LAST_INSERT_ID(cust_id) makes the existing row's id come back as the generated key
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(MYSQL_UPSERT, Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, fullName);
+            statement.setString(2, email);
+            statement.setString(3, phoneNumber);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private Long merge(String email, String fullName, String phoneNumber) {
+        try {
+            jdbcTemplate.update(MERGE, email, fullName, phoneNumber);
+        } catch (DuplicateKeyException e) {
+            // A concurrent booking inserted the same email first; its row is the one we want
+        }
+        return jdbcTemplate.queryForObject("SELECT cust_id FROM customers WHERE email = ?", Long.class, email);
+    }
+
+    // A rolled-back booking may have rolled back the customer with it
+    private void remember(String email, Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            idsByEmail.put(email, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                idsByEmail.put(email, id);
+            }
+        });
+    }
+
+    private boolean isMySql() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+        }
+        return mysql;
+    }
+}
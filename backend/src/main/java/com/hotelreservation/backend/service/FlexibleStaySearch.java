@@ -0,0 +1,128 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.FlexibleStay;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * "N nights sometime between two dates, cheapest first". For every room that
+ * fits the party, a window of N nights slides once across the range over the
+ * room's booked nights from the {@link AvailabilityIndex} and its room type's
+ * multipliers from the {@link PricingEngine}, keeping a running price and a
+ * running count of booked nights. Every window with no booked night is a
+ * candidate; a bounded heap keeps the cheapest k across all hotels.
+ *
+ * Each room costs one pass over the range, however many check-in dates it
+ * contains, and nothing is read from the database.
+ */
+@Service
+public class FlexibleStaySearch {
+
+    // Most expensive kept candidate first, so it is the one evicted
+    private static final Comparator<FlexibleStay> MOST_EXPENSIVE_FIRST =
+            Comparator.comparingDouble(FlexibleStay::totalPrice).reversed()
+                    .thenComparing(FlexibleStay::checkIn, Comparator.reverseOrder())
+                    .thenComparing(FlexibleStay::roomId, Comparator.reverseOrder());
+
+    private final HotelCatalog hotelCatalog;
+    private final AvailabilityIndex availabilityIndex;
+    private final PricingEngine pricingEngine;
+
+    public FlexibleStaySearch(HotelCatalog hotelCatalog,
+                              AvailabilityIndex availabilityIndex,
+                              PricingEngine pricingEngine) {
+        this.hotelCatalog = hotelCatalog;
+        this.availabilityIndex = availabilityIndex;
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * The k cheapest stays of the given length that check in on or after from and
+     * check out on or before to, cheapest first. With a hotel id only that hotel
+     * is searched, otherwise every hotel in the city.
+     */
+    public List<FlexibleStay> search(Long hotelId, String city, int nights, LocalDate from, LocalDate to,
+                                     int guests, int k) {
+        List<HotelView> hotels;
+        if (hotelId != null) {
+            hotels = hotelCatalog.find(hotelId).map(List::of).orElse(List.of());
+        } else {
+            if (!hotelCatalog.isReady()) {
+                throw new ServiceBusyException("Hotel catalog is still loading, please retry shortly");
+            }
+            HotelSearchCriteria criteria = new HotelSearchCriteria();
+            criteria.setCity(city);
+            hotels = hotelCatalog.findAll(criteria);
+        }
+
+        int days = (int) (to.toEpochDay() - from.toEpochDay());
+        boolean[] booked = new boolean[days];
+        PriorityQueue<FlexibleStay> cheapest = new PriorityQueue<>(k + 1, MOST_EXPENSIVE_FIRST);
+
+        for (HotelView hotel : hotels) {
+            Map<String, double[]> multipliersByType = new HashMap<>();
+            for (AvailabilityIndex.RoomSlot room : availabilityIndex.findRooms(hotel.id())) {
+                if (room.getCapacity() < guests) {
+                    continue;
+                }
+                double[] multipliers = multipliersByType.computeIfAbsent(room.getRoomType(),
+                        type -> pricingEngine.nightlyMultipliers(hotel.id(), type, from, to));
+                room.bookedNights(from, booked);
+                slide(hotel, room, multipliers, booked, nights, from, k, cheapest);
+            }
+        }
+
+        List<FlexibleStay> result = new ArrayList<>(cheapest);
+        result.sort(MOST_EXPENSIVE_FIRST.reversed());
+        return result;
+    }
+
+    private static void slide(HotelView hotel, AvailabilityIndex.RoomSlot room, double[] multipliers,
+                              boolean[] booked, int nights, LocalDate from, int k,
+                              PriorityQueue<FlexibleStay> cheapest) {
+        double windowSum = 0;
+        int bookedInWindow = 0;
+        for (int night = 0; night < multipliers.length; night++) {
+            windowSum += multipliers[night];
+            if (booked[night]) {
+                bookedInWindow++;
+            }
+            int first = night - nights + 1;
+            if (first < 0) {
+                continue;
+            }
+            if (bookedInWindow == 0) {
+                double total = Math.round(room.getPricePerNight() * windowSum * 100) / 100.0;
+                // Skip the allocation when the heap is full and this stay would not make it
+                if (cheapest.size() < k || total < cheapest.peek().totalPrice()) {
+                    // The running sum drifts in the last bits; price a kept stay exactly as quote() does
+                    double exact = 0;
+                    for (int i = first; i <= night; i++) {
+                        exact += multipliers[i];
+                    }
+                    total = Math.round(room.getPricePerNight() * exact * 100) / 100.0;
+                    LocalDate checkIn = from.plusDays(first);
+                    cheapest.add(new FlexibleStay(hotel.id(), hotel.name(), room.getRoomId(),
+                            room.getRoomNumber(), room.getRoomType(), checkIn, checkIn.plusDays(nights), total));
+                    if (cheapest.size() > k) {
+                        cheapest.poll();
+                    }
+                }
+            }
+            windowSum -= multipliers[first];
+            if (booked[first]) {
+                bookedInWindow--;
+            }
+        }
+    }
+}
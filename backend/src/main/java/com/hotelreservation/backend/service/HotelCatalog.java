@@ -0,0 +1,534 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.HotelFacets;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelSuggestion;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.listener.HotelChangedEvent;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.HotelSpecifications.HotelSort;
+import com.hotelreservation.backend.util.KeysetCursor;
+import com.hotelreservation.backend.util.TermBitmapIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only copy of the hotel catalog, held as an immutable snapshot behind a
+ * volatile reference so readers never lock or touch the database.
+ *
+ * Committed hotel writes are patched into a new snapshot in the background: only
+ * the changed hotels are reloaded, and only the tag, badge and typeahead entries
+ * they touch are rebuilt. A periodic fingerprint check catches changes made by
+ * other nodes and triggers a full rebuild.
+ */
+@Service
+public class HotelCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotelCatalog.class);
+
+    private final HotelRepository hotelRepository;
+    private final Timer rebuildTimer;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Set<Long> changedHotels = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean fullRebuild = new AtomicBoolean();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hotel-catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Above this many changed hotels a full reload is cheaper than patching
+    @Value("${app.catalog.max-patch-size:256}")
+    private int maxPatchSize = 256;
+
+    public HotelCatalog(HotelRepository hotelRepository, MeterRegistry meterRegistry) {
+        this.hotelRepository = hotelRepository;
+        this.rebuildTimer = Timer.builder("hotel.catalog.rebuild")
+                .description("Time to rebuild or patch the hotel catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("hotel.catalog.age", this, HotelCatalog::ageSeconds)
+                .description("Seconds since the hotel catalog snapshot was built")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("hotel.catalog.size", this, c -> c.snapshot != null ? c.snapshot.byId.length : 0)
+                .description("Hotels in the catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Changes with every new snapshot; -1 until the catalog has loaded.
+     */
+    public long version() {
+        Snapshot current = snapshot;
+        return current != null ? current.version : -1;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public Optional<HotelView> find(Long id) {
+        Snapshot current = snapshot;
+        if (current == null || id == null) {
+            return Optional.empty();
+        }
+        Entry entry = current.index.get(id);
+        return entry != null ? Optional.of(entry.view) : Optional.empty();
+    }
+
+    /**
+     * Same filters, ordering and cursors as {@link HotelSearchService}, answered
+     * from the snapshot. Callers should check {@link #isReady()} first.
+     */
+    public CursorPage<HotelView> search(HotelSearchCriteria criteria) {
+        Snapshot current = requireSnapshot();
+        HotelSort sort = HotelSort.parse(criteria.getSort());
+        KeysetCursor after = sort.decodeCursor(criteria.getAfter());
+        Filter filter = new Filter(criteria);
+        int limit = criteria.getLimit();
+
+        Entry[] order = current.sortedBy(sort.field());
+        IntPredicate accept;
+        if (filter.tags.isEmpty()) {
+            accept = i -> filter.matchesRow(order[i]);
+        } else {
+            // Tag filters resolve by bitmap intersection; a selective result is sorted
+            // directly instead of scanning the whole ordering for it
+            RoaringBitmap matched = current.matching(filter);
+            if ((long) matched.getCardinality() * 8 < order.length) {
+                Entry[] subset = new Entry[matched.getCardinality()];
+                int n = 0;
+                for (int key : matched) {
+                    subset[n++] = current.byKey[key];
+                }
+                Arrays.sort(subset, comparator(sort.field()));
+                return page(subset, i -> true, sort, after, limit);
+            }
+            accept = i -> matched.contains(order[i].key);
+        }
+        return page(order, accept, sort, after, limit);
+    }
+
+    /**
+     * Every hotel matching the criteria's filters, unpaged and in id order.
+     * Callers should check {@link #isReady()} first.
+     */
+    public List<HotelView> findAll(HotelSearchCriteria criteria) {
+        Snapshot current = requireSnapshot();
+        RoaringBitmap matched = current.matching(new Filter(criteria));
+        List<HotelView> hotels = new ArrayList<>(matched.getCardinality());
+        for (int key : matched) {
+            hotels.add(current.byKey[key].view);
+        }
+        return hotels;
+    }
+
+    /**
+     * Tag and badge counts over every hotel matching the criteria; the sort and
+     * cursor are ignored.
+     */
+    public HotelFacets facets(HotelSearchCriteria criteria) {
+        Snapshot current = requireSnapshot();
+        RoaringBitmap matched = current.matching(new Filter(criteria));
+        return new HotelFacets(current.tags.counts(matched), current.badges.counts(matched));
+    }
+
+    /**
+     * Ranked typeahead matches for a name, city or country prefix; empty until
+     * the catalog has loaded.
+     */
+    public List<HotelSuggestion> suggest(String query, int limit) {
+        Snapshot current = snapshot;
+        return current != null ? current.suggest.suggest(query, limit) : List.of();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        fullRebuild.set(true);
+        pending.set(true);
+        drain();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHotelChanged(HotelChangedEvent event) {
+        if (event.hotelId() == null) {
+            return;
+        }
+        changedHotels.add(event.hotelId());
+        if (!pending.getAndSet(true)) {
+            rebuildExecutor.execute(this::drain);
+        }
+    }
+
+    // Picks up writes from other nodes, which never reach this node's listener
+    @Scheduled(fixedDelayString = "${app.catalog.check-interval-ms:30000}",
+               initialDelayString = "${app.catalog.check-interval-ms:30000}")
+    public void checkForChanges() {
+        Snapshot current = snapshot;
+        if (current == null || !current.fingerprint.equals(fingerprint())) {
+            refresh();
+        }
+    }
+
+    public long ageSeconds() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : (System.currentTimeMillis() - current.builtAtMillis) / 1000;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private Snapshot requireSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Hotel catalog is not loaded yet");
+        }
+        return current;
+    }
+
+    private static CursorPage<HotelView> page(Entry[] order, IntPredicate accept, HotelSort sort,
+                                              KeysetCursor after, int limit) {
+        List<HotelView> rows = new ArrayList<>(Math.min(limit + 1, order.length));
+        if (sort.descending()) {
+            int i = after == null ? order.length - 1 : firstAtOrAfter(order, sort.field(), after, false) - 1;
+            for (; i >= 0 && rows.size() <= limit; i--) {
+                if (accept.test(i)) {
+                    rows.add(order[i].view);
+                }
+            }
+        } else {
+            int i = after == null ? 0 : firstAtOrAfter(order, sort.field(), after, true);
+            for (; i < order.length && rows.size() <= limit; i++) {
+                if (accept.test(i)) {
+                    rows.add(order[i].view);
+                }
+            }
+        }
+
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<HotelView> page = rows.subList(0, limit);
+        return new CursorPage<>(page, sort.cursorAfter(page.get(limit - 1)).encode());
+    }
+
+    // Applies pending changes until none are left; concurrent callers leave it to the running one
+    private void drain() {
+        do {
+            if (!rebuildLock.tryLock()) {
+                return;
+            }
+            try {
+                while (pending.getAndSet(false)) {
+                    apply();
+                }
+            } catch (RuntimeException e) {
+                // The fingerprint check notices the snapshot is behind and retries with a full rebuild
+                logger.error("Hotel catalog update failed, keeping the previous snapshot", e);
+                return;
+            } finally {
+                rebuildLock.unlock();
+            }
+        } while (pending.get());
+    }
+
+    private void apply() {
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = changedHotels.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+
+        long start = System.nanoTime();
+        Snapshot current = snapshot;
+        if (fullRebuild.getAndSet(false) || current == null || ids.size() > maxPatchSize) {
+            List<Hotel> hotels = hotelRepository.findAllWithTags();
+            snapshot = Snapshot.build(hotels, versions.incrementAndGet());
+            logger.info("Hotel catalog rebuilt: {} hotels in {} ms",
+                    hotels.size(), (System.nanoTime() - start) / 1_000_000);
+        } else if (!ids.isEmpty()) {
+            snapshot = current.patch(ids, hotelRepository.findAllWithTagsByIdIn(ids), versions.incrementAndGet());
+            logger.debug("Hotel catalog patched: {} hotels in {} ms",
+                    ids.size(), (System.nanoTime() - start) / 1_000_000);
+        } else {
+            return;
+        }
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String fingerprint() {
+        Object[] row = hotelRepository.catalogFingerprint().get(0);
+        return fingerprint(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+
+    private static String fingerprint(long count, long versionSum, long maxId) {
+        return count + ":" + versionSum + ":" + maxId;
+    }
+
+    // Index of the first entry ordered after (strict) or at-or-after the cursor position
+    private static int firstAtOrAfter(Entry[] order, HotelSort.Field field, KeysetCursor cursor, boolean strict) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareToCursor(order[mid], field, cursor);
+            if (cmp < 0 || (strict && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareToCursor(Entry entry, HotelSort.Field field, KeysetCursor cursor) {
+        int cmp = switch (field) {
+            case PRICE -> Double.compare(entry.view.pricePerNight(), cursor.doubleValue());
+            case RATING -> Double.compare(entry.view.rating(), cursor.doubleValue());
+            case NAME -> HotelSort.NAME_ORDER.compare(entry.view.name(),
+                    cursor.value() != null ? cursor.value() : "");
+            case ID -> 0;
+        };
+        return cmp != 0 ? cmp : Long.compare(entry.view.id(), cursor.id());
+    }
+
+    private static Comparator<Entry> comparator(HotelSort.Field field) {
+        Comparator<Entry> byKey = switch (field) {
+            case PRICE -> Comparator.comparingDouble(e -> e.view.pricePerNight());
+            case RATING -> Comparator.comparingDouble(e -> e.view.rating());
+            case NAME -> Comparator.comparing(e -> e.view.name(), HotelSort.NAME_ORDER);
+            case ID -> (a, b) -> 0;
+        };
+        return byKey.thenComparingLong(e -> e.view.id());
+    }
+
+    // A hotel plus the normalized keys the filters compare against
+    private static final class Entry {
+        final HotelView view;
+        final int key; // dense ordinal standing in for the hotel id in the bitmaps
+        final long version;
+        final String city;
+        final String country;
+
+        Entry(Hotel hotel, int key) {
+            this.view = HotelView.of(hotel);
+            this.key = key;
+            this.version = hotel.getVersion() != null ? hotel.getVersion() : 0;
+            this.city = view.city() != null ? view.city().toLowerCase() : "";
+            this.country = view.country() != null ? view.country().toLowerCase() : "";
+        }
+
+        List<String> badges() {
+            return view.badge() != null ? List.of(view.badge()) : List.of();
+        }
+    }
+
+    private static final class Snapshot {
+        final Entry[] byId;
+        final Entry[] byPrice;
+        final Entry[] byRating;
+        final Entry[] byName;
+        final Map<Long, Entry> index;
+        // Bitmaps hold ordinals rather than ids, which need not fit an int; a hotel keeps its
+        // ordinal across patches, deleted ones leave a null slot until the next full rebuild
+        final Entry[] byKey;
+        final RoaringBitmap ids;
+        final TermBitmapIndex tags;
+        final TermBitmapIndex badges;
+        final HotelSuggestIndex suggest;
+        final long version;
+        final String fingerprint; // what the database fingerprint should be if nothing changed since
+        final long builtAtMillis = System.currentTimeMillis();
+
+        private Snapshot(Collection<Entry> entries, Entry[] byKey, TermBitmapIndex tags, TermBitmapIndex badges,
+                         HotelSuggestIndex suggest, long version) {
+            Entry[] all = entries.toArray(Entry[]::new);
+            this.byId = sorted(all, HotelSort.Field.ID);
+            this.byPrice = sorted(all, HotelSort.Field.PRICE);
+            this.byRating = sorted(all, HotelSort.Field.RATING);
+            this.byName = sorted(all, HotelSort.Field.NAME);
+            Map<Long, Entry> index = new HashMap<>(all.length * 2);
+            RoaringBitmap ids = new RoaringBitmap();
+            long versionSum = 0;
+            for (Entry entry : all) {
+                index.put(entry.view.id(), entry);
+                ids.add(entry.key);
+                versionSum += entry.version;
+            }
+            this.index = Map.copyOf(index);
+            this.byKey = byKey;
+            this.ids = ids;
+            this.tags = tags;
+            this.badges = badges;
+            this.suggest = suggest;
+            this.version = version;
+            this.fingerprint = HotelCatalog.fingerprint(all.length, versionSum,
+                    all.length > 0 ? byId[all.length - 1].view.id() : 0);
+        }
+
+        static Snapshot build(List<Hotel> hotels, long version) {
+            Entry[] byKey = new Entry[hotels.size()];
+            TermBitmapIndex.Builder tags = TermBitmapIndex.builder();
+            TermBitmapIndex.Builder badges = TermBitmapIndex.builder();
+            for (int key = 0; key < byKey.length; key++) {
+                Entry entry = new Entry(hotels.get(key), key);
+                byKey[key] = entry;
+                tags.add(key, entry.view.tags());
+                badges.add(key, entry.badges());
+            }
+            List<Entry> entries = Arrays.asList(byKey);
+            return new Snapshot(entries, byKey, tags.build(), badges.build(),
+                    HotelSuggestIndex.build(entries.stream().map(e -> e.view).toList()), version);
+        }
+
+        // New snapshot with the given hotels replaced by their reloaded state; missing ones were deleted
+        Snapshot patch(List<Long> changedIds, List<Hotel> loaded, long version) {
+            Map<Long, Entry> entries = new HashMap<>(index);
+            Map<Long, Hotel> reloaded = loaded.stream().collect(Collectors.toMap(Hotel::getId, h -> h));
+            int nextKey = byKey.length;
+            List<Entry> assigned = new ArrayList<>();
+            List<Integer> vacated = new ArrayList<>();
+            TermBitmapIndex nextTags = tags;
+            TermBitmapIndex nextBadges = badges;
+            List<HotelView> removed = new ArrayList<>();
+            List<HotelView> added = new ArrayList<>();
+            for (Long id : changedIds) {
+                Entry before = entries.remove(id);
+                Hotel hotel = reloaded.get(id);
+                if (before == null && hotel == null) {
+                    continue;
+                }
+                int key = before != null ? before.key : nextKey++;
+                Entry after = hotel != null ? new Entry(hotel, key) : null;
+                if (before != null) {
+                    removed.add(before.view);
+                }
+                if (after != null) {
+                    entries.put(id, after);
+                    added.add(after.view);
+                    assigned.add(after);
+                } else if (before != null) {
+                    vacated.add(key);
+                }
+                nextTags = nextTags.patch(key,
+                        before != null ? before.view.tags() : List.of(),
+                        after != null ? after.view.tags() : List.of());
+                nextBadges = nextBadges.patch(key,
+                        before != null ? before.badges() : List.of(),
+                        after != null ? after.badges() : List.of());
+            }
+            Entry[] nextByKey = Arrays.copyOf(byKey, nextKey);
+            for (int key : vacated) {
+                nextByKey[key] = null;
+            }
+            for (Entry entry : assigned) {
+                nextByKey[entry.key] = entry;
+            }
+            return new Snapshot(entries.values(), nextByKey, nextTags, nextBadges,
+                    suggest.patch(removed, added), version);
+        }
+
+        Entry[] sortedBy(HotelSort.Field field) {
+            return switch (field) {
+                case PRICE -> byPrice;
+                case RATING -> byRating;
+                case NAME -> byName;
+                case ID -> byId;
+            };
+        }
+
+        // Ids of every hotel matching the filter
+        RoaringBitmap matching(Filter filter) {
+            RoaringBitmap candidates = filter.tags.isEmpty() ? ids : tags.allOf(filter.tags);
+            if (!filter.hasRowFilters()) {
+                return candidates;
+            }
+            RoaringBitmap result = new RoaringBitmap();
+            for (int key : candidates) {
+                if (filter.matchesRow(byKey[key])) {
+                    result.add(key);
+                }
+            }
+            return result;
+        }
+
+        private static Entry[] sorted(Entry[] entries, HotelSort.Field field) {
+            Entry[] copy = entries.clone();
+            Arrays.sort(copy, comparator(field));
+            return copy;
+        }
+    }
+
+    // Criteria normalized once per query, matching the database search semantics
+    private static final class Filter {
+        final String cityPrefix;
+        final String country;
+        final Double minRating;
+        final Double maxPrice;
+        final List<String> tags;
+
+        Filter(HotelSearchCriteria criteria) {
+            this.cityPrefix = normalize(criteria.getCity());
+            this.country = normalize(criteria.getCountry());
+            this.minRating = criteria.getMinRating();
+            this.maxPrice = criteria.getMaxPrice();
+            this.tags = criteria.getTags();
+        }
+
+        boolean hasRowFilters() {
+            return cityPrefix != null || country != null || minRating != null || maxPrice != null;
+        }
+
+        // Everything except tags, which are answered by the bitmap index
+        boolean matchesRow(Entry entry) {
+            return (cityPrefix == null || entry.city.startsWith(cityPrefix))
+                    && (country == null || entry.country.equals(country))
+                    && (minRating == null || entry.view.rating() >= minRating)
+                    && (maxPrice == null || entry.view.pricePerNight() <= maxPrice);
+        }
+
+        private static String normalize(String value) {
+            return value == null || value.isBlank() ? null : value.trim().toLowerCase();
+        }
+    }
+}
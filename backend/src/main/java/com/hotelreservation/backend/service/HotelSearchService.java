@@ -0,0 +1,54 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.HotelSpecifications;
+import com.hotelreservation.backend.repository.HotelSpecifications.HotelSort;
+import com.hotelreservation.backend.util.KeysetCursor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hotel search pushed down to the database: one filtered, ordered query that
+ * reads at most limit + 1 rows past the cursor, plus one query for the page's tags.
+ */
+@Service
+public class HotelSearchService {
+
+    private final HotelRepository hotelRepository;
+
+    public HotelSearchService(HotelRepository hotelRepository) {
+        this.hotelRepository = hotelRepository;
+    }
+
+    public CursorPage<HotelView> search(HotelSearchCriteria criteria) {
+        HotelSort sort = HotelSort.parse(criteria.getSort());
+        KeysetCursor after = sort.decodeCursor(criteria.getAfter());
+
+        int limit = criteria.getLimit();
+        List<Hotel> rows = hotelRepository.findBy(HotelSpecifications.search(criteria, sort, after),
+                query -> query.sortBy(sort.toSort()).limit(limit + 1).all());
+
+        List<Hotel> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        String nextCursor = rows.size() > limit ? sort.cursorAfter(page.get(limit - 1)).encode() : null;
+        return new CursorPage<>(withTags(page), nextCursor);
+    }
+
+    // One batched read of the page's tags instead of a lazy load per hotel during serialization
+    private List<HotelView> withTags(List<Hotel> page) {
+        if (page.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Hotel> loaded = new HashMap<>();
+        for (Hotel hotel : hotelRepository.findAllWithTagsByIdIn(page.stream().map(Hotel::getId).toList())) {
+            loaded.put(hotel.getId(), hotel);
+        }
+        return page.stream().map(hotel -> HotelView.of(loaded.getOrDefault(hotel.getId(), hotel))).toList();
+    }
+}
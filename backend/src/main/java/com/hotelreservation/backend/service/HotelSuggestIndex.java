@@ -0,0 +1,468 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelSuggestion;
+import com.hotelreservation.backend.dto.HotelView;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable typeahead index over hotel names, cities and countries.
+ *
+ * Every word-start suffix of a label ("grand luxury resort", "luxury resort",
+ * "resort") is kept in one sorted array, so a prefix query is a binary search
+ * followed by a scan of the matching range. Matches rank by how well they match
+ * (whole label, label prefix, word prefix), then by weight: cities and countries
+ * weigh their hotel count, hotels their rating scaled below one.
+ *
+ * Only a whole-label match depends on the query, and those are looked up by
+ * label. Everything else ranks the same for any prefix it falls under, so every
+ * prefix whose range is longer than the scan limit gets its best {@link #MAX_LIMIT}
+ * targets precomputed at build time: no query scans more than the limit.
+ */
+public final class HotelSuggestIndex {
+
+    /**
+     * Most suggestions one query returns.
+     */
+    public static final int MAX_LIMIT = 20;
+
+    static final int SCAN_LIMIT = 256;
+
+    // Patches touching more than one target in this many rebuild the rankings from scratch
+    private static final int PATCH_SHARE = 8;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final HotelSuggestIndex EMPTY =
+            new HotelSuggestIndex(new String[0], new String[0], Map.of(), SCAN_LIMIT);
+
+    // Parallel arrays sorted by (token, target key)
+    private final String[] tokens;
+    private final String[] keys;
+    private final Map<String, Target> targets;
+    private final int scanLimit;
+    // Best targets whose whole label equals the key, and per long-range prefix the best other targets;
+    // filled in by the constructors and never changed afterwards
+    private final Map<String, Ranked[]> byLabel;
+    private final Map<String, Ranked[]> topByPrefix;
+
+    private HotelSuggestIndex(String[] tokens, String[] keys, Map<String, Target> targets, int scanLimit) {
+        this.tokens = tokens;
+        this.keys = keys;
+        this.targets = targets;
+        this.scanLimit = scanLimit;
+        this.byLabel = new HashMap<>(targets.size() * 2);
+        this.topByPrefix = new HashMap<>();
+
+        Map<String, List<Ranked>> labels = new HashMap<>();
+        for (Target target : targets.values()) {
+            labels.computeIfAbsent(target.normalized, k -> new ArrayList<>()).add(new Ranked(target, 3));
+        }
+        labels.forEach((label, ranked) -> byLabel.put(label,
+                ranked.size() == 1 ? new Ranked[] {ranked.get(0)} : best(ranked)));
+        if (tokens.length > scanLimit) {
+            collect(0, tokens.length, 0);
+        }
+    }
+
+    // Reuses the previous index's results except for the labels and prefixes the patch touched
+    private HotelSuggestIndex(String[] tokens, String[] keys, Map<String, Target> targets,
+                              HotelSuggestIndex previous, Set<String> dirtyLabels, Set<String> dirtyPrefixes) {
+        this.tokens = tokens;
+        this.keys = keys;
+        this.targets = targets;
+        this.scanLimit = previous.scanLimit;
+        this.byLabel = new HashMap<>(previous.byLabel);
+        this.topByPrefix = new HashMap<>(previous.topByPrefix);
+
+        for (String label : dirtyLabels) {
+            List<Ranked> ranked = new ArrayList<>();
+            for (int i = lowerBound(label); i < tokens.length && tokens[i].equals(label); i++) {
+                Target target = targets.get(keys[i]);
+                if (target.normalized.equals(label)) {
+                    ranked.add(new Ranked(target, 3));
+                }
+            }
+            if (ranked.isEmpty()) {
+                byLabel.remove(label);
+            } else {
+                byLabel.put(label, best(ranked));
+            }
+        }
+        // Deepest first, so a prefix is rebuilt from children that are already current
+        List<String> prefixes = new ArrayList<>(dirtyPrefixes);
+        prefixes.sort(Comparator.comparingInt(String::length).reversed());
+        for (String prefix : prefixes) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (to - from > scanLimit) {
+                topByPrefix.put(prefix, merge(from, to, prefix.length()));
+            } else {
+                topByPrefix.remove(prefix);
+            }
+        }
+    }
+
+    public static HotelSuggestIndex build(Collection<HotelView> hotels) {
+        return EMPTY.patch(List.of(), hotels);
+    }
+
+    // Tests compare against an index that scans every range
+    static HotelSuggestIndex build(Collection<HotelView> hotels, int scanLimit) {
+        return new HotelSuggestIndex(new String[0], new String[0], Map.of(), scanLimit).patch(List.of(), hotels);
+    }
+
+    /**
+     * Returns an index without the removed hotels and with the added ones. Only
+     * the targets they touch are re-tokenized; the rest of the sorted array is
+     * merged through unchanged.
+     */
+    public HotelSuggestIndex patch(Collection<HotelView> removed, Collection<HotelView> added) {
+        Map<String, Target> next = new HashMap<>(targets);
+        Set<String> touched = new HashSet<>();
+        for (HotelView hotel : removed) {
+            for (Target target : targetsOf(hotel)) {
+                touched.add(target.key);
+                Target existing = next.get(target.key);
+                if (existing == null) {
+                    continue;
+                }
+                Target remaining = existing.minus(target);
+                if (remaining == null) {
+                    next.remove(target.key);
+                } else {
+                    next.put(target.key, remaining);
+                }
+            }
+        }
+        for (HotelView hotel : added) {
+            for (Target target : targetsOf(hotel)) {
+                touched.add(target.key);
+                next.merge(target.key, target, Target::plus);
+            }
+        }
+        if (touched.isEmpty()) {
+            return this;
+        }
+
+        // Postings whose presence may have changed are dropped and re-added for surviving targets
+        List<String[]> fresh = new ArrayList<>();
+        for (String key : touched) {
+            Target target = next.get(key);
+            if (target != null) {
+                for (String token : tokenize(target.text)) {
+                    fresh.add(new String[] {token, key});
+                }
+            }
+        }
+        fresh.sort(Comparator.<String[], String>comparing(p -> p[0]).thenComparing(p -> p[1]));
+
+        int capacity = tokens.length + fresh.size();
+        String[] mergedTokens = new String[capacity];
+        String[] mergedKeys = new String[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < tokens.length || j < fresh.size()) {
+            if (i < tokens.length && touched.contains(keys[i])) {
+                i++;
+                continue;
+            }
+            boolean takeOld = j >= fresh.size()
+                    || (i < tokens.length && compare(tokens[i], keys[i], fresh.get(j)[0], fresh.get(j)[1]) <= 0);
+            if (takeOld) {
+                mergedTokens[n] = tokens[i];
+                mergedKeys[n++] = keys[i++];
+            } else {
+                mergedTokens[n] = fresh.get(j)[0];
+                mergedKeys[n++] = fresh.get(j++)[1];
+            }
+        }
+        mergedTokens = Arrays.copyOf(mergedTokens, n);
+        mergedKeys = Arrays.copyOf(mergedKeys, n);
+        // A large batch is cheaper to rank from scratch than prefix by prefix
+        if (touched.size() * PATCH_SHARE > next.size()) {
+            return new HotelSuggestIndex(mergedTokens, mergedKeys, next, scanLimit);
+        }
+        Set<String> labels = new HashSet<>();
+        Set<String> prefixes = new HashSet<>();
+        for (String key : touched) {
+            for (Target target : new Target[] {targets.get(key), next.get(key)}) {
+                if (target == null) {
+                    continue;
+                }
+                labels.add(target.normalized);
+                for (String token : tokenize(target.text)) {
+                    for (int length = 1; length <= token.length(); length++) {
+                        prefixes.add(token.substring(0, length));
+                    }
+                }
+            }
+        }
+        return new HotelSuggestIndex(mergedTokens, mergedKeys, next, this, labels, prefixes);
+    }
+
+    /**
+     * Best matches for the prefix, at most {@link #MAX_LIMIT} of them.
+     */
+    public List<HotelSuggestion> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<Ranked> candidates = new ArrayList<>();
+        Ranked[] precomputed = topByPrefix.get(prefix);
+        if (precomputed != null) {
+            candidates.addAll(Arrays.asList(precomputed));
+        } else {
+            // Not precomputed, so the range is at most the scan limit
+            int from = lowerBound(prefix);
+            int to = from;
+            while (to < tokens.length && tokens[to].startsWith(prefix)) {
+                to++;
+            }
+            candidates.addAll(Arrays.asList(scan(from, to)));
+        }
+        // A whole-label match outranks every other match of its target
+        candidates.addAll(Arrays.asList(byLabel.getOrDefault(prefix, new Ranked[0])));
+
+        Ranked[] best = best(candidates);
+        List<HotelSuggestion> result = new ArrayList<>(Math.min(limit, best.length));
+        for (int i = 0; i < best.length && i < limit; i++) {
+            result.add(best[i].target().toSuggestion());
+        }
+        return result;
+    }
+
+    public int size() {
+        return targets.size();
+    }
+
+    int precomputedPrefixes() {
+        return topByPrefix.size();
+    }
+
+    // Best targets of postings [from, to), all sharing their first depth characters; records
+    // the result for each prefix whose range is too long to scan at query time
+    private Ranked[] collect(int from, int to, int depth) {
+        if (to - from <= scanLimit) {
+            return scan(from, to);
+        }
+        List<Ranked> merged = new ArrayList<>();
+        // Tokens equal to the prefix sort first; the rest split by their next character
+        int i = from;
+        while (i < to && tokens[i].length() == depth) {
+            i++;
+        }
+        merged.addAll(Arrays.asList(scan(from, i)));
+        while (i < to) {
+            int end = endOfGroup(i, to, depth);
+            merged.addAll(Arrays.asList(collect(i, end, depth + 1)));
+            i = end;
+        }
+        Ranked[] best = best(merged);
+        if (depth > 0) {
+            topByPrefix.put(tokens[from].substring(0, depth), best);
+        }
+        return best;
+    }
+
+    // Like collect, but takes each long child range from what is already recorded for it
+    private Ranked[] merge(int from, int to, int depth) {
+        List<Ranked> merged = new ArrayList<>();
+        int i = from;
+        while (i < to && tokens[i].length() == depth) {
+            i++;
+        }
+        merged.addAll(Arrays.asList(scan(from, i)));
+        while (i < to) {
+            int end = endOfGroup(i, to, depth);
+            Ranked[] child = end - i > scanLimit ? topByPrefix.get(tokens[i].substring(0, depth + 1)) : null;
+            merged.addAll(Arrays.asList(child != null ? child : collect(i, end, depth + 1)));
+            i = end;
+        }
+        return best(merged);
+    }
+
+    // First index in (from, to) whose character at depth differs from tokens[from]'s
+    private int endOfGroup(int from, int to, int depth) {
+        char c = tokens[from].charAt(depth);
+        int low = from + 1;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].charAt(depth) == c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // A posting matches as a label prefix when its token is the whole label, otherwise as a word prefix
+    private Ranked[] scan(int from, int to) {
+        List<Ranked> matches = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Target target = targets.get(keys[i]);
+            matches.add(new Ranked(target, target.normalized.equals(tokens[i]) ? 2 : 1));
+        }
+        // Postings of one token name each target once
+        return from < to && tokens[from].equals(tokens[to - 1]) ? top(matches) : best(matches);
+    }
+
+    // Distinct targets at their best quality, best first, at most MAX_LIMIT
+    private static Ranked[] best(List<Ranked> candidates) {
+        Map<String, Ranked> distinct = new HashMap<>(candidates.size() * 2);
+        for (Ranked candidate : candidates) {
+            distinct.merge(candidate.target().key, candidate, (a, b) -> a.quality() >= b.quality() ? a : b);
+        }
+        return top(distinct.values());
+    }
+
+    // Best first, at most MAX_LIMIT, of candidates that are already distinct
+    private static Ranked[] top(Collection<Ranked> candidates) {
+        // Bounded heap with the worst kept candidate on top
+        PriorityQueue<Ranked> kept = new PriorityQueue<>(MAX_LIMIT + 1, Ranked.BEST_FIRST.reversed());
+        for (Ranked candidate : candidates) {
+            if (kept.size() < MAX_LIMIT) {
+                kept.add(candidate);
+            } else if (Ranked.BEST_FIRST.compare(candidate, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(candidate);
+            }
+        }
+        Ranked[] best = new Ranked[kept.size()];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = kept.poll();
+        }
+        return best;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(String tokenA, String keyA, String tokenB, String keyB) {
+        int cmp = tokenA.compareTo(tokenB);
+        return cmp != 0 ? cmp : keyA.compareTo(keyB);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase().trim()).replaceAll(" ");
+    }
+
+    // Word-start suffixes of the normalized label
+    private static Set<String> tokenize(String text) {
+        String normalized = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        tokens.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            tokens.add(normalized.substring(i + 1));
+        }
+        return tokens;
+    }
+
+    private static List<Target> targetsOf(HotelView hotel) {
+        List<Target> result = new ArrayList<>(3);
+        if (hotel.name() != null && !hotel.name().isBlank()) {
+            String where = join(hotel.city(), hotel.country());
+            result.add(new Target("hotel:" + hotel.id(), "hotel", hotel.name(), where, hotel.id(),
+                    hotel.rating() != null ? hotel.rating() : 0, 1));
+        }
+        if (hotel.city() != null && !hotel.city().isBlank()) {
+            result.add(new Target("city:" + normalize(hotel.city()), "city", hotel.city(), hotel.country(), null, 0, 1));
+        }
+        if (hotel.country() != null && !hotel.country().isBlank()) {
+            result.add(new Target("country:" + normalize(hotel.country()), "country", hotel.country(), null, null, 0, 1));
+        }
+        return result;
+    }
+
+    private static String join(String city, String country) {
+        if (city == null || city.isBlank()) {
+            return country;
+        }
+        return country == null || country.isBlank() || city.equalsIgnoreCase(country) ? city : city + ", " + country;
+    }
+
+    private record Ranked(Target target, int quality) {
+
+        static final Comparator<Ranked> BEST_FIRST = Comparator.<Ranked>comparingInt(r -> -r.quality)
+                .thenComparingDouble(r -> -r.target.weight())
+                .thenComparing(r -> r.target.text)
+                .thenComparing(r -> r.target.key);
+    }
+
+    // Something a query can resolve to; cities and countries count the hotels behind them
+    private static final class Target {
+        final String key;
+        final String type;
+        final String text;
+        final String normalized;
+        final String detail;
+        final Long hotelId;
+        final double rating;
+        final int hotels;
+
+        Target(String key, String type, String text, String detail, Long hotelId, double rating, int hotels) {
+            this.key = key;
+            this.type = type;
+            this.text = text;
+            this.normalized = normalize(text);
+            this.detail = detail;
+            this.hotelId = hotelId;
+            this.rating = rating;
+            this.hotels = hotels;
+        }
+
+        double weight() {
+            return hotelId != null ? rating / 5.0 : hotels;
+        }
+
+        Target plus(Target other) {
+            return hotelId != null ? other : new Target(key, type, text, detail, null, 0, hotels + other.hotels);
+        }
+
+        Target minus(Target other) {
+            return hotelId != null || hotels <= other.hotels
+                    ? null
+                    : new Target(key, type, text, detail, null, 0, hotels - other.hotels);
+        }
+
+        HotelSuggestion toSuggestion() {
+            return new HotelSuggestion(type, text, detail, hotelId);
+        }
+    }
+}
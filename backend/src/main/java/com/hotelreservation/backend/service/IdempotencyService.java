@@ -0,0 +1,237 @@
+package com.hotelreservation.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.IdempotencyRecord;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. Recent keys are answered
+ * from memory, and concurrent duplicates wait on the first execution instead of
+ * starting their own. Older keys, and keys first seen on another node, are
+ * answered from the idempotency_keys table. Its unique (scope, key) row is
+ * claimed before the work runs.
+ *
+ * Server errors are not remembered, so the client's retry runs the work again.
+ * A claim whose node died before completing it blocks retries with 409 only
+ * until the claim lease (app.idempotency.claim-lease-ms, longer than any
+ * request runs) expires; the next retry then takes the key over and runs.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, InFlight> recent = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotency.hot-ttl-ms:300000}")
+    private long hotTtlMillis = 300_000;
+
+    @Value("${app.idempotency.retention-hours:24}")
+    private long retentionHours = 24;
+
+    @Value("${app.idempotency.claim-lease-ms:60000}")
+    private long claimLeaseMillis = 60_000;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BookingException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request);
+        String recentKey = scope + "|" + key;
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>(), System.currentTimeMillis());
+        InFlight existing = recent.putIfAbsent(recentKey, mine);
+        if (existing != null) {
+            requireSameRequest(existing.requestHash(), requestHash);
+            return replay(await(existing.result()));
+        }
+
+        try {
+            Outcome outcome = run(scope, key, requestHash, action);
+            mine.result().complete(outcome.stored());
+            if (!outcome.stored().durable()) {
+                recent.remove(recentKey, mine);
+            }
+            return outcome.original() != null ? outcome.original() : replay(outcome.stored());
+        } catch (RuntimeException e) {
+            recent.remove(recentKey, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Outcome run(String scope, String key, String requestHash, Supplier<ResponseEntity<?>> action) {
+        Claim claim = claim(scope, key, requestHash);
+        if (claim.earlier() != null) {
+            return new Outcome(null, claim.earlier());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(claim);
+            throw e;
+        }
+
+        Stored stored = new Stored(response.getStatusCode().value(), serialize(response.getBody()));
+        if (stored.durable()) {
+            int completed = transactionTemplate.execute(status ->
+                    repository.complete(claim.id(), claim.claimedAt(), stored.status(), stored.body()));
+            if (completed == 0) {
+                logger.warn("Idempotency key {} was taken over before its request finished", key);
+            }
+        } else {
+            release(claim);
+        }
+        return new Outcome(response, stored);
+    }
+
+    // Either what an earlier execution stored, or a claim on the key that this call now holds
+    private Claim claim(String scope, String key, String requestHash) {
+        Optional<IdempotencyRecord> existing = repository.findByScopeAndIdempotencyKey(scope, key);
+        if (existing.isPresent()) {
+            return resume(existing.get(), requestHash);
+        }
+        // Losing the insert means another node got there first
+        try {
+            IdempotencyRecord created = repository.saveAndFlush(new IdempotencyRecord(scope, key, requestHash));
+            return new Claim(created.getId(), created.getClaimedAt(), null);
+        } catch (DataIntegrityViolationException e) {
+            return resume(repository.findByScopeAndIdempotencyKey(scope, key).orElseThrow(() -> e), requestHash);
+        }
+    }
+
+    private Claim resume(IdempotencyRecord record, String requestHash) {
+        requireSameRequest(record.getRequestHash(), requestHash);
+        if (record.getResponseStatus() != null) {
+            return new Claim(null, null, new Stored(record.getResponseStatus(), record.getResponseBody()));
+        }
+        // Still within its lease the claimant may be running; past it, it is presumed dead
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime staleBefore = now.minus(claimLeaseMillis, ChronoUnit.MILLIS);
+        int taken = transactionTemplate.execute(status -> repository.takeOver(record.getId(), staleBefore, now));
+        if (taken == 0) {
+            throw new BookingException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        }
+        logger.warn("Took over idempotency key {} abandoned since {}", record.getIdempotencyKey(),
+                record.getClaimedAt() != null ? record.getClaimedAt() : record.getCreatedAt());
+        return new Claim(record.getId(), now, null);
+    }
+
+    private void release(Claim claim) {
+        transactionTemplate.executeWithoutResult(status -> repository.release(claim.id(), claim.claimedAt()));
+    }
+
+    // Drops recent keys from memory once they are old enough to be served from the table
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:60000}",
+               initialDelayString = "${app.idempotency.sweep-interval-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - hotTtlMillis;
+        recent.values().removeIf(entry -> entry.createdAt() < cutoff && entry.result().isDone());
+        int deleted = transactionTemplate.execute(status ->
+                repository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours)));
+        if (deleted > 0) {
+            logger.info("Removed {} expired idempotency keys", deleted);
+        }
+    }
+
+    private static void requireSameRequest(String expectedHash, String actualHash) {
+        if (!expectedHash.equals(actualHash)) {
+            throw new BookingException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private static Stored await(CompletableFuture<Stored> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ResponseEntity<byte[]> replay(Stored stored) {
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body() != null ? stored.body().getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to fingerprint request", e);
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body != null ? objectMapper.writeValueAsString(body) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to store response", e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<Stored> result, long createdAt) {
+    }
+
+    private record Outcome(ResponseEntity<?> original, Stored stored) {
+    }
+
+    private record Claim(Long id, LocalDateTime claimedAt, Stored earlier) {
+    }
+
+    private record Stored(int status, String body) {
+        // Server-side failures and load shedding are worth retrying for real
+        boolean durable() {
+            return status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.RoomInventory;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.repository.RoomInventoryRepository;
+import com.hotelreservation.backend.util.NightBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-night room-type inventory in the room_inventory table. Taking a stay is a
+ * single conditional bulk UPDATE across its nights; if fewer rows than nights were
+ * updated the type is sold out and the caller's transaction rolls back.
+ *
+ * Ledger rows are materialized lazily per (hotel, room type) from the
+ * availability index the first time a night is touched, in a transaction that
+ * commits before the booking's decrement runs, and dropped again when the
+ * hotel's rooms of that type change.
+ */
+@Service
+public class InventoryLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+    private static final int MATERIALIZE_ATTEMPTS = 3;
+
+    private final RoomInventoryRepository inventoryRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate newTransaction;
+
+    // Nights known to have ledger rows, per hotel and room type
+    private final Map<String, NightBitmap> materialized = new ConcurrentHashMap<>();
+
+    @Value("${app.inventory.materialize-days:60}")
+    private int materializeDays = 60;
+
+    public InventoryLedger(RoomInventoryRepository inventoryRepository,
+                           AvailabilityIndex availabilityIndex,
+                           PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes one room of the type for every night of the stay. Must run inside the
+     * booking transaction so a later failure gives the inventory back.
+     */
+    public void reserve(Long hotelId, String roomType, LocalDate checkIn, LocalDate checkOut) {
+        ensureMaterialized(hotelId, roomType, checkIn, checkOut);
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        int taken = inventoryRepository.decrement(hotelId, roomType, checkIn, checkOut);
+        if (taken != nights) {
+            throw new BookingException(HttpStatus.CONFLICT,
+                    "No " + roomType + " rooms left for the selected dates");
+        }
+    }
+
+    public void release(Long hotelId, String roomType, LocalDate checkIn, LocalDate checkOut) {
+        inventoryRepository.increment(hotelId, roomType, checkIn, checkOut);
+    }
+
+    /**
+     * Drops the ledger rows from today on after rooms of the type were added,
+     * removed or changed; they are rebuilt from the availability index on next use.
+     */
+    public void invalidate(Long hotelId, String roomType) {
+        if (hotelId == null || roomType == null) {
+            return;
+        }
+        materialized.remove(key(hotelId, roomType));
+        newTransaction.executeWithoutResult(status ->
+                inventoryRepository.deleteFrom(hotelId, roomType, LocalDate.now()));
+    }
+
+    private void ensureMaterialized(Long hotelId, String roomType, LocalDate checkIn, LocalDate checkOut) {
+        NightBitmap known = materialized.computeIfAbsent(key(hotelId, roomType), k -> new NightBitmap());
+        // One materializer per type on this node; other nodes are caught by the unique key
+        synchronized (known) {
+            if (known.isAllSet(checkIn.toEpochDay(), checkOut.toEpochDay())) {
+                return;
+            }
+
+            // Materialize a window past the stay so the following bookings skip this step
+            LocalDate to = checkOut.isAfter(checkIn.plusDays(materializeDays)) ? checkOut : checkIn.plusDays(materializeDays);
+            for (int attempt = 1; !insertMissing(hotelId, roomType, checkIn, to); attempt++) {
+                if (attempt >= MATERIALIZE_ATTEMPTS) {
+                    throw new BookingException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Inventory is being prepared, please retry the booking");
+                }
+            }
+            // Only nights whose rows are committed count as known; the decrement relies on them
+            known.set(checkIn.toEpochDay(), to.toEpochDay());
+        }
+    }
+
+    /**
+     * Inserts the ledger rows missing in [from, to) in a committed transaction of its
+     * own. Returns false if another writer inserted some of them first: the whole
+     * batch rolled back, so the caller re-reads and fills in what is still missing.
+     */
+    private boolean insertMissing(Long hotelId, String roomType, LocalDate from, LocalDate to) {
+        int[] free = availabilityIndex.countFreeRooms(hotelId, roomType, from, to);
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                Set<LocalDate> existing = new HashSet<>(inventoryRepository.findNights(hotelId, roomType, from, to));
+                List<RoomInventory> missing = new ArrayList<>();
+                for (int i = 0; i < free.length; i++) {
+                    LocalDate night = from.plusDays(i);
+                    if (!existing.contains(night)) {
+                        missing.add(new RoomInventory(hotelId, roomType, night, free[i]));
+                    }
+                }
+                inventoryRepository.saveAll(missing);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Inventory for hotel {} {} materialized concurrently, re-reading", hotelId, roomType);
+            return false;
+        }
+    }
+
+    private static String key(Long hotelId, String roomType) {
+        return hotelId + "|" + roomType;
+    }
+}
@@ -0,0 +1,419 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.LoyaltyBalance;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind loyalty points. Bookings add point deltas to per-customer
+ * LongAdders instead of updating the customer row; the deltas are written back
+ * with one batched UPDATE per flush, every app.loyalty.flush-interval-ms or as
+ * soon as app.loyalty.flush-threshold customers have pending points.
+ *
+ * Every delta is also appended to a journal segment on disk before it counts;
+ * if the append fails, the delta is written straight to the customer row
+ * instead (any failure of that write propagates) and a fresh segment replaces
+ * the failed one. A flush closes the current segment and applies it in one
+ * transaction together with a
+ * {@link com.hotelreservation.backend.entity.LoyaltyFlush} marker, then deletes
+ * the file. On startup, segments left behind by a crash are replayed unless
+ * their marker shows they were already applied.
+ */
+@Service
+public class LoyaltyEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoyaltyEngine.class);
+
+    private static final int RECORD_BYTES = 16;
+    private static final String SEGMENT_PREFIX = "loyalty-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ADD_POINTS =
+            "UPDATE customers SET loyalty_points = loyalty_points + ? WHERE cust_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path journalDir;
+    private final int flushThreshold;
+    private final double pointsPerUnit;
+
+    // Accruals share the read side; swapping in a new segment takes the write side
+    private final ReadWriteLock rotation = new ReentrantReadWriteLock();
+    // Balance reads share the read side; rotating a segment or committing its flush takes the write side
+    private final ReadWriteLock view = new ReentrantReadWriteLock();
+    private final Deque<Segment> closed = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ExecutorService flusher;
+    private volatile Segment active;
+
+    @Value("${app.loyalty.marker-retention-days:7}")
+    private long markerRetentionDays = 7;
+
+    public LoyaltyEngine(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.loyalty.journal-dir:${java.io.tmpdir}/stavia-loyalty}") String journalDir,
+                         @Value("${app.loyalty.flush-threshold:1000}") int flushThreshold,
+                         @Value("${app.loyalty.points-per-unit:1.0}") double pointsPerUnit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journalDir = Paths.get(journalDir);
+        this.flushThreshold = flushThreshold;
+        this.pointsPerUnit = pointsPerUnit;
+        this.flusher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "loyalty-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("loyalty.pending.customers", this,
+                        engine -> engine.active != null ? engine.active.deltas.size() : 0)
+                .description("Customers with loyalty points not yet written back")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(journalDir);
+        recover();
+        active = Segment.open(journalDir);
+    }
+
+    /**
+     * Points earned for a stay of the given price.
+     */
+    public long pointsFor(double totalPrice) {
+        return (long) Math.floor(totalPrice * pointsPerUnit);
+    }
+
+    /**
+     * Adds points to a customer's balance. Inside a transaction the points only
+     * count once it commits, so a rolled-back booking earns nothing.
+     */
+    public void accrue(Long customerId, long points) {
+        if (customerId == null || points == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(customerId, points);
+                }
+            });
+        } else {
+            record(customerId, points);
+        }
+    }
+
+    /**
+     * Stored balance plus unflushed deltas, or empty if the customer does not exist.
+     */
+    public Optional<LoyaltyBalance> balance(Long customerId) {
+        view.readLock().lock();
+        try {
+            Long stored;
+            try {
+                stored = jdbcTemplate.queryForObject(
+                        "SELECT loyalty_points FROM customers WHERE cust_id = ?", Long.class, customerId);
+            } catch (EmptyResultDataAccessException e) {
+                return Optional.empty();
+            }
+            long pending = active.pending(customerId);
+            for (Segment segment : closed) {
+                pending += segment.pending(customerId);
+            }
+            return Optional.of(new LoyaltyBalance(customerId, (stored != null ? stored : 0) + pending, pending));
+        } finally {
+            view.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes all pending points back. Returns the number of segments applied.
+     */
+    @Scheduled(fixedDelayString = "${app.loyalty.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        if (!active.deltas.isEmpty()) {
+            rotate();
+        }
+        int applied = 0;
+        for (Segment segment = closed.peek(); segment != null; segment = closed.peek()) {
+            if (!apply(segment)) {
+                break; // kept on disk and in memory; the next flush tries again
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    private void record(Long customerId, long points) {
+        int pendingCustomers;
+        Segment broken = null;
+        rotation.readLock().lock();
+        try {
+            Segment segment = active;
+            try {
+                segment.append(customerId, points);
+                segment.deltas.computeIfAbsent(customerId, id -> new LongAdder()).add(points);
+            } catch (UncheckedIOException e) {
+                logger.error("Could not journal {} loyalty points for customer {}, writing them through",
+                        points, customerId, e);
+                broken = segment;
+            }
+            pendingCustomers = segment.deltas.size();
+        } finally {
+            rotation.readLock().unlock();
+        }
+
+        if (broken != null) {
+            // Unjournaled points must not sit in memory where a crash would lose them
+            retire(broken);
+            jdbcTemplate.update(ADD_POINTS, points, customerId);
+            return;
+        }
+
+        if (pendingCustomers >= flushThreshold && flushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+    }
+
+    // A segment that failed a write may end in a torn record; later points go to a fresh file
+    private synchronized void retire(Segment broken) {
+        if (active != broken) {
+            return;
+        }
+        try {
+            rotate();
+        } catch (UncheckedIOException e) {
+            logger.error("Could not replace the failed loyalty journal segment", e);
+        }
+    }
+
+    private void rotate() {
+        Segment fresh = Segment.open(journalDir);
+        Segment previous;
+        // Swapped and queued in one step under the view lock, so a balance read sees the
+        // segment's deltas exactly once
+        view.writeLock().lock();
+        try {
+            rotation.writeLock().lock();
+            try {
+                previous = active;
+                active = fresh;
+            } finally {
+                rotation.writeLock().unlock();
+            }
+            closed.add(previous);
+        } finally {
+            view.writeLock().unlock();
+        }
+        previous.close();
+    }
+
+    private boolean apply(Segment segment) {
+        List<Object[]> updates = new ArrayList<>();
+        segment.deltas.forEach((customerId, delta) -> {
+            long points = delta.sum();
+            if (points != 0) {
+                updates.add(new Object[]{points, customerId});
+            }
+        });
+
+        view.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO loyalty_flushes (segment, flushed_at) VALUES (?, ?)",
+                        segment.id, Timestamp.valueOf(LocalDateTime.now()));
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(ADD_POINTS, updates);
+                }
+            });
+            closed.remove(segment);
+        } catch (RuntimeException e) {
+            logger.warn("Loyalty flush of segment {} failed, will retry: {}", segment.id, e.getMessage());
+            return false;
+        } finally {
+            view.writeLock().unlock();
+        }
+
+        segment.delete();
+        logger.debug("Flushed loyalty points for {} customers from segment {}", updates.size(), segment.id);
+        return true;
+    }
+
+    // Segments still on disk were never deleted after their flush, or never flushed at all
+    private void recover() throws IOException {
+        int replayed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                Segment segment = Segment.recover(file);
+                if (segment == null) {
+                    continue; // still being written by a live engine sharing this directory
+                }
+                Integer markers = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM loyalty_flushes WHERE segment = ?", Integer.class, segment.id);
+                if (markers != null && markers > 0) {
+                    segment.delete();
+                } else if (apply(segment)) {
+                    replayed++;
+                } else {
+                    throw new IllegalStateException("Could not replay loyalty journal segment " + file);
+                }
+            }
+        }
+        if (replayed > 0) {
+            logger.info("Replayed {} loyalty journal segments left from an earlier run", replayed);
+        }
+        jdbcTemplate.update("DELETE FROM loyalty_flushes WHERE flushed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(markerRetentionDays)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        flush();
+        active.close();
+        if (active.deltas.isEmpty()) {
+            active.delete();
+        }
+    }
+
+    /**
+     * One journal file and the deltas it holds. Records are a customer id and a
+     * point delta, sixteen bytes each; a torn record at the end of a crashed file
+     * is ignored.
+     */
+    private static final class Segment {
+        private final String id;
+        private final Path path;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final Map<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+
+        private Segment(String id, Path path, FileChannel channel, FileLock lock) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        static Segment open(Path dir) {
+            String id = UUID.randomUUID().toString();
+            Path path = dir.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                return new Segment(id, path, channel, channel.lock());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open loyalty journal " + path, e);
+            }
+        }
+
+        // Null if another engine holds the file
+        static Segment recover(Path path) throws IOException {
+            String name = path.getFileName().toString();
+            String id = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock;
+                try {
+                    lock = channel.tryLock();
+                } catch (OverlappingFileLockException e) {
+                    return null;
+                }
+                if (lock == null) {
+                    return null;
+                }
+                Segment segment = new Segment(id, path, null, null);
+                ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() / RECORD_BYTES) * RECORD_BYTES);
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // read until the whole records are in
+                }
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    segment.deltas.computeIfAbsent(buffer.getLong(), c -> new LongAdder()).add(buffer.getLong());
+                }
+                lock.release();
+                return segment;
+            }
+        }
+
+        void append(Long customerId, long points) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).putLong(customerId).putLong(points).flip();
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long pending(Long customerId) {
+            LongAdder delta = deltas.get(customerId);
+            return delta != null ? delta.sum() : 0;
+        }
+
+        void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close loyalty journal {}: {}", path, e.getMessage());
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete loyalty journal {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.hotelreservation.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository stream as newline-delimited JSON, one row per line, while
+ * the rows are still being read. Each row is detached once written and the
+ * persistence context is cleared every batch, so memory stays flat however
+ * large the table is.
+ */
+@Service
+public class NdjsonExporter {
+
+    private static final byte NEWLINE = '\n';
+
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnly;
+
+    @Value("${app.export.flush-every:500}")
+    private int flushEvery = 500;
+
+    public NdjsonExporter(EntityManager entityManager, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer();
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody export(Supplier<Stream<T>> source) {
+        return export(source, Function.identity());
+    }
+
+    /**
+     * The stream is opened on the thread that writes the response, inside its own
+     * read-only transaction that stays open until the last row is written.
+     */
+    public <T> StreamingResponseBody export(Supplier<Stream<T>> source, Function<? super T, ?> view) {
+        return out -> write(source, view, out);
+    }
+
+    public <T> long write(Supplier<Stream<T>> source, Function<? super T, ?> view, OutputStream out) {
+        Long written = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<T> rows = source.get()) {
+                for (T row : (Iterable<T>) rows::iterator) {
+                    out.write(writer.writeValueAsBytes(view.apply(row)));
+                    out.write(NEWLINE);
+                    if (row.getClass().isAnnotationPresent(Entity.class)) {
+                        entityManager.detach(row);
+                    }
+                    if (++count % flushEvery == 0) {
+                        // Associations loaded for the batch are dropped along with it
+                        entityManager.clear();
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        return written != null ? written : 0;
+    }
+}
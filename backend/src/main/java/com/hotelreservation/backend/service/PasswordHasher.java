@@ -0,0 +1,136 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead for BCrypt. Hashing runs on a fixed pool sized to the cores with a
+ * short bounded queue, so a login burst can use at most that much CPU; work
+ * beyond the queue is refused at once with {@link ServiceBusyException}
+ * instead of pinning request threads that catalog reads need.
+ *
+ * The work factor is app.auth.bcrypt-strength. Hashes stored at any other
+ * cost are re-hashed on the next successful login.
+ *
+ * The calling request thread still waits for the result, up to
+ * app.auth.hash-timeout-ms; what the bulkhead bounds is how many such waits
+ * (pool plus queue) can exist at once, not the wait itself. A timed-out hash
+ * is not stopped either: BCrypt never checks for interruption, so it keeps
+ * its hashing thread until it finishes and the timeout only frees the caller.
+ */
+@Service
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final int strength;
+
+    @Value("${app.auth.hash-timeout-ms:5000}")
+    private long timeoutMillis = 5000;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.bcrypt-strength:10}") int strength,
+                          @Value("${app.auth.hash-threads:0}") int threads,
+                          @Value("${app.auth.hash-queue:32}") int queueSize) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rejected = Counter.builder("auth.hash.rejected")
+                .description("Password hashing requests refused because the bulkhead was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.hash.queue", executor, e -> e.getQueue().size())
+                .description("Password hashing requests waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks the password and, if it matches a hash stored at a different cost,
+     * computes the replacement hash in the same task.
+     */
+    public Verification verify(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            if (encodedPassword == null || !passwordEncoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, needsRehash(encodedPassword) ? passwordEncoder.encode(rawPassword) : null);
+        });
+    }
+
+    boolean needsRehash(String encodedPassword) {
+        // $2a$10$... : the two digits after the version are the cost
+        String[] parts = encodedPassword.split("\\$");
+        try {
+            return parts.length < 4 || Integer.parseInt(parts[2]) != strength;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private <T> T submit(Callable<T> work) {
+        Future<T> result;
+        try {
+            result = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many sign-in attempts right now, please retry shortly");
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Dequeues the task if it has not started; a running BCrypt ignores the interrupt
+            result.cancel(true);
+            throw new ServiceBusyException("Sign-in is taking too long right now, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Sign-in was interrupted, please retry");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * upgradedHash is set only when the password matched and its stored hash
+     * should be replaced.
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+}
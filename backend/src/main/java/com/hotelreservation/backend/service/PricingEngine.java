@@ -0,0 +1,530 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import com.hotelreservation.backend.dto.RoomTypeRates;
+import com.hotelreservation.backend.entity.RatePlan;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.entity.listener.RatesChangedEvent;
+import com.hotelreservation.backend.entity.listener.RoomsChangedEvent;
+import com.hotelreservation.backend.repository.RatePlanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Server-side nightly pricing. A night costs the room's base price times the
+ * multiplier of its hotel's {@link RatePlan} for that night.
+ *
+ * Multipliers are materialized per hotel and room type into a double[]
+ * calendar covering app.pricing.horizon-days from today, so quoting a stay is a
+ * sum over a slice of the array. Calendars are replaced, never mutated: rate
+ * plan and room changes drop a hotel's calendars, and booking events from the
+ * {@link BookingEventBus} recompute the booked nights of types whose plan has
+ * occupancy tiers. Occupancy-based prices therefore follow bookings with the
+ * bus's delay. Nights outside the calendar are computed on the spot.
+ *
+ * At most app.pricing.max-cached-hotels hotels' rules and
+ * app.pricing.max-calendars calendars are kept; past either cap an arbitrary
+ * entry is dropped and rebuilt on its next use. Searches over many hotels
+ * price through a {@link StayPricer}, which loads the rules it lacks in bulk
+ * up front and never builds a calendar.
+ *
+ * Each hotel has a generation, bumped before its cached rules and calendars
+ * are dropped. A build puts its result, then takes it back out if the
+ * generation moved meanwhile, so a build that read the old plans cannot land
+ * after the eviction and outlive it.
+ */
+@Service
+public class PricingEngine implements BookingEventSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingEngine.class);
+
+    // Hotels share generation slots; a collision only costs a discarded build
+    private static final int GENERATION_SLOTS = 64;
+    // Hotel ids per rate plan query when loading rules in bulk
+    private static final int LOAD_BATCH = 500;
+
+    private final RatePlanRepository ratePlanRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonDays;
+    private final int maxCachedHotels;
+    private final int maxCalendars;
+    private final Map<Long, HotelRules> rulesByHotel = new ConcurrentHashMap<>();
+    private final Map<CalendarKey, RateCalendar> calendars = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+    private final Counter calendarBuilds;
+
+    public PricingEngine(RatePlanRepository ratePlanRepository,
+                         AvailabilityIndex availabilityIndex,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.pricing.horizon-days:365}") int horizonDays,
+                         @Value("${app.pricing.max-cached-hotels:10000}") int maxCachedHotels,
+                         @Value("${app.pricing.max-calendars:20000}") int maxCalendars) {
+        this.ratePlanRepository = ratePlanRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.horizonDays = Math.max(1, horizonDays);
+        this.maxCachedHotels = Math.max(1, maxCachedHotels);
+        this.maxCalendars = Math.max(1, maxCalendars);
+        this.calendarBuilds = Counter.builder("pricing.calendar.builds")
+                .description("Rate calendars materialized for a hotel's room type")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Total price of the room for the nights in [checkIn, checkOut).
+     */
+    public double quote(Room room, LocalDate checkIn, LocalDate checkOut) {
+        return quote(room.getHotel() != null ? room.getHotel().getId() : null, room.getRoomType(),
+                room.getPricePerNight(), checkIn, checkOut);
+    }
+
+    public double quote(Long hotelId, String roomType, double pricePerNight, LocalDate checkIn, LocalDate checkOut) {
+        return roundCents(pricePerNight * multiplierSum(hotelId, roomType, checkIn.toEpochDay(),
+                checkOut.toEpochDay()));
+    }
+
+    /**
+     * Pricer for a search over these hotels. Rules that are not cached are read
+     * here, LOAD_BATCH hotels per query, so the pricer itself does not touch the
+     * database for them and can be shared by the search's worker threads.
+     */
+    public StayPricer stayPricer(Collection<Long> hotelIds) {
+        Map<Long, HotelRules> rules = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long hotelId : new LinkedHashSet<>(hotelIds)) {
+            HotelRules cached = rulesByHotel.get(hotelId);
+            if (cached != null) {
+                rules.put(hotelId, cached);
+            } else if (hotelId != null) {
+                missing.add(hotelId);
+            }
+        }
+        for (int i = 0; i < missing.size(); i += LOAD_BATCH) {
+            List<Long> batch = missing.subList(i, Math.min(missing.size(), i + LOAD_BATCH));
+            long[] before = new long[batch.size()];
+            for (int j = 0; j < before.length; j++) {
+                before[j] = generations.get(slot(batch.get(j)));
+            }
+            Map<Long, HotelRules> loaded = transactionTemplate.execute(status -> {
+                Map<Long, List<RatePlan>> plansByHotel = new HashMap<>();
+                for (RatePlan plan : ratePlanRepository.findByHotelIdIn(batch)) {
+                    plansByHotel.computeIfAbsent(plan.getHotel().getId(), id -> new ArrayList<>()).add(plan);
+                }
+                Map<Long, HotelRules> built = new HashMap<>();
+                for (Long hotelId : batch) {
+                    built.put(hotelId, HotelRules.of(plansByHotel.getOrDefault(hotelId, List.of())));
+                }
+                return built;
+            });
+            for (int j = 0; j < before.length; j++) {
+                Long hotelId = batch.get(j);
+                rules.put(hotelId, loaded.get(hotelId));
+                cacheRules(hotelId, loaded.get(hotelId), before[j]);
+            }
+        }
+        return new StayPricer(rules);
+    }
+
+    /**
+     * Nightly rates of each of the hotel's room types for [from, to), cheapest type first.
+     */
+    public List<RoomTypeRates> rates(Long hotelId, LocalDate from, LocalDate to) {
+        Map<String, Double> basePrices = new LinkedHashMap<>();
+        for (AvailabilityIndex.RoomSlot slot : availabilityIndex.findRooms(hotelId)) {
+            basePrices.putIfAbsent(slot.getRoomType(), slot.getPricePerNight());
+        }
+
+        List<RoomTypeRates> rates = new ArrayList<>(basePrices.size());
+        basePrices.forEach((roomType, basePrice) -> {
+            double[] multipliers = nightlyMultipliers(hotelId, roomType, from, to);
+            List<RoomTypeRates.NightlyRate> nights = new ArrayList<>(multipliers.length);
+            double sum = 0;
+            for (int i = 0; i < multipliers.length; i++) {
+                nights.add(new RoomTypeRates.NightlyRate(from.plusDays(i), roundCents(basePrice * multipliers[i])));
+                sum += multipliers[i];
+            }
+            rates.add(new RoomTypeRates(roomType, basePrice, nights, roundCents(basePrice * sum)));
+        });
+        return rates;
+    }
+
+    /**
+     * Multiplier of each night in [from, to) for the room type, read from its rate
+     * calendar where the calendar covers the night. A night costs the base price
+     * times its multiplier. The range may span at most {@link #maxRangeDays()} nights.
+     */
+    public double[] nightlyMultipliers(Long hotelId, String roomType, LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        if (last - first > horizonDays) {
+            throw new IllegalArgumentException("Rates cover at most " + horizonDays + " nights at a time");
+        }
+        if (hotelId == null) {
+            double[] flat = new double[(int) (last - first)];
+            Arrays.fill(flat, 1.0);
+            return flat;
+        }
+        RateCalendar calendar = calendar(hotelId, roomType);
+        if (first >= calendar.startDay && last <= calendar.endDay()) {
+            int offset = (int) (first - calendar.startDay);
+            return Arrays.copyOfRange(calendar.multipliers, offset, offset + (int) (last - first));
+        }
+        double[] multipliers = new double[(int) (last - first)];
+        long day = first;
+        while (day < last) {
+            long stop;
+            if (day >= calendar.startDay && day < calendar.endDay()) {
+                stop = Math.min(last, calendar.endDay());
+                System.arraycopy(calendar.multipliers, (int) (day - calendar.startDay),
+                        multipliers, (int) (day - first), (int) (stop - day));
+            } else {
+                stop = day < calendar.startDay ? Math.min(last, calendar.startDay) : last;
+                System.arraycopy(multipliers(hotelId, roomType, day, stop), 0,
+                        multipliers, (int) (day - first), (int) (stop - day));
+            }
+            day = stop;
+        }
+        return multipliers;
+    }
+
+    public int maxRangeDays() {
+        return horizonDays;
+    }
+
+    @Override
+    public String name() {
+        return "pricing";
+    }
+
+    // Bookings change occupancy, which only matters to types with occupancy tiers
+    @Override
+    public void onEvent(BookingEvent event) {
+        if (event.hotelId() == null) {
+            return;
+        }
+        availabilityIndex.find(event.roomId()).ifPresent(slot -> {
+            CalendarKey key = new CalendarKey(event.hotelId(), slot.getRoomType());
+            RateCalendar current = calendars.get(key);
+            Rules rules = rules(event.hotelId()).forType(slot.getRoomType());
+            if (current == null || rules.tierMin.length == 0) {
+                return;
+            }
+            long from = Math.max(event.checkIn().toEpochDay(), current.startDay);
+            long to = Math.min(event.checkOut().toEpochDay(), current.endDay());
+            if (from >= to) {
+                return;
+            }
+            double[] updated = current.multipliers.clone();
+            System.arraycopy(multipliers(rules, key.hotelId(), key.roomType(), from, to), 0,
+                    updated, (int) (from - current.startDay), (int) (to - from));
+            // Lost race with another refresh or rebuild: drop it and rebuild on the next quote
+            if (!calendars.replace(key, current, new RateCalendar(current.startDay, updated))) {
+                calendars.remove(key);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatesChanged(RatesChangedEvent event) {
+        evict(event.hotelId());
+        rulesByHotel.remove(event.hotelId());
+    }
+
+    // A hotel's room count is the denominator of its occupancy
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomsChanged(RoomsChangedEvent event) {
+        evict(event.hotelId());
+    }
+
+    private void evict(Long hotelId) {
+        generations.incrementAndGet(slot(hotelId));
+        calendars.keySet().removeIf(key -> key.hotelId().equals(hotelId));
+    }
+
+    private static int slot(Long hotelId) {
+        return Math.floorMod(hotelId.hashCode(), GENERATION_SLOTS);
+    }
+
+    private double multiplierSum(Long hotelId, String roomType, long from, long to) {
+        if (hotelId == null) {
+            return to - from;
+        }
+        RateCalendar calendar = calendar(hotelId, roomType);
+        double sum = 0;
+        long day = from;
+        while (day < to) {
+            long stop;
+            if (day >= calendar.startDay && day < calendar.endDay()) {
+                stop = Math.min(to, calendar.endDay());
+                for (int i = (int) (day - calendar.startDay), end = (int) (stop - calendar.startDay); i < end; i++) {
+                    sum += calendar.multipliers[i];
+                }
+            } else {
+                // At most a horizon's worth of nights at a time, however long the stay
+                stop = Math.min(day + horizonDays, day < calendar.startDay ? Math.min(to, calendar.startDay) : to);
+                for (double multiplier : multipliers(hotelId, roomType, day, stop)) {
+                    sum += multiplier;
+                }
+            }
+            day = stop;
+        }
+        return sum;
+    }
+
+    private RateCalendar calendar(Long hotelId, String roomType) {
+        CalendarKey key = new CalendarKey(hotelId, roomType);
+        long today = LocalDate.now().toEpochDay();
+        RateCalendar calendar = calendars.get(key);
+        if (calendar == null || calendar.startDay != today) {
+            long generation = generations.get(slot(hotelId));
+            calendar = new RateCalendar(today, multipliers(hotelId, roomType, today, today + horizonDays));
+            calendars.put(key, calendar);
+            if (generations.get(slot(hotelId)) != generation) {
+                calendars.remove(key, calendar);
+            }
+            trim(calendars, maxCalendars);
+            calendarBuilds.increment();
+        }
+        return calendar;
+    }
+
+    private double[] multipliers(Long hotelId, String roomType, long from, long to) {
+        return multipliers(rules(hotelId).forType(roomType), hotelId, roomType, from, to);
+    }
+
+    private double[] multipliers(Rules rules, Long hotelId, String roomType, long from, long to) {
+        double[] multipliers = new double[(int) (to - from)];
+        if (rules == Rules.FLAT) {
+            Arrays.fill(multipliers, 1.0);
+            return multipliers;
+        }
+
+        int[] free = null;
+        int rooms = 0;
+        if (rules.tierMin.length > 0) {
+            free = availabilityIndex.countFreeRooms(hotelId, roomType, LocalDate.ofEpochDay(from),
+                    LocalDate.ofEpochDay(to));
+            rooms = (int) availabilityIndex.findRooms(hotelId).stream()
+                    .filter(slot -> slot.getRoomType().equals(roomType))
+                    .count();
+        }
+        for (int i = 0; i < multipliers.length; i++) {
+            long day = from + i;
+            double multiplier = rules.season(day);
+            DayOfWeek dayOfWeek = LocalDate.ofEpochDay(day).getDayOfWeek();
+            if (dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY) {
+                multiplier *= rules.weekend;
+            }
+            if (free != null && rooms > 0) {
+                multiplier *= rules.occupancy(1.0 - (double) free[i] / rooms);
+            }
+            multipliers[i] = multiplier;
+        }
+        return multipliers;
+    }
+
+    private HotelRules rules(Long hotelId) {
+        HotelRules rules = rulesByHotel.get(hotelId);
+        if (rules == null) {
+            long generation = generations.get(slot(hotelId));
+            rules = transactionTemplate.execute(status -> HotelRules.of(ratePlanRepository.findByHotelId(hotelId)));
+            cacheRules(hotelId, rules, generation);
+        }
+        return rules;
+    }
+
+    private void cacheRules(Long hotelId, HotelRules rules, long generation) {
+        rulesByHotel.putIfAbsent(hotelId, rules);
+        if (generations.get(slot(hotelId)) != generation) {
+            rulesByHotel.remove(hotelId, rules);
+        }
+        trim(rulesByHotel, maxCachedHotels);
+    }
+
+    // Drops arbitrary entries until the cache is back within its cap
+    private static <K, V> void trim(Map<K, V> cache, int max) {
+        Iterator<K> keys = cache.keySet().iterator();
+        while (cache.size() > max && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static double roundCents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    /**
+     * Stay multipliers for the hotels a {@link #stayPricer} was made for, from
+     * their preloaded rules. A type's cached calendar is used when it covers the
+     * stay; otherwise only the stay's own nights are computed, and no calendar is
+     * built. Hotels it was not made for fall back to the engine's rule cache.
+     */
+    public final class StayPricer {
+
+        private final Map<Long, HotelRules> rules;
+        private final long today = LocalDate.now().toEpochDay();
+
+        private StayPricer(Map<Long, HotelRules> rules) {
+            this.rules = rules;
+        }
+
+        /**
+         * Sum of the nightly multipliers over [checkIn, checkOut). A room of the
+         * type costs its base price times this for the stay, before rounding.
+         */
+        public double stayMultiplier(Long hotelId, String roomType, LocalDate checkIn, LocalDate checkOut) {
+            long from = checkIn.toEpochDay();
+            long to = checkOut.toEpochDay();
+            if (hotelId == null) {
+                return to - from;
+            }
+            HotelRules hotelRules = rules.get(hotelId);
+            Rules typeRules = (hotelRules != null ? hotelRules : rules(hotelId)).forType(roomType);
+            if (typeRules == Rules.FLAT) {
+                return to - from;
+            }
+            double sum = 0;
+            RateCalendar calendar = calendars.get(new CalendarKey(hotelId, roomType));
+            if (calendar != null && calendar.startDay == today && from >= calendar.startDay
+                    && to <= calendar.endDay()) {
+                for (int i = (int) (from - calendar.startDay), end = (int) (to - calendar.startDay); i < end; i++) {
+                    sum += calendar.multipliers[i];
+                }
+                return sum;
+            }
+            for (double multiplier : multipliers(typeRules, hotelId, roomType, from, to)) {
+                sum += multiplier;
+            }
+            return sum;
+        }
+    }
+
+    private record CalendarKey(Long hotelId, String roomType) {
+    }
+
+    // Multipliers of the nights from startDay on; replaced as a whole, never written after publishing
+    private record RateCalendar(long startDay, double[] multipliers) {
+        long endDay() {
+            return startDay + multipliers.length;
+        }
+    }
+
+    private record HotelRules(Rules hotelWide, Map<String, Rules> byType) {
+
+        static HotelRules of(List<RatePlan> plans) {
+            Rules hotelWide = null;
+            Map<String, Rules> byType = new HashMap<>();
+            List<RatePlan> oldestFirst = new ArrayList<>(plans);
+            oldestFirst.sort(Comparator.comparing(RatePlan::getId));
+            for (RatePlan plan : oldestFirst) {
+                String roomType = plan.getRoomType();
+                // uk_rate_plans_hotel_scope prevents this; rows written before it existed may not
+                if (roomType == null ? hotelWide != null : byType.containsKey(roomType)) {
+                    logger.warn("Ignoring rate plan {} of hotel {}: an older plan already covers {}",
+                            plan.getId(), plan.getHotel().getId(), roomType == null ? "the hotel" : roomType);
+                } else if (roomType == null) {
+                    hotelWide = Rules.of(plan);
+                } else {
+                    byType.put(roomType, Rules.of(plan));
+                }
+            }
+            return new HotelRules(hotelWide != null ? hotelWide : Rules.FLAT, byType);
+        }
+
+        Rules forType(String roomType) {
+            return byType.getOrDefault(roomType, hotelWide);
+        }
+    }
+
+    /**
+     * A rate plan copied into primitive arrays, detached from the persistence context.
+     */
+    private static final class Rules {
+
+        static final Rules FLAT = new Rules(1.0, new long[0], new long[0], new double[0],
+                new double[0], new double[0]);
+
+        final double weekend;
+        final long[] seasonStart;
+        final long[] seasonEnd;
+        final double[] seasonMultiplier;
+        final double[] tierMin;
+        final double[] tierMultiplier;
+
+        Rules(double weekend, long[] seasonStart, long[] seasonEnd, double[] seasonMultiplier,
+              double[] tierMin, double[] tierMultiplier) {
+            this.weekend = weekend;
+            this.seasonStart = seasonStart;
+            this.seasonEnd = seasonEnd;
+            this.seasonMultiplier = seasonMultiplier;
+            this.tierMin = tierMin;
+            this.tierMultiplier = tierMultiplier;
+        }
+
+        static Rules of(RatePlan plan) {
+            List<RatePlan.Season> seasons = plan.getSeasons();
+            long[] start = new long[seasons.size()];
+            long[] end = new long[seasons.size()];
+            double[] seasonMultiplier = new double[seasons.size()];
+            for (int i = 0; i < seasons.size(); i++) {
+                start[i] = seasons.get(i).getStartDate().toEpochDay();
+                end[i] = seasons.get(i).getEndDate().toEpochDay();
+                seasonMultiplier[i] = seasons.get(i).getMultiplier();
+            }
+            List<RatePlan.OccupancyTier> tiers = new ArrayList<>(plan.getOccupancyTiers());
+            tiers.sort((a, b) -> Double.compare(a.getMinOccupancy(), b.getMinOccupancy()));
+            double[] tierMin = new double[tiers.size()];
+            double[] tierMultiplier = new double[tiers.size()];
+            for (int i = 0; i < tiers.size(); i++) {
+                tierMin[i] = tiers.get(i).getMinOccupancy();
+                tierMultiplier[i] = tiers.get(i).getMultiplier();
+            }
+            return new Rules(plan.getWeekendMultiplier(), start, end, seasonMultiplier, tierMin, tierMultiplier);
+        }
+
+        double season(long day) {
+            double multiplier = 0;
+            for (int i = 0; i < seasonStart.length; i++) {
+                if (day >= seasonStart[i] && day <= seasonEnd[i]) {
+                    multiplier = Math.max(multiplier, seasonMultiplier[i]);
+                }
+            }
+            return multiplier == 0 ? 1.0 : multiplier;
+        }
+
+        // Tiers are sorted by threshold, so the last one reached wins
+        double occupancy(double occupancy) {
+            double multiplier = 1.0;
+            for (int i = 0; i < tierMin.length && occupancy >= tierMin[i]; i++) {
+                multiplier = tierMultiplier[i];
+            }
+            return multiplier;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.ReservationSearchCriteria;
+import com.hotelreservation.backend.dto.ReservationSummary;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admin reservation search: one statement with every filter and the seek
+ * position on (checkInDate, reservationId), projected straight into
+ * {@link ReservationSummary} rows. Reads at most limit + 1 rows whatever the
+ * page, so cost does not grow with the table or with how deep the client pages.
+ */
+@Service
+public class ReservationSearchService {
+
+    static final String CURSOR_KEY = "checkIn";
+
+    private final EntityManager entityManager;
+
+    public ReservationSearchService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ReservationSummary> search(ReservationSearchCriteria criteria) {
+        if (criteria.getFrom() != null && criteria.getTo() != null && !criteria.getTo().isAfter(criteria.getFrom())) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        KeysetCursor after = decodeCursor(criteria.getAfter());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReservationSummary> query = cb.createQuery(ReservationSummary.class);
+        Root<Reservation> reservation = query.from(Reservation.class);
+        Join<Reservation, Room> room = reservation.join("room");
+        Join<Room, Hotel> hotel = room.join("hotel", JoinType.LEFT);
+        Join<Reservation, Customer> customer = reservation.join("customer");
+        Path<LocalDate> checkIn = reservation.get("checkInDate");
+        Path<Long> id = reservation.get("reservationId");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getHotelId() != null) {
+            predicates.add(cb.equal(hotel.get("id"), criteria.getHotelId()));
+        }
+        if (criteria.getCustomerId() != null) {
+            predicates.add(cb.equal(customer.get("customerId"), criteria.getCustomerId()));
+        }
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(reservation.get("status"), criteria.getStatus()));
+        }
+        // Half-open overlap with [from, to), the same rule the booking path uses
+        if (criteria.getTo() != null) {
+            predicates.add(cb.lessThan(checkIn, criteria.getTo()));
+        }
+        if (criteria.getFrom() != null) {
+            predicates.add(cb.greaterThan(reservation.get("checkOutDate"), criteria.getFrom()));
+        }
+        if (after != null) {
+            LocalDate lastCheckIn = parseDate(after.value());
+            predicates.add(cb.or(
+                    cb.greaterThan(checkIn, lastCheckIn),
+                    cb.and(cb.equal(checkIn, lastCheckIn), cb.greaterThan(id, after.id()))));
+        }
+
+        query.select(cb.construct(ReservationSummary.class,
+                        id, checkIn, reservation.get("checkOutDate"),
+                        reservation.get("totalPrice"), reservation.get("status"),
+                        room.get("roomId"), room.get("roomNumber"), room.get("roomType"),
+                        hotel.get("id"), hotel.get("name"),
+                        customer.get("customerId"), customer.get("fullName"), customer.get("email")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(checkIn), cb.asc(id));
+
+        int limit = criteria.getLimit();
+        List<ReservationSummary> rows = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+
+        List<ReservationSummary> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            ReservationSummary last = page.get(limit - 1);
+            nextCursor = new KeysetCursor(CURSOR_KEY, last.checkInDate().toString(), last.reservationId()).encode();
+        }
+        return new CursorPage<>(List.copyOf(page), nextCursor);
+    }
+
+    private static KeysetCursor decodeCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        KeysetCursor cursor = KeysetCursor.decode(after);
+        if (!CURSOR_KEY.equals(cursor.sortKey())) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + cursor.sortKey() + "'");
+        }
+        return cursor;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (NullPointerException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor value: " + value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.dto.RoomRow;
+import com.hotelreservation.backend.dto.RoomView;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Room listings built from flat projections. Rooms are read in one statement and
+ * their hotels come from the catalog snapshot, with at most one batched query
+ * for hotels it does not hold yet.
+ */
+@Service
+public class RoomListingService {
+
+    private final RoomRepository roomRepository;
+    private final HotelRepository hotelRepository;
+    private final HotelCatalog hotelCatalog;
+
+    public RoomListingService(RoomRepository roomRepository, HotelRepository hotelRepository,
+                              HotelCatalog hotelCatalog) {
+        this.roomRepository = roomRepository;
+        this.hotelRepository = hotelRepository;
+        this.hotelCatalog = hotelCatalog;
+    }
+
+    public List<RoomView> findAll() {
+        return withHotels(roomRepository.findAllRows());
+    }
+
+    public List<RoomView> findByHotelId(Long hotelId) {
+        return withHotels(roomRepository.findRowsByHotelId(hotelId));
+    }
+
+    /**
+     * All rooms as they are read from the database, for streaming exports. Hotels
+     * missing from the catalog are loaded once each as they are first seen.
+     */
+    public Stream<RoomView> streamAll() {
+        Map<Long, HotelView> missing = new HashMap<>();
+        return roomRepository.streamAllRows().map(row -> {
+            if (row.hotelId() == null) {
+                return RoomView.of(row, null);
+            }
+            HotelView hotel = hotelCatalog.find(row.hotelId()).orElseGet(() -> missing.computeIfAbsent(row.hotelId(),
+                    id -> hotelRepository.findAllWithTagsByIdIn(Set.of(id)).stream()
+                            .findFirst().map(HotelView::of).orElse(null)));
+            return RoomView.of(row, hotel);
+        });
+    }
+
+    private List<RoomView> withHotels(List<RoomRow> rows) {
+        Map<Long, HotelView> hotels = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (RoomRow row : rows) {
+            if (row.hotelId() != null && !hotels.containsKey(row.hotelId())) {
+                hotelCatalog.find(row.hotelId()).ifPresentOrElse(
+                        hotel -> hotels.put(hotel.id(), hotel),
+                        () -> missing.add(row.hotelId()));
+            }
+        }
+        if (!missing.isEmpty()) {
+            hotelRepository.findAllWithTagsByIdIn(missing).forEach(hotel -> hotels.put(hotel.getId(), HotelView.of(hotel)));
+        }
+        return rows.stream()
+                .map(row -> RoomView.of(row, row.hotelId() != null ? hotels.get(row.hotelId()) : null))
+                .toList();
+    }
+}
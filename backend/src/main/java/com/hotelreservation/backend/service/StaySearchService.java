@@ -0,0 +1,196 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelStay;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.dto.RoomAvailabilityResponse;
+import com.hotelreservation.backend.exception.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * "Hotels in a city with a room for N guests from X to Y". Candidate hotels come
+ * from the in-memory {@link HotelCatalog} and are split across a dedicated
+ * fork-join pool. Each hotel is answered from the {@link AvailabilityIndex}'s
+ * rooms ordered by capacity and price: a binary search skips the rooms that are
+ * too small, and a room's nights are only checked when its
+ * {@link PricingEngine} total would beat the best room found so far.
+ *
+ * Hotels are returned cheapest stay first. The candidates' rate plans are
+ * loaded in bulk on the calling thread before the search forks, through
+ * {@link PricingEngine#stayPricer}, so the pool's workers only read memory.
+ */
+@Service
+public class StaySearchService {
+
+    private static final Comparator<HotelStay> CHEAPEST_FIRST =
+            Comparator.comparingDouble((HotelStay stay) -> stay.cheapestRoom().getTotalPrice())
+                    .thenComparing(stay -> stay.hotel().id());
+
+    // Hotels one task searches itself before splitting; a hotel is a few dozen rooms
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final HotelCatalog hotelCatalog;
+    private final AvailabilityIndex availabilityIndex;
+    private final PricingEngine pricingEngine;
+    private final ForkJoinPool pool;
+    private final Timer searches;
+
+    public StaySearchService(HotelCatalog hotelCatalog,
+                             AvailabilityIndex availabilityIndex,
+                             PricingEngine pricingEngine,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.search.parallelism:0}") int parallelism) {
+        this.hotelCatalog = hotelCatalog;
+        this.availabilityIndex = availabilityIndex;
+        this.pricingEngine = pricingEngine;
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("stay-search-" + sequence.incrementAndGet());
+                    return thread;
+                },
+                null, false);
+        this.searches = Timer.builder("search.stays")
+                .description("Multi-hotel availability searches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Up to limit hotels in the city (every hotel without one) that have a free
+     * room for the party on every night of [checkIn, checkOut), cheapest first.
+     */
+    public List<HotelStay> search(String city, LocalDate checkIn, LocalDate checkOut, int guests, int limit) {
+        if (!hotelCatalog.isReady()) {
+            throw new ServiceBusyException("Hotel catalog is still loading, please retry shortly");
+        }
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity(city);
+        return search(hotelCatalog.findAll(criteria), checkIn, checkOut, guests, limit);
+    }
+
+    public List<HotelStay> search(List<HotelView> hotels, LocalDate checkIn, LocalDate checkOut, int guests, int limit) {
+        long start = System.nanoTime();
+        try {
+            PricingEngine.StayPricer pricer = pricingEngine.stayPricer(hotels.stream().map(HotelView::id).toList());
+            return pool.invoke(new SearchTask(hotels, 0, hotels.size(), pricer, checkIn, checkOut, guests, limit));
+        } finally {
+            searches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The hotel's cheapest room that sleeps the party and is free for the stay, or
+     * null if it has none.
+     */
+    HotelStay cheapestRoom(HotelView hotel, PricingEngine.StayPricer pricer, LocalDate checkIn, LocalDate checkOut,
+                           int guests) {
+        // Every room of a type shares the type's multipliers, so they are looked up once per type
+        Map<String, Double> multiplierByType = new HashMap<>();
+        AvailabilityIndex.RoomSlot best = null;
+        double bestMultiplier = 0;
+        double bestPrice = Double.MAX_VALUE;
+        for (AvailabilityIndex.RoomSlot slot : availabilityIndex.findRoomsFor(hotel.id(), guests)) {
+            double multiplier = multiplierByType.computeIfAbsent(slot.getRoomType(),
+                    type -> pricer.stayMultiplier(hotel.id(), type, checkIn, checkOut));
+            double price = slot.getPricePerNight() * multiplier;
+            if (price < bestPrice && slot.isFree(checkIn, checkOut)) {
+                best = slot;
+                bestMultiplier = multiplier;
+                bestPrice = price;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        return new HotelStay(hotel, new RoomAvailabilityResponse(
+                best.getRoomId(),
+                best.getRoomNumber(),
+                best.getRoomType(),
+                best.getPricePerNight(),
+                best.getCapacity(),
+                checkOut.toEpochDay() - checkIn.toEpochDay(),
+                Math.round(best.getPricePerNight() * bestMultiplier * 100) / 100.0));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Keeps only the cheapest limit stays of each half, so merging is bounded by the limit
+    private static List<HotelStay> merge(List<HotelStay> left, List<HotelStay> right, int limit) {
+        List<HotelStay> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())) {
+            if (j == right.size() || (i < left.size() && CHEAPEST_FIRST.compare(left.get(i), right.get(j)) <= 0)) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private final class SearchTask extends RecursiveTask<List<HotelStay>> {
+
+        private final List<HotelView> hotels;
+        private final int from;
+        private final int to;
+        private final PricingEngine.StayPricer pricer;
+        private final LocalDate checkIn;
+        private final LocalDate checkOut;
+        private final int guests;
+        private final int limit;
+
+        SearchTask(List<HotelView> hotels, int from, int to, PricingEngine.StayPricer pricer,
+                   LocalDate checkIn, LocalDate checkOut, int guests, int limit) {
+            this.hotels = hotels;
+            this.from = from;
+            this.to = to;
+            this.pricer = pricer;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.guests = guests;
+            this.limit = limit;
+        }
+
+        @Override
+        protected List<HotelStay> compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                List<HotelStay> found = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    HotelStay stay = cheapestRoom(hotels.get(i), pricer, checkIn, checkOut, guests);
+                    if (stay != null) {
+                        found.add(stay);
+                    }
+                }
+                found.sort(CHEAPEST_FIRST);
+                return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+            }
+            int middle = (from + to) >>> 1;
+            SearchTask left = new SearchTask(hotels, from, middle, pricer, checkIn, checkOut, guests, limit);
+            left.fork();
+            List<HotelStay> right = new SearchTask(hotels, middle, to, pricer, checkIn, checkOut, guests, limit)
+                    .compute();
+            return merge(left.join(), right, limit);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.hotelreservation.backend.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel: a ring of buckets, each covering one tick. A timeout lands
+ * in the bucket of the tick its deadline falls in, with the number of full turns
+ * of the wheel still to go, so scheduling and cancelling are O(1) however many
+ * timeouts are live and a tick only walks its own bucket.
+ *
+ * Any thread may schedule and cancel; both only enqueue. Buckets are owned by
+ * the single thread that calls {@link #advance()}, which moves queued timeouts
+ * into place, unlinks cancelled ones and hands expired payloads to the callback.
+ * A timeout fires on the first advance after its tick has fully passed: never
+ * early, and at most one tick late plus the caller's polling delay.
+ */
+public final class HashedTimerWheel<T> {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickMillis;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long startMillis;
+    private final Consumer<T> onExpiry;
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private long tick;
+
+    public HashedTimerWheel(long tickMillis, int wheelSize, Consumer<T> onExpiry) {
+        this(tickMillis, wheelSize, System::currentTimeMillis, onExpiry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize, LongSupplier clock, Consumer<T> onExpiry) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startMillis = clock.getAsLong();
+        this.onExpiry = onExpiry;
+    }
+
+    /**
+     * Arms a timeout that hands payload to the expiry callback once delayMillis
+     * have passed, unless it is cancelled first.
+     */
+    public Timeout<T> schedule(T payload, long delayMillis) {
+        Timeout<T> timeout = new Timeout<>(this, payload, clock.getAsLong() - startMillis + Math.max(0, delayMillis));
+        live.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Expires every timeout whose tick has passed. Must only be called from one
+     * thread at a time. Returns how many timeouts expired.
+     */
+    public int advance() {
+        long now = clock.getAsLong() - startMillis;
+        int expired = 0;
+        while ((tick + 1) * tickMillis <= now) {
+            transfer();
+            expired += expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+        transfer();
+        return expired;
+    }
+
+    /**
+     * Milliseconds until the current tick has passed, i.e. how long the advancing
+     * thread can sleep.
+     */
+    public long millisToNextTick() {
+        return Math.max(0, (tick + 1) * tickMillis - (clock.getAsLong() - startMillis));
+    }
+
+    /**
+     * Timeouts scheduled and neither expired nor cancelled.
+     */
+    public int size() {
+        return live.get();
+    }
+
+    private void transfer() {
+        for (Timeout<T> timeout; (timeout = cancelled.poll()) != null; ) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+        for (Timeout<T> timeout; (timeout = scheduled.poll()) != null; ) {
+            if (timeout.state != PENDING) {
+                continue;
+            }
+            // A deadline already behind the wheel goes into the current tick and fires on this pass
+            long due = Math.max(timeout.deadline / tickMillis, tick);
+            timeout.remainingRounds = (due - tick) >> Integer.numberOfTrailingZeros(wheel.length);
+            wheel[(int) (due & mask)].add(timeout);
+        }
+    }
+
+    private int expire(Bucket<T> bucket) {
+        int expired = 0;
+        Timeout<T> timeout = bucket.head;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                bucket.remove(timeout);
+                if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                    live.decrementAndGet();
+                    expired++;
+                    onExpiry.accept(timeout.payload);
+                }
+            }
+            timeout = next;
+        }
+        return expired;
+    }
+
+    /**
+     * Handle to one scheduled payload.
+     */
+    public static final class Timeout<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedTimerWheel<T> owner;
+        private final T payload;
+        private final long deadline;
+        private volatile int state = PENDING;
+        // Owned by the advancing thread
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(HashedTimerWheel<T> owner, T payload, long deadline) {
+            this.owner = owner;
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stops the timeout from firing. Returns false if it already expired or was
+         * cancelled; exactly one of cancel and expiry ever wins.
+         */
+        @SuppressWarnings("unchecked")
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            owner.live.decrementAndGet();
+            owner.cancelled.add(this);
+            return true;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    // Doubly linked so a cancelled timeout is unlinked in O(1)
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
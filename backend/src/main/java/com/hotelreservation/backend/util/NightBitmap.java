@@ -0,0 +1,109 @@
+package com.hotelreservation.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact bitset of sold nights for a single room, indexed by epoch day.
+ * A set bit means the night starting on that day is taken. Ranges are
+ * half-open [fromDay, toDay) so a check-out day is never occupied.
+ *
+ * Not thread-safe: callers synchronize on the owning room.
+ */
+public class NightBitmap {
+
+    private long[] words = new long[0];
+    private long firstWord; // word index (epochDay >> 6) of words[0]
+
+    public boolean isFree(long fromDay, long toDay) {
+        if (toDay <= fromDay || words.length == 0) {
+            return true;
+        }
+        long lastWord = firstWord + words.length - 1;
+        long startWord = Math.max(fromDay >> 6, firstWord);
+        long endWord = Math.min((toDay - 1) >> 6, lastWord);
+        for (long w = startWord; w <= endWord; w++) {
+            if ((words[(int) (w - firstWord)] & mask(w, fromDay, toDay)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isAllSet(long fromDay, long toDay) {
+        if (toDay <= fromDay) {
+            return true;
+        }
+        if (words.length == 0 || fromDay >> 6 < firstWord || (toDay - 1) >> 6 > firstWord + words.length - 1) {
+            return false;
+        }
+        for (long w = fromDay >> 6; w <= (toDay - 1) >> 6; w++) {
+            long mask = mask(w, fromDay, toDay);
+            if ((words[(int) (w - firstWord)] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void set(long fromDay, long toDay) {
+        if (toDay <= fromDay) {
+            return;
+        }
+        ensureCapacity(fromDay >> 6, (toDay - 1) >> 6);
+        for (long w = fromDay >> 6; w <= (toDay - 1) >> 6; w++) {
+            words[(int) (w - firstWord)] |= mask(w, fromDay, toDay);
+        }
+    }
+
+    public void clear(long fromDay, long toDay) {
+        if (toDay <= fromDay || words.length == 0) {
+            return;
+        }
+        long lastWord = firstWord + words.length - 1;
+        long startWord = Math.max(fromDay >> 6, firstWord);
+        long endWord = Math.min((toDay - 1) >> 6, lastWord);
+        for (long w = startWord; w <= endWord; w++) {
+            words[(int) (w - firstWord)] &= ~mask(w, fromDay, toDay);
+        }
+    }
+
+    public boolean isSet(long day) {
+        long w = (day >> 6) - firstWord;
+        return w >= 0 && w < words.length && (words[(int) w] & (1L << (day & 63))) != 0;
+    }
+
+    // Bits of word w that fall inside [fromDay, toDay)
+    private static long mask(long w, long fromDay, long toDay) {
+        long mask = -1L;
+        if (w == fromDay >> 6) {
+            mask &= -1L << (fromDay & 63);
+        }
+        if (w == (toDay - 1) >> 6) {
+            mask &= -1L >>> (63 - ((toDay - 1) & 63));
+        }
+        return mask;
+    }
+
+    private void ensureCapacity(long fromWord, long toWord) {
+        if (words.length == 0) {
+            firstWord = fromWord;
+            words = new long[(int) (toWord - fromWord + 1)];
+            return;
+        }
+        long lastWord = firstWord + words.length - 1;
+        long newFirst = Math.min(firstWord, fromWord);
+        long newLast = Math.max(lastWord, toWord);
+        if (newFirst == firstWord && newLast == lastWord) {
+            return;
+        }
+        long[] grown = new long[(int) (newLast - newFirst + 1)];
+        System.arraycopy(words, 0, grown, (int) (firstWord - newFirst), words.length);
+        words = grown;
+        firstWord = newFirst;
+    }
+
+    @Override
+    public String toString() {
+        return "NightBitmap{firstWord=" + firstWord + ", words=" + Arrays.toString(words) + "}";
+    }
+}
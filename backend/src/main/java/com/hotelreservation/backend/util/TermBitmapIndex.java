@@ -0,0 +1,170 @@
+package com.hotelreservation.backend.util;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable inverted index from a term (tag, badge, ...) to the compressed
+ * bitmap of ids carrying it. Terms match case-insensitively; the first spelling
+ * seen is kept as the display label.
+ *
+ * Changes never touch a published instance: {@link #patch} copies only the
+ * postings of the terms that changed and returns a new index.
+ */
+public final class TermBitmapIndex {
+
+    private static final TermBitmapIndex EMPTY = new TermBitmapIndex(Map.of(), Map.of());
+
+    private final Map<String, RoaringBitmap> postings;
+    private final Map<String, String> labels;
+
+    private TermBitmapIndex(Map<String, RoaringBitmap> postings, Map<String, String> labels) {
+        this.postings = postings;
+        this.labels = labels;
+    }
+
+    public static TermBitmapIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Ids carrying every one of the terms; an unknown term yields an empty bitmap.
+     * The result is a fresh bitmap the caller may modify.
+     */
+    public RoaringBitmap allOf(Collection<String> terms) {
+        RoaringBitmap result = null;
+        for (String term : terms) {
+            RoaringBitmap posting = postings.get(normalize(term));
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? posting.clone() : RoaringBitmap.and(result, posting);
+        }
+        return result != null ? result : new RoaringBitmap();
+    }
+
+    /**
+     * Per-term counts within the given ids, largest first, leaving out terms
+     * that do not occur.
+     */
+    public Map<String, Integer> counts(RoaringBitmap within) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        postings.forEach((term, posting) -> {
+            int count = RoaringBitmap.andCardinality(posting, within);
+            if (count > 0) {
+                counts.add(Map.entry(labels.get(term), count));
+            }
+        });
+        counts.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> ordered = new LinkedHashMap<>();
+        counts.forEach(e -> ordered.put(e.getKey(), e.getValue()));
+        return ordered;
+    }
+
+    /**
+     * Returns an index in which id carries newTerms instead of oldTerms.
+     */
+    public TermBitmapIndex patch(int id, Collection<String> oldTerms, Collection<String> newTerms) {
+        Set<String> removed = normalizeAll(oldTerms);
+        Set<String> added = normalizeAll(newTerms);
+        Set<String> unchanged = new HashSet<>(removed);
+        unchanged.retainAll(added);
+        removed.removeAll(unchanged);
+        added.removeAll(unchanged);
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+
+        Map<String, RoaringBitmap> nextPostings = new HashMap<>(postings);
+        Map<String, String> nextLabels = new HashMap<>(labels);
+        for (String term : removed) {
+            RoaringBitmap posting = nextPostings.get(term);
+            if (posting != null) {
+                RoaringBitmap copy = posting.clone();
+                copy.remove(id);
+                if (copy.isEmpty()) {
+                    nextPostings.remove(term);
+                    nextLabels.remove(term);
+                } else {
+                    nextPostings.put(term, copy);
+                }
+            }
+        }
+        for (String term : newTerms) {
+            String key = normalize(term);
+            if (key == null || !added.contains(key)) {
+                continue;
+            }
+            RoaringBitmap posting = nextPostings.get(key);
+            RoaringBitmap copy = posting != null ? posting.clone() : new RoaringBitmap();
+            copy.add(id);
+            nextPostings.put(key, copy);
+            nextLabels.putIfAbsent(key, term.trim());
+        }
+        return new TermBitmapIndex(nextPostings, nextLabels);
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static String normalize(String term) {
+        return term == null || term.isBlank() ? null : term.trim().toLowerCase();
+    }
+
+    private static Set<String> normalizeAll(Collection<String> terms) {
+        Set<String> keys = new HashSet<>();
+        if (terms != null) {
+            for (String term : terms) {
+                String key = normalize(term);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Bulk loader for a full rebuild; cheaper than patching one id at a time.
+     */
+    public static final class Builder {
+        private final Map<String, RoaringBitmap> postings = new HashMap<>();
+        private final Map<String, String> labels = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(int id, Collection<String> terms) {
+            if (terms != null) {
+                for (String term : terms) {
+                    String key = normalize(term);
+                    if (key != null) {
+                        postings.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+                        labels.putIfAbsent(key, term.trim());
+                    }
+                }
+            }
+            return this;
+        }
+
+        public TermBitmapIndex build() {
+            postings.values().forEach(RoaringBitmap::runOptimize);
+            return new TermBitmapIndex(Map.copyOf(postings), Map.copyOf(labels));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hotelreservation.backend.benchmark;
+
+import com.hotelreservation.backend.security.AuthenticatedUser;
+import com.hotelreservation.backend.security.JwtTokenVerifier;
+import com.hotelreservation.backend.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning a bearer token into a principal: the previous
+ * filter path (key and parser rebuilt, token parsed four times) against one
+ * parse and against the verified-token cache.
+ *
+ * Run with:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *       com.hotelreservation.backend.benchmark.JwtAuthenticationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "mySecretKey1234567890123456789012345678901234567890";
+
+    private String token;
+    private JwtTokenVerifier uncached;
+    private JwtTokenVerifier cached;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        token = jwtUtil.generateToken(42L, "bench@example.com", 7L);
+        uncached = new JwtTokenVerifier(jwtUtil, 0);
+        cached = new JwtTokenVerifier(jwtUtil, 10_000);
+    }
+
+    @Benchmark
+    public Object legacyFourParses() {
+        String email = legacyClaims(token).getSubject();
+        Long userId = legacyClaims(token).get("userId", Long.class);
+        boolean valid = legacyClaims(token).getSubject().equals(email)
+                && !legacyClaims(token).getExpiration().before(new Date());
+        return valid ? new AuthenticatedUser(userId, email, null) : null;
+    }
+
+    @Benchmark
+    public AuthenticatedUser singleParse() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser cachedPrincipal() {
+        return cached.verify(token);
+    }
+
+    // What JwtUtil did before: a new key and parser for every claim it extracted
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.hotelreservation.backend.benchmark;
+
+import com.hotelreservation.backend.dto.HotelStay;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.RatePlanRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.service.StaySearchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One multi-hotel availability search over 10k hotels and 1M rooms, about a
+ * third of them booked somewhere around the stay: what a client has to do
+ * today (every hotel's free rooms, then filter and price them) against the
+ * capacity-ordered index on one thread and on the fork-join pool.
+ *
+ * Run with:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *       com.hotelreservation.backend.benchmark.StaySearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StaySearchBenchmark {
+
+    private static final int HOTELS = 10_000;
+    private static final int ROOMS_PER_HOTEL = 100;
+    private static final String[] TYPES = {"Standard", "Deluxe", "Suite"};
+
+    @Param({"2", "4"})
+    public int guests;
+
+    private final LocalDate checkIn = LocalDate.now().plusDays(30);
+    private final LocalDate checkOut = checkIn.plusDays(3);
+
+    private List<HotelView> hotels;
+    private AvailabilityIndex availabilityIndex;
+    private PricingEngine pricingEngine;
+    private StaySearchService sequential;
+    private StaySearchService parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        hotels = new ArrayList<>(HOTELS);
+        List<Room> rooms = new ArrayList<>(HOTELS * ROOMS_PER_HOTEL);
+        List<AvailabilityIndex.Stay> stays = new ArrayList<>();
+        long roomId = 0;
+        for (long hotelId = 1; hotelId <= HOTELS; hotelId++) {
+            Hotel hotel = new Hotel();
+            hotel.setId(hotelId);
+            hotel.setName("Hotel " + hotelId);
+            hotel.setCity("Bench City");
+            hotel.setPricePerNight(100.0);
+            hotels.add(HotelView.of(hotel));
+            for (int i = 0; i < ROOMS_PER_HOTEL; i++) {
+                Room room = new Room();
+                room.setRoomId(++roomId);
+                room.setRoomNumber(String.valueOf(i));
+                room.setRoomType(TYPES[i % TYPES.length]);
+                room.setPricePerNight(50 + random.nextInt(400));
+                room.setCapacity(1 + random.nextInt(6));
+                room.setHotel(hotel);
+                rooms.add(room);
+                if (random.nextInt(3) == 0) {
+                    LocalDate from = checkIn.plusDays(random.nextInt(11) - 5);
+                    stays.add(new AvailabilityIndex.Stay(roomId, from, from.plusDays(1 + random.nextInt(5))));
+                }
+            }
+        }
+
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAllWithHotel()).thenReturn(rooms);
+        availabilityIndex = new AvailabilityIndex(roomRepository, mock(ReservationRepository.class));
+        availabilityIndex.rebuild(stays);
+
+        pricingEngine = new PricingEngine(mock(RatePlanRepository.class), availabilityIndex,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 365, 10_000, 20_000);
+        sequential = new StaySearchService(null, availabilityIndex, pricingEngine, new SimpleMeterRegistry(), 1);
+        parallel = new StaySearchService(null, availabilityIndex, pricingEngine, new SimpleMeterRegistry(), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(sequential, "shutdown");
+        ReflectionTestUtils.invokeMethod(parallel, "shutdown");
+    }
+
+    // One availability call per hotel, then the capacity filter and a quote per free room
+    @Benchmark
+    public List<Object[]> perHotelAvailability() {
+        List<Object[]> found = new ArrayList<>();
+        for (HotelView hotel : hotels) {
+            AvailabilityIndex.RoomSlot best = null;
+            double bestTotal = Double.MAX_VALUE;
+            for (AvailabilityIndex.RoomSlot slot : availabilityIndex.findFreeRooms(hotel.id(), checkIn, checkOut)) {
+                if (slot.getCapacity() < guests) {
+                    continue;
+                }
+                double total = pricingEngine.quote(hotel.id(), slot.getRoomType(), slot.getPricePerNight(),
+                        checkIn, checkOut);
+                if (total < bestTotal) {
+                    best = slot;
+                    bestTotal = total;
+                }
+            }
+            if (best != null) {
+                found.add(new Object[]{hotel, best, bestTotal});
+            }
+        }
+        found.sort(Comparator.comparingDouble(row -> (double) row[2]));
+        return found.subList(0, Math.min(20, found.size()));
+    }
+
+    @Benchmark
+    public List<HotelStay> indexedSequential() {
+        return sequential.search(hotels, checkIn, checkOut, guests, 20);
+    }
+
+    @Benchmark
+    public List<HotelStay> indexedParallel() {
+        return parallel.search(hotels, checkIn, checkOut, guests, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StaySearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
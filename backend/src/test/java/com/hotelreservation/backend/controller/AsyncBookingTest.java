@@ -0,0 +1,289 @@
+package com.hotelreservation.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.BookingTicketRepository;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.repository.UserRepository;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.BookingPipeline;
+import com.hotelreservation.backend.service.InventoryLedger;
+import com.hotelreservation.backend.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Bookings sent with Prefer: respond-async are accepted with a ticket and
+ * written by their hotel's writer; the ticket then reports the outcome.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AsyncBookingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @MockitoSpyBean
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private BookingTicketRepository ticketRepository;
+
+    private User user;
+    private Hotel hotel;
+    private Room room;
+    private final List<Room> extraRooms = new ArrayList<>();
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("async@example.com");
+        user.setPassword("unused");
+        user.setFullName("Async User");
+        user.setPhoneNumber("+1234567890");
+        user = userRepository.save(user);
+        token = jwtUtil.generateToken(user.getId(), user.getEmail());
+
+        hotel = new Hotel();
+        hotel.setName("Flash Sale Hotel");
+        hotel.setCity("Queue");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("F-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getHotel().getId().equals(hotel.getId()))
+                .forEach(reservationRepository::delete);
+        // Other test contexts recreate the schema, so ids are reused; leave no nights behind
+        inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        customerRepository.findByEmail("async.contact@example.com").ifPresent(customerRepository::delete);
+        extraRooms.forEach(extra -> roomRepository.deleteById(extra.getRoomId()));
+        roomRepository.deleteById(room.getRoomId());
+        hotelRepository.deleteById(hotel.getId());
+        userRepository.deleteById(user.getId());
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void acceptedBookingIsConfirmedThroughItsTicket() throws Exception {
+        MockHttpServletResponse accepted = submit(bookingRequest(5));
+
+        assertEquals(202, accepted.getStatus());
+        String ticket = objectMapper.readTree(accepted.getContentAsString()).get("ticket").asText();
+        assertEquals("/api/bookings/" + ticket, accepted.getHeader("Location"));
+
+        MockHttpServletResponse result = await(ticket, token);
+        assertEquals(201, result.getStatus());
+        JsonNode booking = objectMapper.readTree(result.getContentAsString());
+        assertEquals("CONFIRMED", booking.get("status").asText());
+        assertTrue(booking.get("bookingId").asText().startsWith("HTL-"));
+        assertEquals("Flash Sale Hotel", booking.get("summary").get("hotel").asText());
+        assertEquals(1, reservationsForRoom());
+    }
+
+    @Test
+    void burstOnOneRoomBooksEachStayExactlyOnce() throws Exception {
+        // Every stay is requested twice; one of each pair wins, the other is told the room is gone
+        List<String> tickets = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            for (int stay = 0; stay < 6; stay++) {
+                MockHttpServletResponse accepted = submit(bookingRequest(20 + stay * 3));
+                assertEquals(202, accepted.getStatus());
+                tickets.add(objectMapper.readTree(accepted.getContentAsString()).get("ticket").asText());
+            }
+        }
+
+        int confirmed = 0;
+        int conflicts = 0;
+        for (String ticket : tickets) {
+            int status = await(ticket, token).getStatus();
+            if (status == 201) {
+                confirmed++;
+            } else if (status == 409) {
+                conflicts++;
+            }
+        }
+        assertEquals(6, confirmed);
+        assertEquals(6, conflicts);
+        assertEquals(6, reservationsForRoom());
+    }
+
+    @Test
+    void ticketsAreOnlyVisibleToTheirOwner() throws Exception {
+        String ticket = objectMapper.readTree(submit(bookingRequest(40)).getContentAsString()).get("ticket").asText();
+        String otherToken = jwtUtil.generateToken(user.getId() + 1000, "someone.else@example.com");
+
+        assertEquals(404, mockMvc.perform(get("/api/bookings/" + ticket)
+                        .header("Authorization", "Bearer " + otherToken))
+                .andReturn().getResponse().getStatus());
+        assertEquals(201, await(ticket, token).getStatus());
+        assertEquals(404, mockMvc.perform(get("/api/bookings/no-such-ticket")
+                        .header("Authorization", "Bearer " + token))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void finishedTicketsOutliveTheNodeThatWroteThem() throws Exception {
+        String booked = objectMapper.readTree(submit(bookingRequest(50)).getContentAsString()).get("ticket").asText();
+        String refused = objectMapper.readTree(submit(bookingRequest(50)).getContentAsString()).get("ticket").asText();
+        String bookedBody = await(booked, token).getContentAsString();
+        assertEquals(409, await(refused, token).getStatus());
+
+        // As after a restart, or when the poll lands on another node
+        ((Map<?, ?>) ReflectionTestUtils.getField(bookingPipeline, "tickets")).clear();
+
+        MockHttpServletResponse again = await(booked, token);
+        assertEquals(201, again.getStatus());
+        assertEquals(objectMapper.readTree(bookedBody), objectMapper.readTree(again.getContentAsString()));
+        assertEquals(409, await(refused, token).getStatus());
+        assertEquals(404, mockMvc.perform(get("/api/bookings/" + booked)
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(user.getId() + 1000, "x@example.com")))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void roomTypeBookingMovesOnFromARoomTakenSinceItWasListed() throws Exception {
+        Room second = new Room();
+        second.setRoomNumber("F-2");
+        second.setRoomType("Standard");
+        second.setPricePerNight(100.0);
+        second.setHotel(hotel);
+        extraRooms.add(roomRepository.save(second));
+        availabilityIndex.rebuild();
+        LocalDate checkIn = LocalDate.now().plusDays(60);
+        LocalDate checkOut = checkIn.plusDays(2);
+        assertEquals(201, mockMvc.perform(post("/api/bookings/hotel")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingRequest(60))))
+                .andReturn().getResponse().getStatus());
+
+        // The writer is handed F-1 first, as if it was booked after the candidates were listed
+        AvailabilityIndex.RoomSlot taken = availabilityIndex.find(room.getRoomId()).orElseThrow();
+        doAnswer(invocation -> {
+            List<AvailabilityIndex.RoomSlot> free = new ArrayList<>();
+            free.add(taken);
+            free.addAll((List<AvailabilityIndex.RoomSlot>) invocation.callRealMethod());
+            return free;
+        }).when(availabilityIndex).findFreeRooms(hotel.getId(), checkIn, checkOut);
+
+        Map<String, Object> byType = bookingRequest(60);
+        byType.remove("roomId");
+        byType.put("roomType", "Standard");
+        String ticket = objectMapper.readTree(submit(byType).getContentAsString()).get("ticket").asText();
+
+        assertEquals(201, await(ticket, token).getStatus());
+        assertFalse(availabilityIndex.isFree(second.getRoomId(), checkIn, checkOut));
+        assertEquals(1, reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(second.getRoomId()))
+                .count());
+    }
+
+    private MockHttpServletResponse submit(Map<String, Object> request) throws Exception {
+        return mockMvc.perform(post("/api/bookings/hotel")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse await(String ticket, String bearer) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            MockHttpServletResponse response = mockMvc.perform(get("/api/bookings/" + ticket)
+                            .header("Authorization", "Bearer " + bearer))
+                    .andReturn().getResponse();
+            if (response.getStatus() != 202 || System.currentTimeMillis() > deadline) {
+                return response;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private Map<String, Object> bookingRequest(int daysAhead) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("hotelId", hotel.getId());
+        request.put("roomId", room.getRoomId());
+        request.put("checkIn", LocalDate.now().plusDays(daysAhead).toString());
+        request.put("checkOut", LocalDate.now().plusDays(daysAhead + 2).toString());
+        request.put("guests", 2);
+        request.put("totalPrice", 200.0);
+        request.put("contactName", "Async User");
+        request.put("contactEmail", "async.contact@example.com");
+        request.put("contactPhone", "+1234567890");
+        return request;
+    }
+
+    private long reservationsForRoom() {
+        return reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .count();
+    }
+}
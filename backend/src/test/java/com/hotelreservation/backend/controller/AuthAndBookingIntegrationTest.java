@@ -3,18 +3,24 @@ package com.hotelreservation.backend.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hotelreservation.backend.dto.LoginRequest;
 import com.hotelreservation.backend.dto.SignupRequest;
+import com.hotelreservation.backend.entity.Customer;
 import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
 import com.hotelreservation.backend.entity.Room;
 import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.CustomerRepository;
 import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
 import com.hotelreservation.backend.repository.RoomRepository;
 import com.hotelreservation.backend.repository.UserRepository;
+import com.hotelreservation.backend.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -24,6 +30,9 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -47,9 +56,18 @@ public class AuthAndBookingIntegrationTest {
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
     private User testUser;
     private Hotel testHotel;
     private Room testRoom;
@@ -75,7 +93,7 @@ public class AuthAndBookingIntegrationTest {
 
         // Create test room
         testRoom = new Room();
-        testRoom.setRoomNumber("101");
+        testRoom.setRoomNumber("T-101");
         testRoom.setRoomType("Deluxe");
         testRoom.setPricePerNight(100.0);
         testRoom.setAvailable(true);
@@ -133,6 +151,25 @@ public class AuthAndBookingIntegrationTest {
         assert token != null && !token.isEmpty();
     }
 
+    @Test
+    void testSignupLinksOnlyGuestsWithoutHistory() throws Exception {
+        Customer booked = guest("booked.guest@example.com");
+        Reservation stay = new Reservation();
+        stay.setRoom(testRoom);
+        stay.setCustomer(booked);
+        stay.setCheckInDate(LocalDate.now().plusDays(30));
+        stay.setCheckOutDate(LocalDate.now().plusDays(32));
+        stay.setTotalPrice(200.0);
+        reservationRepository.save(stay);
+        Customer fresh = guest("fresh.guest@example.com");
+
+        // Anyone can sign up with a booked guest's email; that guest's stays must not come with it
+        assertNull(jwtUtil.extractCustomerId(signup("booked.guest@example.com")));
+        assertNull(customerRepository.findById(booked.getCustomerId()).orElseThrow().getUser());
+
+        assertEquals(fresh.getCustomerId(), jwtUtil.extractCustomerId(signup("fresh.guest@example.com")));
+    }
+
     @Test
     void testBookingWithoutAuth() throws Exception {
         // Attempt booking without authentication should fail
@@ -188,6 +225,118 @@ public class AuthAndBookingIntegrationTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    void testBookingByRoomTypeUntilSoldOut() throws Exception {
+        String token = loginAndGetToken();
+
+        // The test hotel has a single Deluxe room, so the ledger allows one stay per night
+        Map<String, Object> bookingRequest = createBookingRequest();
+        bookingRequest.remove("roomId");
+        bookingRequest.put("roomType", "Deluxe");
+
+        mockMvc.perform(post("/api/bookings/hotel")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.roomId").value(testRoom.getRoomId()));
+
+        mockMvc.perform(post("/api/bookings/hotel")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookingRequest)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testUserBookingsListsOwnStaysWithCursor() throws Exception {
+        String token = loginAndGetToken();
+
+        // Booked under a different contact email: the stay still belongs to the signed-in user
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> bookingRequest = createBookingRequest();
+            bookingRequest.put("checkIn", LocalDate.now().plusDays(10 + i * 3).toString());
+            bookingRequest.put("checkOut", LocalDate.now().plusDays(12 + i * 3).toString());
+            bookingRequest.put("contactEmail", "someone.else@example.com");
+            mockMvc.perform(post("/api/bookings/hotel")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(bookingRequest)))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/bookings/user/" + testUser.getId())
+                .param("limit", "1")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].roomId").value(testRoom.getRoomId()))
+                .andExpect(header().exists(HotelController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        mockMvc.perform(get("/api/bookings/user/" + testUser.getId())
+                .param("limit", "1")
+                .param("after", first.getResponse().getHeader(HotelController.NEXT_CURSOR_HEADER))
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].checkInDate").value(LocalDate.now().plusDays(13).toString()))
+                .andExpect(header().doesNotExist(HotelController.NEXT_CURSOR_HEADER));
+
+        mockMvc.perform(get("/api/bookings/user/" + (testUser.getId() + 1))
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testLoginRehashesPasswordStoredAtOldCost() throws Exception {
+        testUser.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.save(testUser);
+
+        loginAndGetToken();
+
+        String stored = userRepository.findById(testUser.getId()).orElseThrow().getPassword();
+        assertTrue(stored.startsWith("$2a$10$"), stored);
+        assertTrue(passwordEncoder.matches("password123", stored));
+    }
+
+    private Customer guest(String email) {
+        Customer customer = new Customer();
+        customer.setFullName("Guest");
+        customer.setEmail(email);
+        customer.setPhoneNumber("+1234567890");
+        return customerRepository.save(customer);
+    }
+
+    private String signup(String email) throws Exception {
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail(email);
+        signupRequest.setPassword("password123");
+        signupRequest.setFullName("Claimant");
+        signupRequest.setPhoneNumber("+1234567890");
+        MvcResult result = mockMvc.perform(post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return (String) objectMapper.readValue(result.getResponse().getContentAsString(), Map.class).get("token");
+    }
+
+    private String loginAndGetToken() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password123");
+
+        MvcResult loginResult = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Map<String, Object> loginResponse = objectMapper.readValue(loginResult.getResponse().getContentAsString(), Map.class);
+        return (String) loginResponse.get("token");
+    }
+
     private Map<String, Object> createBookingRequest() {
         Map<String, Object> request = new HashMap<>();
         request.put("hotelId", testHotel.getId());
@@ -0,0 +1,291 @@
+package com.hotelreservation.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.repository.UserRepository;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.BookingHolds;
+import com.hotelreservation.backend.service.InventoryLedger;
+import com.hotelreservation.backend.service.PricingEngine;
+import com.hotelreservation.backend.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Checkout holds block a room without a reservation row, turn into exactly one
+ * booking when confirmed and give the nights back when released or expired.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookingHoldTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingHolds bookingHolds;
+
+    @MockitoSpyBean
+    private PricingEngine pricingEngine;
+
+    private User user;
+    private Hotel hotel;
+    private Room room;
+    private String token;
+    private final LocalDate checkIn = LocalDate.now().plusDays(20);
+    private final LocalDate checkOut = checkIn.plusDays(2);
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("holder@example.com");
+        user.setPassword("unused");
+        user.setFullName("Hold User");
+        user.setPhoneNumber("+1234567890");
+        user = userRepository.save(user);
+        token = jwtUtil.generateToken(user.getId(), user.getEmail());
+
+        hotel = new Hotel();
+        hotel.setName("Checkout Hotel");
+        hotel.setCity("Holdfast");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("H-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .forEach(reservationRepository::delete);
+        inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        customerRepository.findByEmail("hold.contact@example.com").ifPresent(customerRepository::delete);
+        roomRepository.deleteById(room.getRoomId());
+        hotelRepository.deleteById(hotel.getId());
+        userRepository.deleteById(user.getId());
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void heldRoomIsBlockedUntilTheHoldBecomesOneBooking() throws Exception {
+        MockHttpServletResponse held = send("/api/bookings/holds", holdRequest());
+        assertEquals(201, held.getStatus());
+        JsonNode hold = objectMapper.readTree(held.getContentAsString());
+        String holdId = hold.get("holdId").asText();
+        assertEquals("/api/bookings/holds/" + holdId, held.getHeader("Location"));
+        assertEquals(200.0, hold.get("totalPrice").asDouble());
+
+        // Nothing is written, yet nobody else can take the nights
+        assertTrue(reservationsForRoom().isEmpty());
+        assertFalse(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+        assertEquals(409, send("/api/bookings/hotel", holdRequest()).getStatus());
+        assertEquals(409, send("/api/bookings/holds", holdRequest()).getStatus());
+
+        MockHttpServletResponse booked = send("/api/bookings/holds/" + holdId + "/confirm", null);
+        assertEquals(201, booked.getStatus());
+        assertEquals("CONFIRMED", objectMapper.readTree(booked.getContentAsString()).get("status").asText());
+        List<Reservation> reservations = reservationsForRoom();
+        assertEquals(1, reservations.size());
+        assertEquals(checkIn, reservations.get(0).getCheckInDate());
+        assertFalse(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+
+        // The hold is gone once it has been turned into a booking
+        assertEquals(404, send("/api/bookings/holds/" + holdId + "/confirm", null).getStatus());
+    }
+
+    @Test
+    void releasedAndExpiredHoldsGiveTheNightsBack() throws Exception {
+        String released = objectMapper.readTree(send("/api/bookings/holds", holdRequest()).getContentAsString())
+                .get("holdId").asText();
+        assertEquals(204, mockMvc.perform(delete("/api/bookings/holds/" + released)
+                        .header("Authorization", "Bearer " + token))
+                .andReturn().getResponse().getStatus());
+        assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+
+        ReflectionTestUtils.setField(bookingHolds, "ttlSeconds", 1L);
+        try {
+            String expiring = objectMapper.readTree(send("/api/bookings/holds", holdRequest()).getContentAsString())
+                    .get("holdId").asText();
+            assertFalse(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+            assertEquals(404, send("/api/bookings/holds/" + expiring + "/confirm", null).getStatus());
+            assertTrue(reservationsForRoom().isEmpty());
+        } finally {
+            ReflectionTestUtils.setField(bookingHolds, "ttlSeconds", 300L);
+        }
+    }
+
+    @Test
+    void anOwnerHoldsAtMostFiveRoomsAtOnce() throws Exception {
+        List<String> holds = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                holds.add(holdNights(i));
+            }
+            assertEquals(429, send("/api/bookings/holds", nights(5)).getStatus());
+
+            // Giving one back frees its slot
+            release(holds.remove(0));
+            holds.add(holdNights(5));
+            assertEquals(429, send("/api/bookings/holds", nights(6)).getStatus());
+        } finally {
+            for (String hold : holds) {
+                release(hold);
+            }
+        }
+    }
+
+    @Test
+    void aHoldThatFailsToBePlacedLeavesNothingBehind() throws Exception {
+        doThrow(new IllegalStateException("Rate calendar unavailable")).when(pricingEngine)
+                .quote(eq(hotel.getId()), anyString(), anyDouble(), any(LocalDate.class), any(LocalDate.class));
+        assertEquals(500, send("/api/bookings/holds", holdRequest()).getStatus());
+        assertEquals(0, bookingHolds.size());
+        assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+
+        // Nor does it keep one of the owner's hold slots
+        reset(pricingEngine);
+        List<String> holds = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                holds.add(holdNights(i));
+            }
+        } finally {
+            for (String hold : holds) {
+                release(hold);
+            }
+        }
+    }
+
+    @Test
+    void staysLongerThanThePricingHorizonAreTurnedAway() throws Exception {
+        Map<String, Object> request = holdRequest();
+        request.put("checkOut", checkIn.plusYears(10).toString());
+        assertEquals(400, send("/api/bookings/holds", request).getStatus());
+        assertEquals(400, send("/api/bookings/hotel", request).getStatus());
+        assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+    }
+
+    private Map<String, Object> nights(int week) {
+        Map<String, Object> request = holdRequest();
+        request.put("checkIn", checkIn.plusWeeks(week).toString());
+        request.put("checkOut", checkOut.plusWeeks(week).toString());
+        return request;
+    }
+
+    private String holdNights(int week) throws Exception {
+        MockHttpServletResponse held = send("/api/bookings/holds", nights(week));
+        assertEquals(201, held.getStatus());
+        return objectMapper.readTree(held.getContentAsString()).get("holdId").asText();
+    }
+
+    private void release(String holdId) throws Exception {
+        assertEquals(204, mockMvc.perform(delete("/api/bookings/holds/" + holdId)
+                        .header("Authorization", "Bearer " + token))
+                .andReturn().getResponse().getStatus());
+    }
+
+    private MockHttpServletResponse send(String path, Map<String, Object> body) throws Exception {
+        MockHttpServletRequestBuilder request = post(path)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (body != null) {
+            request.content(objectMapper.writeValueAsString(body));
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private Map<String, Object> holdRequest() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("hotelId", hotel.getId());
+        request.put("roomId", room.getRoomId());
+        request.put("checkIn", checkIn.toString());
+        request.put("checkOut", checkOut.toString());
+        request.put("guests", 2);
+        request.put("contactName", "Hold User");
+        request.put("contactEmail", "hold.contact@example.com");
+        request.put("contactPhone", "+1234567890");
+        return request;
+    }
+
+    private List<Reservation> reservationsForRoom() {
+        return reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .toList();
+    }
+}
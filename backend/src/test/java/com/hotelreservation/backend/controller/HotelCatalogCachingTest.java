@@ -0,0 +1,168 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.CatalogResponseCache;
+import com.hotelreservation.backend.service.HotelCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class HotelCatalogCachingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        hotel = new Hotel();
+        hotel.setName("Etag Hotel");
+        hotel.setCity("Etagville");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.2);
+        hotel.setPricePerNight(110.0);
+        hotel.setTags(new ArrayList<>(List.of("Spa")));
+        hotel = hotelRepository.save(hotel);
+        awaitInCatalog(hotel.getId(), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        roomRepository.deleteAll(roomRepository.findByHotelId(hotel.getId()));
+        hotelRepository.deleteById(hotel.getId());
+    }
+
+    @Test
+    void repeatRequestWithEtagIsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/hotels").param("city", "etagville"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", containsString("max-age")))
+                .andExpect(jsonPath("$[0].name").value("Etag Hotel"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        // Same filters in a different spelling hit the same entry
+        mockMvc.perform(get("/api/hotels").param("city", " EtagVille ").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+
+        mockMvc.perform(get("/api/hotels/" + hotel.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Etagville"));
+    }
+
+    @Test
+    void gzipVariantDecompressesToTheSameJson() throws Exception {
+        String plain = mockMvc.perform(get("/api/hotels"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        MvcResult gzipped = mockMvc.perform(get("/api/hotels").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn();
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            assertEquals(plain, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void writesChangeTheEtag() throws Exception {
+        String hotelEtag = mockMvc.perform(get("/api/hotels/" + hotel.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        String roomsEtag = mockMvc.perform(get("/api/hotels/" + hotel.getId() + "/rooms"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        Room room = new Room();
+        room.setRoomNumber("E-" + hotel.getId());
+        room.setRoomType("Standard");
+        room.setPricePerNight(90.0);
+        room.setHotel(hotel);
+        roomRepository.save(room);
+
+        mockMvc.perform(get("/api/hotels/" + hotel.getId() + "/rooms").header("If-None-Match", roomsEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roomNumber").value("E-" + hotel.getId()));
+
+        hotel.setRating(4.9);
+        hotel = hotelRepository.save(hotel);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hotelCatalog.find(hotel.getId()).map(v -> v.rating() != 4.9).orElse(true)) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+        mockMvc.perform(get("/api/hotels/" + hotel.getId()).header("If-None-Match", hotelEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating").value(4.9));
+    }
+
+    @Test
+    void catalogChangesKeepRoomListsAndDropOlderHotelEntries() throws Exception {
+        AtomicInteger roomRenders = new AtomicInteger();
+        AtomicInteger hotelRenders = new AtomicInteger();
+        responseCache.rooms(hotel.getId(), () -> new CatalogResponseCache.Content(List.of(roomRenders.incrementAndGet())));
+        responseCache.hotel(hotel.getId(), () -> new CatalogResponseCache.Content(hotelRenders.incrementAndGet()));
+
+        long version = hotelCatalog.version();
+        hotel.setRating(3.3);
+        hotel = hotelRepository.save(hotel);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hotelCatalog.version() == version) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+
+        responseCache.rooms(hotel.getId(), () -> new CatalogResponseCache.Content(List.of(roomRenders.incrementAndGet())));
+        responseCache.hotel(hotel.getId(), () -> new CatalogResponseCache.Content(hotelRenders.incrementAndGet()));
+        assertEquals(1, roomRenders.get());
+        assertEquals(2, hotelRenders.get());
+    }
+
+    private void awaitInCatalog(Long id, boolean present) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hotelCatalog.find(id).isPresent() != present) {
+            assertTrue(System.currentTimeMillis() < deadline, "Catalog did not catch up within 5s");
+            Thread.sleep(20);
+        }
+    }
+}
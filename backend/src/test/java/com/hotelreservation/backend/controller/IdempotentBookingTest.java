@@ -0,0 +1,248 @@
+package com.hotelreservation.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.IdempotencyRecord;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.IdempotencyRecordRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.repository.UserRepository;
+import com.hotelreservation.backend.service.IdempotencyService;
+import com.hotelreservation.backend.service.AvailabilityIndex;
+import com.hotelreservation.backend.service.InventoryLedger;
+import com.hotelreservation.backend.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Retried bookings with the same Idempotency-Key must produce exactly one
+ * reservation and the same response.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IdempotentBookingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRepository;
+
+    private User user;
+    private Hotel hotel;
+    private Room room;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("retry@example.com");
+        user.setPassword("unused");
+        user.setFullName("Retry User");
+        user.setPhoneNumber("+1234567890");
+        user = userRepository.save(user);
+        token = jwtUtil.generateToken(user.getId(), user.getEmail());
+
+        hotel = new Hotel();
+        hotel.setName("Retry Hotel");
+        hotel.setCity("Replay");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("R-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRepository.deleteAll();
+        reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .forEach(reservationRepository::delete);
+        // Other test contexts recreate the schema, so ids are reused; leave no nights behind
+        inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        customerRepository.findByEmail("retry.contact@example.com").ifPresent(customerRepository::delete);
+        roomRepository.deleteById(room.getRoomId());
+        hotelRepository.deleteById(hotel.getId());
+        userRepository.deleteById(user.getId());
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void retryReturnsTheOriginalResponseWithoutBookingAgain() throws Exception {
+        MockHttpServletResponse first = book("key-1", bookingRequest(5));
+        MockHttpServletResponse retry = book("key-1", bookingRequest(5));
+
+        assertEquals(201, first.getStatus());
+        assertEquals(201, retry.getStatus());
+        assertEquals(bookingId(first), bookingId(retry));
+        assertNull(first.getHeader(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(1, reservationsForRoom());
+
+        // Once out of memory, the key is answered from the table
+        ((Map<?, ?>) ReflectionTestUtils.getField(idempotencyService, "recent")).clear();
+        MockHttpServletResponse later = book("key-1", bookingRequest(5));
+        assertEquals(201, later.getStatus());
+        assertEquals(bookingId(first), bookingId(later));
+        assertEquals(1, reservationsForRoom());
+
+        // A new key is a new booking
+        assertEquals(201, book("key-2", bookingRequest(9)).getStatus());
+        assertEquals(2, reservationsForRoom());
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsRefused() throws Exception {
+        assertEquals(201, book("key-3", bookingRequest(5)).getStatus());
+        assertEquals(422, book("key-3", bookingRequest(6)).getStatus());
+        assertEquals(1, reservationsForRoom());
+    }
+
+    @Test
+    void concurrentDuplicatesCoalesceOntoOneBooking() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<MockHttpServletResponse>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(() -> book("key-4", bookingRequest(12)));
+            }
+            Set<String> bookingIds = new HashSet<>();
+            for (Future<MockHttpServletResponse> attempt : clients.invokeAll(attempts)) {
+                MockHttpServletResponse response = attempt.get();
+                assertEquals(201, response.getStatus(), response.getContentAsString());
+                bookingIds.add(bookingId(response));
+            }
+            assertEquals(1, bookingIds.size());
+            assertEquals(1, reservationsForRoom());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void abandonedClaimIsTakenOverOnceItsLeaseExpires() throws Exception {
+        assertEquals(201, book("key-5", bookingRequest(15)).getStatus());
+
+        // As if the node had claimed the key and died before booking anything
+        reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .forEach(reservationRepository::delete);
+        inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        availabilityIndex.rebuild();
+        IdempotencyRecord claim = idempotencyRepository.findAll().get(0);
+        claim.setResponseStatus(null);
+        claim.setResponseBody(null);
+        claim.setClaimedAt(LocalDateTime.now().minusSeconds(1));
+        idempotencyRepository.save(claim);
+        ((Map<?, ?>) ReflectionTestUtils.getField(idempotencyService, "recent")).clear();
+
+        // Within the lease the claimant may still be working
+        assertEquals(409, book("key-5", bookingRequest(15)).getStatus());
+
+        claim.setClaimedAt(LocalDateTime.now().minusHours(1));
+        idempotencyRepository.save(claim);
+        ((Map<?, ?>) ReflectionTestUtils.getField(idempotencyService, "recent")).clear();
+        MockHttpServletResponse retry = book("key-5", bookingRequest(15));
+        assertEquals(201, retry.getStatus(), retry.getContentAsString());
+        assertEquals(1, reservationsForRoom());
+        assertEquals(201, idempotencyRepository.findById(claim.getId()).orElseThrow().getResponseStatus());
+    }
+
+    private MockHttpServletResponse book(String key, Map<String, Object> request) throws Exception {
+        return mockMvc.perform(post("/api/bookings/hotel")
+                        .header("Authorization", "Bearer " + token)
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andReturn().getResponse();
+    }
+
+    private Map<String, Object> bookingRequest(int daysAhead) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("hotelId", hotel.getId());
+        request.put("roomId", room.getRoomId());
+        request.put("checkIn", LocalDate.now().plusDays(daysAhead).toString());
+        request.put("checkOut", LocalDate.now().plusDays(daysAhead + 2).toString());
+        request.put("guests", 2);
+        request.put("totalPrice", 200.0);
+        request.put("contactName", "Retry User");
+        request.put("contactEmail", "retry.contact@example.com");
+        request.put("contactPhone", "+1234567890");
+        return request;
+    }
+
+    private String bookingId(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readTree(response.getContentAsString()).get("bookingId").asText();
+    }
+
+    private long reservationsForRoom() {
+        return reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .count();
+    }
+}
@@ -0,0 +1,145 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.HotelCatalog;
+import com.hotelreservation.backend.service.HotelSearchService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Listing endpoints must issue a fixed number of SQL statements however many
+ * rows they return.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ListingQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private HotelSearchService hotelSearchService;
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Hotel> hotels = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        for (int h = 0; h < 12; h++) {
+            Hotel hotel = new Hotel();
+            hotel.setName("Counted Hotel " + h);
+            hotel.setCity("Countburg");
+            hotel.setCountry("Testland");
+            hotel.setRating(4.0);
+            hotel.setPricePerNight(100.0 + h);
+            hotel.setTags(new ArrayList<>(List.of("Quiet", "Tag" + h)));
+            hotel = hotelRepository.save(hotel);
+            hotels.add(hotel);
+            for (int r = 0; r < (h == 0 ? 1 : 6); r++) {
+                Room room = new Room();
+                room.setRoomNumber("Q-" + hotel.getId() + "-" + r);
+                room.setRoomType("Standard");
+                room.setPricePerNight(80.0);
+                room.setHotel(hotel);
+                roomRepository.save(room);
+            }
+        }
+        // The catalog reloads changed hotels in the background; let it finish so its
+        // statements do not land in the counts below
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (hotels.stream().anyMatch(hotel -> hotelCatalog.find(hotel.getId()).isEmpty())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Hotel hotel : hotels) {
+            roomRepository.deleteAll(roomRepository.findByHotelId(hotel.getId()));
+            hotelRepository.deleteById(hotel.getId());
+        }
+    }
+
+    @Test
+    void hotelRoomsListingIsConstantInRoomCount() throws Exception {
+        long one = statementsFor("/api/hotels/" + hotels.get(0).getId() + "/rooms", 1);
+        long six = statementsFor("/api/hotels/" + hotels.get(1).getId() + "/rooms", 6);
+        assertEquals(one, six);
+        assertTrue(six <= 2, "rooms listing issued " + six + " statements");
+    }
+
+    @Test
+    void allRoomsListingIsConstantInRoomCount() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/api/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.roomNumber == 'Q-" + hotels.get(3).getId() + "-0')].hotel.tags[0]")
+                        .value("Quiet"));
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 2, "rooms listing issued " + statements + " statements");
+    }
+
+    @Test
+    void databaseHotelSearchIsConstantInPageSize() {
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity("Countburg");
+
+        criteria.setLimit(2);
+        statistics.clear();
+        hotelSearchService.search(criteria).getItems().forEach(h -> h.tags().size());
+        long small = statistics.getPrepareStatementCount();
+
+        criteria.setLimit(12);
+        statistics.clear();
+        assertEquals(12, hotelSearchService.search(criteria).getItems().stream()
+                .filter(h -> h.tags().contains("Quiet")).count());
+        long large = statistics.getPrepareStatementCount();
+
+        assertEquals(small, large);
+        assertEquals(2, large);
+    }
+
+    private long statementsFor(String url, int expectedRooms) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(expectedRooms)))
+                .andExpect(jsonPath("$[0].hotel.name").exists());
+        return statistics.getPrepareStatementCount();
+    }
+}
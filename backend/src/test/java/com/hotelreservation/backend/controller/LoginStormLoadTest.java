@@ -0,0 +1,149 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.entity.User;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Catalog latency while far more logins arrive than the hashing bulkhead can
+ * take: the overflow must be refused with 503 and catalog p99 must stay close
+ * to its idle value. The request pool is kept small so that, without the
+ * bulkhead, hashing logins would hold every request thread.
+ *
+ * Timing-dependent, so it is tagged "load" and only runs with {@code mvn test -Pload}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.auth.hash-threads=1",
+        "app.auth.hash-queue=2",
+        "server.tomcat.threads.max=8"
+})
+public class LoginStormLoadTest {
+
+    private static final int STORM_CLIENTS = 16;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("storm@example.com");
+        user.setPassword(passwordEncoder.encode("password123"));
+        user.setFullName("Storm User");
+        user.setPhoneNumber("+1234567890");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Login links a customer record to the account
+        customerRepository.findByEmail(user.getEmail()).ifPresent(customerRepository::delete);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void catalogP99StaysFlatDuringLoginStorm() throws Exception {
+        // Warm up, then measure the idle catalog
+        catalogLatencies(100);
+        long idleP99 = p99(catalogLatencies(200));
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService storm = Executors.newFixedThreadPool(STORM_CLIENTS);
+        for (int i = 0; i < STORM_CLIENTS; i++) {
+            storm.submit(() -> {
+                while (storming.get()) {
+                    int status = login();
+                    if (status == 200) {
+                        accepted.incrementAndGet();
+                    } else if (status == 503) {
+                        // A well-behaved client backs off on 503 (scaled down from Retry-After)
+                        rejected.incrementAndGet();
+                        Thread.sleep(25);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long stormP99;
+        try {
+            Thread.sleep(200);
+            stormP99 = p99(catalogLatencies(200));
+        } finally {
+            storming.set(false);
+            storm.shutdown();
+            assertTrue(storm.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertTrue(accepted.get() > 0, "some logins get through");
+        assertTrue(rejected.get() > 0, "overflow is refused rather than queued");
+        assertTrue(stormP99 < Math.max(idleP99 * 10, TimeUnit.MILLISECONDS.toNanos(250)),
+                "catalog p99 went from " + idleP99 / 1e6 + " ms to " + stormP99 / 1e6 + " ms");
+    }
+
+    private List<Long> catalogLatencies(int requests) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/hotels?limit=20"))
+                .GET().build();
+        List<Long> latencies = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latencies.add(System.nanoTime() - start);
+            assertEquals(200, response.statusCode());
+        }
+        return latencies;
+    }
+
+    private int login() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"storm@example.com\",\"password\":\"password123\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long p99(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.hotelreservation.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import com.hotelreservation.backend.service.NdjsonExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * List endpoints stream one JSON document per line when asked for NDJSON and
+ * keep returning a JSON array otherwise.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class NdjsonExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private Hotel hotel;
+    private final List<Room> rooms = new ArrayList<>();
+    private final List<Reservation> reservations = new ArrayList<>();
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Streamed Hotel");
+        hotel.setCity("Linebury");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(120.0);
+        hotel.setTags(new ArrayList<>(List.of("Quiet")));
+        hotel = hotelRepository.save(hotel);
+
+        customer = new Customer();
+        customer.setFullName("Stream Guest");
+        customer.setEmail("stream.guest@example.com");
+        customer.setPhoneNumber("+100000000");
+        customer = customerRepository.save(customer);
+
+        for (int r = 0; r < 5; r++) {
+            Room room = new Room();
+            room.setRoomNumber("N-" + r);
+            room.setRoomType("Standard");
+            room.setPricePerNight(90.0);
+            room.setHotel(hotel);
+            rooms.add(roomRepository.save(room));
+
+            Reservation reservation = new Reservation();
+            reservation.setRoom(room);
+            reservation.setCustomer(customer);
+            reservation.setCheckInDate(LocalDate.of(2031, 3, 1));
+            reservation.setCheckOutDate(LocalDate.of(2031, 3, 3));
+            reservation.setTotalPrice(180.0);
+            reservations.add(reservationRepository.save(reservation));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.deleteAll(reservations);
+        roomRepository.deleteAll(rooms);
+        customerRepository.delete(customer);
+        hotelRepository.delete(hotel);
+    }
+
+    @Test
+    void streamsRoomsAsOneDocumentPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/rooms").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<JsonNode> lines = parseLines(body);
+        assertEquals(roomRepository.count(), lines.size());
+        JsonNode streamed = lines.stream()
+                .filter(line -> line.get("roomId").asLong() == rooms.get(0).getRoomId())
+                .findFirst().orElseThrow();
+        assertEquals("Streamed Hotel", streamed.get("hotel").get("name").asText());
+    }
+
+    @Test
+    void plainJsonRequestsStillGetAnArray() throws Exception {
+        mockMvc.perform(get("/api/rooms"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$").isArray());
+        mockMvc.perform(get("/api/rooms").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void streamsReservationsWithTheirAssociations() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = ndjsonExporter.write(reservationRepository::streamAll, Function.identity(), out);
+
+        List<JsonNode> lines = parseLines(out.toString(StandardCharsets.UTF_8));
+        assertEquals(reservationRepository.count(), written);
+        assertEquals(written, lines.size());
+        JsonNode first = lines.stream()
+                .filter(line -> line.get("reservationId").asLong() == reservations.get(0).getReservationId())
+                .findFirst().orElseThrow();
+        assertEquals("Stream Guest", first.get("customer").get("fullName").asText());
+        assertEquals("N-0", first.get("room").get("roomNumber").asText());
+    }
+
+    private List<JsonNode> parseLines(String body) throws Exception {
+        assertTrue(body.isEmpty() || body.endsWith("\n"), "every row ends with a newline");
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.rules[0].name=login",
+        "app.rate-limit.rules[0].pattern=/api/auth/login",
+        "app.rate-limit.rules[0].methods=POST",
+        "app.rate-limit.rules[0].ip-burst=2",
+        "app.rate-limit.rules[0].ip-per-minute=2",
+        "app.rate-limit.rules[1].name=booking",
+        "app.rate-limit.rules[1].pattern=/api/bookings/**",
+        "app.rate-limit.rules[1].methods=POST",
+        "app.rate-limit.rules[1].user-burst=1",
+        "app.rate-limit.rules[1].user-per-minute=1"
+})
+@AutoConfigureMockMvc
+public class RateLimitFilterTest {
+
+    private static final String LOGIN_BODY = "{\"email\":\"nobody@example.com\",\"password\":\"password123\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void limitsLoginsPerClientAddress() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN_BODY)
+                            .with(request -> { request.setRemoteAddr("10.0.0.1"); return request; }))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN_BODY)
+                        .with(request -> { request.setRemoteAddr("10.0.0.1"); return request; }))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"))
+                .andExpect(jsonPath("$.status").value(429));
+
+        // Another address and unlimited routes are unaffected
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN_BODY)
+                        .with(request -> { request.setRemoteAddr("10.0.0.2"); return request; }))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/hotels").with(request -> { request.setRemoteAddr("10.0.0.1"); return request; }))
+                .andExpect(status().isOk());
+
+        assertEquals(1.0, meterRegistry.get("http.ratelimit.rejected")
+                .tag("route", "login").tag("scope", "ip").counter().count());
+    }
+
+    @Test
+    void limitsBookingsPerUser() throws Exception {
+        String first = jwtUtil.generateToken(9001L, "first@example.com");
+        String second = jwtUtil.generateToken(9002L, "second@example.com");
+
+        // The body is incomplete, so an admitted request fails validation rather than booking
+        mockMvc.perform(post("/api/bookings/hotel").header("Authorization", "Bearer " + first)
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/bookings/hotel").header("Authorization", "Bearer " + first)
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        mockMvc.perform(post("/api/bookings/hotel").header("Authorization", "Bearer " + second)
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+}
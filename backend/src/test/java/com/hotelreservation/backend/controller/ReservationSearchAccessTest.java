@@ -0,0 +1,72 @@
+package com.hotelreservation.backend.controller;
+
+import com.hotelreservation.backend.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The reservation search lists every guest's bookings and the journal endpoints
+ * read or rebuild from all of them, so only admins may call any of these.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReservationSearchAccessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void plainUserIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/reservations/search")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(1L, "guest@stavia.test")))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.status").value(403));
+    }
+
+    @Test
+    void adminCanSearch() throws Exception {
+        mockMvc.perform(get("/api/reservations/search").param("limit", "5")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(2L, "Admin@Stavia.test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isArray());
+    }
+
+    @Test
+    void anonymousCallerMustAuthenticate() throws Exception {
+        mockMvc.perform(get("/api/reservations/search"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void plainUserCannotVerifyTheJournal() throws Exception {
+        mockMvc.perform(get("/api/reservations/journal/verify")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(1L, "guest@stavia.test")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void plainUserCannotReplayTheJournal() throws Exception {
+        mockMvc.perform(post("/api/reservations/journal/replay")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(1L, "guest@stavia.test")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void adminCanVerifyTheJournal() throws Exception {
+        mockMvc.perform(get("/api/reservations/journal/verify")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(2L, "admin@stavia.test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consistent").isBoolean())
+                .andExpect(jsonPath("$.missingFromJournal").isArray());
+    }
+}
@@ -0,0 +1,59 @@
+package com.hotelreservation.backend.security;
+
+import com.hotelreservation.backend.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtTokenVerifierTest {
+
+    private JwtUtil jwtUtil;
+    private JwtTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = jwtUtil(86_400_000L);
+        verifier = new JwtTokenVerifier(jwtUtil, 2);
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromCache() {
+        String token = jwtUtil.generateToken(42L, "guest@example.com", 7L);
+
+        AuthenticatedUser first = verifier.verify(token);
+        assertEquals(new AuthenticatedUser(42L, "guest@example.com", 7L), first);
+        assertEquals("guest@example.com", first.getName());
+        assertSame(first, verifier.verify(token));
+        assertEquals(1, verifier.size());
+    }
+
+    @Test
+    void cacheIsBounded() {
+        for (long id = 1; id <= 5; id++) {
+            verifier.verify(jwtUtil.generateToken(id, "user" + id + "@example.com"));
+        }
+        assertEquals(2, verifier.size());
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateToken(42L, "guest@example.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+
+        String expired = jwtUtil(-1_000L).generateToken(42L, "guest@example.com");
+        assertThrows(JwtException.class, () -> verifier.verify(expired));
+        assertEquals(0, verifier.size());
+    }
+
+    private static JwtUtil jwtUtil(long expirationMillis) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", "mySecretKey1234567890123456789012345678901234567890");
+        ReflectionTestUtils.setField(util, "expiration", expirationMillis);
+        ReflectionTestUtils.invokeMethod(util, "init");
+        return util;
+    }
+}
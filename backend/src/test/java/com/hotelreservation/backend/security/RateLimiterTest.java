@@ -0,0 +1,62 @@
+package com.hotelreservation.backend.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final RateLimiter limiter = new RateLimiter(now::get);
+
+    @Test
+    void admitsBurstThenRefillsAtRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip|1", 3, 60));
+        }
+        long wait = limiter.tryAcquire("ip|1", 3, 60);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+
+        // 60 per minute: one token back every second
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.tryAcquire("ip|1", 3, 60));
+        assertTrue(limiter.tryAcquire("ip|1", 3, 60) > 0);
+
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("ip|2", 3, 60));
+    }
+
+    @Test
+    void evictsOnlyBucketsThatHaveRefilled() {
+        limiter.tryAcquire("busy", 1, 1);
+        limiter.tryAcquire("idle", 1, 60);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(1, limiter.size());
+        assertTrue(limiter.tryAcquire("busy", 1, 1) > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws Exception {
+        AtomicLong admitted = new AtomicLong();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("shared", 50, 1) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, admitted.get());
+    }
+}
@@ -0,0 +1,47 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingAnalyticsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BookingAnalytics analytics = new BookingAnalytics(registry);
+
+    private static BookingEvent event(long id, long hotelId, BookingEvent.Type type) {
+        LocalDate checkIn = LocalDate.of(2030, 5, 1);
+        return new BookingEvent(id, type, id, 10L, hotelId, 20L, checkIn, checkIn.plusDays(3), 300.0,
+                LocalDateTime.now());
+    }
+
+    private double nights(String type) {
+        return registry.get("booking.analytics.nights").tag("type", type).counter().count();
+    }
+
+    @Test
+    void redeliveredEventsAreCountedOnce() {
+        analytics.onEvent(event(1, 1, BookingEvent.Type.CONFIRMED));
+        analytics.onEvent(event(1, 1, BookingEvent.Type.CONFIRMED));
+        analytics.onEvent(event(2, 1, BookingEvent.Type.CANCELLED));
+
+        assertEquals(3.0, nights("confirmed"));
+        assertEquals(3.0, nights("cancelled"));
+        assertEquals(300.0, registry.get("booking.analytics.revenue").tag("type", "confirmed").counter().count());
+    }
+
+    @Test
+    void metersDoNotGrowWithHotels() {
+        for (long hotelId = 1; hotelId <= 50; hotelId++) {
+            analytics.onEvent(event(hotelId, hotelId, BookingEvent.Type.CONFIRMED));
+        }
+
+        assertEquals(2, registry.find("booking.analytics.nights").counters().size());
+        assertEquals(150.0, nights("confirmed"));
+    }
+}
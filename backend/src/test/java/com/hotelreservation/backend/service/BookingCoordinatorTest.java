@@ -0,0 +1,125 @@
+package com.hotelreservation.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-room booking lock. Each "booking" holds the room lock across a short sleep
+ * that stands in for a database round trip; the tests check which critical
+ * sections may overlap rather than how long they take.
+ */
+class BookingCoordinatorTest {
+
+    private static final int THREADS = 16;
+    private static final int BOOKINGS_PER_THREAD = 20;
+    private static final long ROUND_TRIP_MS = 2;
+
+    private final BookingCoordinator coordinator = new BookingCoordinator();
+
+    @Test
+    void oneRoomHasExactlyOneWinner() throws Exception {
+        boolean[] sold = {false};
+        AtomicInteger winners = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> coordinator.withRoomLock(42L, () -> {
+            // Unsynchronized check-then-act that only the room lock makes safe
+            if (!sold[0]) {
+                sleep(ROUND_TRIP_MS);
+                sold[0] = true;
+                winners.incrementAndGet();
+            }
+            return null;
+        }));
+
+        assertEquals(1, winners.get());
+        assertEquals(0, coordinator.activeLocks());
+    }
+
+    @Test
+    void distinctRoomsAreHeldAtTheSameTime() throws Exception {
+        // Every thread waits inside its own room's lock until all of them are in;
+        // if distinct rooms serialized, the first one in would wait forever
+        CountDownLatch allInside = new CountDownLatch(THREADS);
+        AtomicInteger metInside = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> coordinator.withRoomLock((long) thread, () -> {
+            allInside.countDown();
+            try {
+                if (allInside.await(10, TimeUnit.SECONDS)) {
+                    metInside.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+
+        assertEquals(THREADS, metInside.get());
+        assertEquals(0, coordinator.activeLocks());
+    }
+
+    @Test
+    void oneRoomNeverHasTwoBookingsInside() throws Exception {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                coordinator.withRoomLock(7L, () -> {
+                    if (inside.incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    sleep(ROUND_TRIP_MS);
+                    inside.decrementAndGet();
+                    done.incrementAndGet();
+                    return null;
+                });
+            }
+            return null;
+        });
+
+        assertEquals(0, overlaps.get());
+        assertEquals(THREADS * BOOKINGS_PER_THREAD, done.get());
+        assertEquals(0, coordinator.activeLocks());
+    }
+
+    private void runConcurrently(int threads, java.util.function.IntFunction<Object> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.apply(thread);
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class BookingJournalTest {
+
+    // Four records per segment, so a handful of appends crosses several segments
+    private static final long SEGMENT_BYTES = 4 * BookingJournal.RECORD_BYTES;
+
+    @Autowired
+    private BookingJournal bookingJournal;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void appendsRollAcrossSegmentsAndReplayInOrder() throws Exception {
+        BookingJournal journal = openJournal();
+        try {
+            long baseline = journal.lastSequence();
+            for (int i = 1; i <= 10; i++) {
+                journal.append(BookingJournal.Type.CONFIRMED, 1000 + i, 7, 3, 20000, 20002, 12345);
+            }
+
+            List<BookingJournal.Entry> entries = new ArrayList<>();
+            BookingJournal.ReplayStats stats = journal.replay(entries::add);
+
+            assertEquals(0, stats.tornRecords());
+            assertEquals(baseline + 10, stats.records());
+            assertTrue(segmentCount() >= 3);
+            for (int i = 0; i < entries.size(); i++) {
+                assertEquals(i + 1, entries.get(i).sequence());
+            }
+            BookingJournal.Entry last = entries.get(entries.size() - 1);
+            assertEquals(1010, last.reservationId());
+            assertEquals(LocalDate.ofEpochDay(20002), last.checkOut());
+            assertEquals(123.45, last.totalPrice(), 0.001);
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void tornRecordEndsReplayAndIsOverwrittenAfterRestart() throws Exception {
+        BookingJournal journal = openJournal();
+        long lastGood;
+        long torn;
+        try {
+            journal.append(BookingJournal.Type.CONFIRMED, 1, 1, 1, 20000, 20001, 100);
+            lastGood = journal.append(BookingJournal.Type.CONFIRMED, 2, 1, 1, 20001, 20002, 100);
+            torn = journal.append(BookingJournal.Type.CANCELLED, 1, 1, 1, 20000, 20001, 100);
+        } finally {
+            journal.close();
+        }
+
+        // Flip a byte in the last record, as a crash in the middle of writing it would
+        Path segment;
+        try (var files = Files.list(journalDir)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".journal"))
+                    .sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        long offset = (torn - firstSequenceOf(segment)) * BookingJournal.RECORD_BYTES + 30;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+        BookingJournal.ReplayStats damaged = journal.replay(entry -> { });
+        assertEquals(1, damaged.tornRecords());
+        assertEquals(lastGood, damaged.records());
+
+        // Reopening drops the torn record, so the next append takes its sequence
+        BookingJournal restarted = openJournal();
+        try {
+            assertEquals(lastGood, restarted.lastSequence());
+
+            long next = restarted.append(BookingJournal.Type.DELETED, 2, 1, 1, 20001, 20002, 100);
+            assertEquals(torn, next);
+
+            Map<Long, BookingJournal.Entry> state = new LinkedHashMap<>();
+            BookingJournal.ReplayStats stats = restarted.replayState(state);
+            assertEquals(0, stats.tornRecords());
+            assertFalse(state.containsKey(2L));
+            assertEquals(BookingJournal.Type.CONFIRMED, state.get(1L).type());
+        } finally {
+            restarted.close();
+        }
+    }
+
+    @Test
+    void bookingsAreJournaledAndReplayRebuildsTheIndex() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.setName("Journal Hotel");
+        hotel.setCity("Ledger");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        Room room = new Room();
+        room.setRoomNumber("J-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(90.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+
+        Customer customer = new Customer();
+        customer.setFullName("Journal Guest");
+        customer.setEmail("journal@example.com");
+        customer.setPhoneNumber("+1234567890");
+        customer = customerRepository.save(customer);
+
+        LocalDate checkIn = LocalDate.now().plusDays(40);
+        Long roomId = room.getRoomId();
+        try {
+            Reservation cancelled = bookingService.createReservation(roomId, customer.getCustomerId(),
+                    checkIn, checkIn.plusDays(2));
+            bookingService.cancel(cancelled.getReservationId());
+            Reservation kept = bookingService.createReservation(roomId, customer.getCustomerId(),
+                    checkIn.plusDays(5), checkIn.plusDays(7));
+            // Journaled just before a commit that then fails, so replay must not see it
+            Long guestId = customer.getCustomerId();
+            Reservation[] rolledBack = new Reservation[1];
+            assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        rolledBack[0] = bookingService.createReservation(roomId, guestId,
+                                checkIn.plusDays(10), checkIn.plusDays(12));
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void beforeCommit(boolean readOnly) {
+                                throw new IllegalStateException("Commit refused");
+                            }
+                        });
+                    }));
+
+            Map<Long, BookingJournal.Entry> state = new LinkedHashMap<>();
+            bookingJournal.replayState(state);
+            assertEquals(BookingJournal.Type.CANCELLED, state.get(cancelled.getReservationId()).type());
+            BookingJournal.Entry confirmed = state.get(kept.getReservationId());
+            assertEquals(BookingJournal.Type.CONFIRMED, confirmed.type());
+            assertEquals(roomId, confirmed.roomId());
+            assertEquals(180.0, confirmed.totalPrice(), 0.001);
+
+            assertFalse(state.containsKey(rolledBack[0].getReservationId()));
+
+            availabilityIndex.rebuild(state.values().stream()
+                    .filter(entry -> entry.type() == BookingJournal.Type.CONFIRMED)
+                    .map(entry -> new AvailabilityIndex.Stay(entry.roomId(), entry.checkIn(), entry.checkOut()))
+                    .toList());
+            assertTrue(availabilityIndex.isFree(roomId, checkIn, checkIn.plusDays(2)));
+            assertFalse(availabilityIndex.isFree(roomId, checkIn.plusDays(5), checkIn.plusDays(7)));
+            assertTrue(availabilityIndex.isFree(roomId, checkIn.plusDays(10), checkIn.plusDays(12)));
+
+            bookingService.delete(cancelled.getReservationId());
+            bookingService.delete(kept.getReservationId());
+            state.clear();
+            bookingJournal.replayState(state);
+            assertFalse(state.containsKey(kept.getReservationId()));
+        } finally {
+            reservationRepository.findAll().stream()
+                    .filter(reservation -> reservation.getRoom().getRoomId().equals(roomId))
+                    .forEach(reservation -> reservationRepository.deleteById(reservation.getReservationId()));
+            roomRepository.deleteById(roomId);
+            hotelRepository.deleteById(hotel.getId());
+            customerRepository.deleteById(customer.getCustomerId());
+            availabilityIndex.rebuild();
+        }
+    }
+
+    private BookingJournal openJournal() throws Exception {
+        BookingJournal journal = new BookingJournal(reservationRepository, transactionManager,
+                journalDir.toString(), SEGMENT_BYTES, "group", 100);
+        journal.open();
+        return journal;
+    }
+
+    private long segmentCount() throws Exception {
+        try (var files = Files.list(journalDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).count();
+        }
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        return Long.parseLong(segment.getFileName().toString().replaceAll("\\D", ""));
+    }
+}
@@ -0,0 +1,240 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.BookingEvent;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class BookingOutboxTest {
+
+    @Autowired
+    private BookingOutbox bookingOutbox;
+
+    @Autowired
+    private BookingEventBus eventBus;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Hotel hotel;
+    private Room room;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Outbox Hotel");
+        hotel.setCity("Relay");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("O-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(70.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+
+        customer = new Customer();
+        customer.setFullName("Outbox Guest");
+        customer.setEmail("outbox@example.com");
+        customer.setPhoneNumber("+1234567890");
+        customer = customerRepository.save(customer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingOutbox.relay();
+        reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getRoom().getRoomId().equals(room.getRoomId()))
+                .forEach(reservation -> reservationRepository.deleteById(reservation.getReservationId()));
+        roomRepository.deleteById(room.getRoomId());
+        hotelRepository.deleteById(hotel.getId());
+        customerRepository.deleteById(customer.getCustomerId());
+        inventoryLedger.invalidate(hotel.getId(), "Standard");
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void bookingEventsReachSubscribersOffTheRequestThread() throws Exception {
+        List<BookingEvent> events = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch received = new CountDownLatch(2);
+        Runnable unsubscribe = eventBus.subscribe(subscriber("recorder", event -> {
+            events.add(event);
+            threads.add(Thread.currentThread().getName());
+            received.countDown();
+        }));
+        try {
+            LocalDate checkIn = LocalDate.now().plusDays(50);
+            Reservation reservation = bookingService.createReservation(room.getRoomId(), customer.getCustomerId(),
+                    checkIn, checkIn.plusDays(2));
+            bookingService.cancel(reservation.getReservationId());
+
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(BookingEvent.Type.CONFIRMED, BookingEvent.Type.CANCELLED),
+                    events.stream().map(BookingEvent::type).toList());
+            BookingEvent confirmed = events.get(0);
+            assertEquals(reservation.getReservationId(), confirmed.reservationId());
+            assertEquals(hotel.getId(), confirmed.hotelId());
+            assertEquals(140.0, confirmed.totalPrice(), 0.001);
+            assertTrue(threads.stream().allMatch(name -> name.equals("booking-events-recorder")));
+
+            // Rows go once every subscriber is done with them
+            long deadline = System.currentTimeMillis() + 5000;
+            while (outboxSize() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, outboxSize());
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    void rolledBackChangesPublishNothing() {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(-1L);
+        reservation.setRoom(room);
+        reservation.setCheckInDate(LocalDate.now().plusDays(1));
+        reservation.setCheckOutDate(LocalDate.now().plusDays(2));
+
+        bookingOutbox.relay();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookingOutbox.add(BookingEvent.Type.CONFIRMED, reservation);
+            assertEquals(1, outboxSize());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxSize());
+    }
+
+    @Test
+    void failingSubscriberIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Runnable unsubscribe = eventBus.subscribe(subscriber("flaky", event -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("mail server unavailable");
+            }
+        }));
+        try {
+            LocalDate checkIn = LocalDate.now().plusDays(60);
+            bookingService.createReservation(room.getRoomId(), customer.getCustomerId(), checkIn, checkIn.plusDays(1));
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while ((attempts.get() < 2 || outboxSize() > 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(2, attempts.get());
+            assertEquals(0, outboxSize());
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    void eventASubscriberGivesUpOnStaysInTheOutbox() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Runnable unsubscribe = eventBus.subscribe(subscriber("broken", event -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("warehouse rejected the event");
+        }));
+        try {
+            LocalDate checkIn = LocalDate.now().plusDays(70);
+            Reservation reservation = bookingService.createReservation(room.getRoomId(), customer.getCustomerId(),
+                    checkIn, checkIn.plusDays(1));
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (failedRows(reservation) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, failedRows(reservation));
+            assertEquals(3, attempts.get());
+
+            // The relay leaves it alone from then on
+            bookingOutbox.relay();
+            assertEquals(3, attempts.get());
+            assertEquals(1, failedRows(reservation));
+        } finally {
+            unsubscribe.run();
+            jdbcTemplate.update("DELETE FROM booking_outbox WHERE failed_at IS NOT NULL AND room_id = ?",
+                    room.getRoomId());
+        }
+    }
+
+    private long failedRows(Reservation reservation) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking_outbox WHERE reservation_id = ? "
+                + "AND failed_at IS NOT NULL", Long.class, reservation.getReservationId());
+    }
+
+    private long outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM booking_outbox", Long.class);
+    }
+
+    private static BookingEventSubscriber subscriber(String name, Handler handler) {
+        return new BookingEventSubscriber() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void onEvent(BookingEvent event) throws Exception {
+                handler.handle(event);
+            }
+        };
+    }
+
+    private interface Handler {
+        void handle(BookingEvent event) throws Exception;
+    }
+}
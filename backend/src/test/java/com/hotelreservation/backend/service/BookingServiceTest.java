@@ -0,0 +1,229 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.exception.BookingException;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * What the database ends up holding when bookings and cancellations race or
+ * roll back.
+ */
+@SpringBootTest
+public class BookingServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Hotel hotel;
+    private Room room;
+    private final List<Room> extraRooms = new ArrayList<>();
+    private final LocalDate checkIn = LocalDate.now().plusDays(60);
+    private final LocalDate checkOut = checkIn.plusDays(2);
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Race Hotel");
+        hotel.setCity("Contention");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        room = new Room();
+        room.setRoomNumber("W-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getHotel().getId().equals(hotel.getId()))
+                .forEach(reservationRepository::delete);
+        inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        extraRooms.forEach(extra -> roomRepository.deleteById(extra.getRoomId()));
+        customerRepository.findAll().stream()
+                .filter(c -> c.getEmail().endsWith("@race.test"))
+                .forEach(customerRepository::delete);
+        roomRepository.deleteById(room.getRoomId());
+        hotelRepository.deleteById(hotel.getId());
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void concurrentBookingsOfOneRoomCommitExactlyOneRow() throws Exception {
+        ExecutorService guests = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Reservation>> attempts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int guest = i;
+                Callable<Reservation> attempt = () -> {
+                    start.await();
+                    return bookingService.createHotelBooking(request("guest" + guest + "@race.test"));
+                };
+                attempts.add(guests.submit(attempt));
+            }
+            start.countDown();
+
+            int booked = 0;
+            for (Future<Reservation> attempt : attempts) {
+                try {
+                    attempt.get();
+                    booked++;
+                } catch (ExecutionException e) {
+                    BookingException rejected = assertInstanceOf(BookingException.class, e.getCause());
+                    assertEquals(409, rejected.getStatus().value());
+                }
+            }
+            assertEquals(1, booked);
+        } finally {
+            guests.shutdown();
+        }
+
+        assertEquals(1, reservationsForRoom().stream()
+                .filter(r -> r.getStatus() == Reservation.ReservationStatus.CONFIRMED)
+                .count());
+        assertTrue(reservationRepository.existsOverlapping(room.getRoomId(), checkIn, checkOut,
+                Reservation.ReservationStatus.CANCELLED));
+    }
+
+    @Test
+    void rolledBackCancellationKeepsTheNightsBlocked() {
+        Reservation reservation = bookingService.createHotelBooking(request("keeper@race.test"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookingService.cancel(reservation.getReservationId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(Reservation.ReservationStatus.CONFIRMED,
+                reservationRepository.findById(reservation.getReservationId()).orElseThrow().getStatus());
+        assertFalse(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+
+        bookingService.cancel(reservation.getReservationId());
+        assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+    }
+
+    @Test
+    void bookingInACallersRolledBackTransactionFreesItsNights() {
+        // As in an async pipeline batch that fails at commit after this booking went through
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookingService.createHotelBooking(request("batched@race.test"));
+            assertFalse(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(availabilityIndex.isFree(room.getRoomId(), checkIn, checkOut));
+        assertTrue(reservationsForRoom().isEmpty());
+        assertEquals(Reservation.ReservationStatus.CONFIRMED,
+                bookingService.createHotelBooking(request("batched@race.test")).getStatus());
+    }
+
+    @Test
+    void firstBookingsOfATypeRacingOnOverlappingWindowsAllSucceed() throws Exception {
+        for (int i = 2; i <= THREADS; i++) {
+            Room extra = new Room();
+            extra.setRoomNumber("W-" + i);
+            extra.setRoomType("Standard");
+            extra.setPricePerNight(100.0);
+            extra.setHotel(hotel);
+            extraRooms.add(roomRepository.save(extra));
+        }
+        availabilityIndex.rebuild();
+
+        // Each booking starts on a different night, so each wants a different ledger window
+        ExecutorService guests = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Reservation>> attempts = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                HotelBookingRequest request = request("typed" + i + "@race.test");
+                request.setRoomId(null);
+                request.setRoomType("Standard");
+                request.setCheckIn(checkIn.plusDays(i));
+                request.setCheckOut(checkIn.plusDays(i + 2));
+                attempts.add(guests.submit(() -> {
+                    start.await();
+                    return bookingService.createHotelBooking(request);
+                }));
+            }
+            start.countDown();
+            for (Future<Reservation> attempt : attempts) {
+                assertEquals(Reservation.ReservationStatus.CONFIRMED, attempt.get().getStatus());
+            }
+        } finally {
+            guests.shutdown();
+        }
+    }
+
+    private HotelBookingRequest request(String email) {
+        HotelBookingRequest request = new HotelBookingRequest();
+        request.setHotelId(hotel.getId());
+        request.setRoomId(room.getRoomId());
+        request.setCheckIn(checkIn);
+        request.setCheckOut(checkOut);
+        request.setGuests(2);
+        request.setContactName("Racing Guest");
+        request.setContactEmail(email);
+        request.setContactPhone("+1234567890");
+        return request;
+    }
+
+    private List<Reservation> reservationsForRoom() {
+        return reservationRepository.findAll().stream()
+                .filter(r -> r.getRoom().getRoomId().equals(room.getRoomId()))
+                .toList();
+    }
+}
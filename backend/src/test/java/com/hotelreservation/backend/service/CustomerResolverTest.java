@@ -0,0 +1,111 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class CustomerResolverTest {
+
+    @Autowired
+    private CustomerResolver customerResolver;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        customerRepository.findAll().stream()
+                .filter(c -> c.getEmail().endsWith("@resolver.test"))
+                .forEach(customerRepository::delete);
+    }
+
+    @Test
+    void createsOnceAndKeepsExistingDetails() {
+        Long id = customerResolver.resolve("new@resolver.test", "First Name", "+111");
+        Long again = customerResolver.resolve("new@resolver.test", "Other Name", "+222");
+
+        assertEquals(id, again);
+        Customer stored = customerRepository.findById(id).orElseThrow();
+        assertEquals("First Name", stored.getFullName());
+        assertEquals("+111", stored.getPhoneNumber());
+        assertEquals(0, stored.getLoyaltyPoints());
+    }
+
+    @Test
+    void repeatLookupsAreAnsweredFromTheCache() {
+        Long id = customerResolver.resolve("cached@resolver.test", "Cached Guest", "+111");
+
+        // Renamed behind the resolver's back: only a database read would notice
+        jdbcTemplate.update("UPDATE customers SET email = 'moved@resolver.test' WHERE cust_id = ?", id);
+        assertEquals(id, customerResolver.resolve("cached@resolver.test", "Cached Guest", "+111"));
+    }
+
+    @Test
+    void deletedCustomersAreEvicted() {
+        Long id = customerResolver.resolve("gone@resolver.test", "Gone Guest", "+111");
+        customerRepository.deleteById(id);
+
+        Long recreated = customerResolver.resolve("gone@resolver.test", "Gone Guest", "+111");
+        assertNotEquals(id, recreated);
+        assertTrue(customerRepository.existsById(recreated));
+    }
+
+    @Test
+    void rolledBackCustomersAreNotCached() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long rolledBack = transaction.execute(status -> {
+            Long id = customerResolver.resolve("rollback@resolver.test", "Rollback Guest", "+111");
+            status.setRollbackOnly();
+            return id;
+        });
+
+        assertFalse(customerRepository.existsById(rolledBack));
+        Long id = customerResolver.resolve("rollback@resolver.test", "Rollback Guest", "+111");
+        assertTrue(customerRepository.existsById(id));
+    }
+
+    @Test
+    void concurrentFirstBookingsShareOneCustomer() throws Exception {
+        ExecutorService guests = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Long>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(() -> customerResolver.resolve("race@resolver.test", "Racing Guest", "+111"));
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> attempt : guests.invokeAll(attempts)) {
+                ids.add(attempt.get());
+            }
+            assertEquals(1, ids.size());
+            assertEquals(1, customerRepository.findAll().stream()
+                    .filter(c -> c.getEmail().equals("race@resolver.test"))
+                    .count());
+        } finally {
+            guests.shutdown();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.FlexibleStay;
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.RatePlan;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RatePlanRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class FlexibleStaySearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FlexibleStaySearch flexibleStaySearch;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private RatePlanRepository ratePlanRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Hotel hotel;
+    private Room standard;
+    private Room family;
+    // A Monday well inside the rate calendar
+    private final LocalDate monday = LocalDate.now().plusDays(60).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        hotel = new Hotel();
+        hotel.setName("Flexible Hotel");
+        hotel.setCity("Flexton");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(80.0);
+        hotel = hotelRepository.save(hotel);
+
+        standard = room("F-1", "Standard", 100.0, 2);
+        family = room("F-2", "Family", 80.0, 4);
+
+        // Friday and Saturday nights cost double
+        RatePlan plan = new RatePlan();
+        plan.setHotel(hotel);
+        plan.setWeekendMultiplier(2.0);
+        ratePlanRepository.save(plan);
+
+        // The family room is taken on Monday and Tuesday night
+        HotelBookingRequest request = new HotelBookingRequest();
+        request.setHotelId(hotel.getId());
+        request.setRoomId(family.getRoomId());
+        request.setCheckIn(monday);
+        request.setCheckOut(monday.plusDays(2));
+        request.setGuests(3);
+        request.setContactName("Early Bird");
+        request.setContactEmail("early.bird@example.com");
+        request.setContactPhone("+1234567890");
+        bookingService.createHotelBooking(request);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (hotelCatalog.find(hotel.getId()).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private Room room(String number, String type, double price, int capacity) {
+        Room room = new Room();
+        room.setRoomNumber(number);
+        room.setRoomType(type);
+        room.setPricePerNight(price);
+        room.setCapacity(capacity);
+        room.setHotel(hotel);
+        return roomRepository.save(room);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ratePlanRepository.findByHotelId(hotel.getId()).forEach(plan -> ratePlanRepository.deleteById(plan.getId()));
+        for (Room room : List.of(standard, family)) {
+            reservationRepository.findAll().stream()
+                    .filter(reservation -> reservation.getRoom().getRoomId().equals(room.getRoomId()))
+                    .forEach(reservation -> {
+                        Long customerId = reservation.getCustomer().getCustomerId();
+                        reservationRepository.deleteById(reservation.getReservationId());
+                        customerRepository.deleteById(customerId);
+                    });
+            roomRepository.deleteById(room.getRoomId());
+            inventoryLedger.invalidate(hotel.getId(), room.getRoomType());
+        }
+        hotelRepository.deleteById(hotel.getId());
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void cheapestWindowsSkipBookedNightsAndMatchTheQuote() {
+        List<FlexibleStay> stays = flexibleStaySearch.search(hotel.getId(), null, 2, monday, monday.plusDays(7), 1, 3);
+
+        // Family from Wednesday (80 + 80), then the standard room from Monday and Tuesday (100 + 100)
+        assertEquals(3, stays.size());
+        assertEquals(family.getRoomId(), stays.get(0).roomId());
+        assertEquals(monday.plusDays(2), stays.get(0).checkIn());
+        assertEquals(monday.plusDays(4), stays.get(0).checkOut());
+        assertEquals(160.0, stays.get(0).totalPrice());
+        assertEquals(List.of(monday, monday.plusDays(1)),
+                stays.subList(1, 3).stream().map(FlexibleStay::checkIn).toList());
+        for (FlexibleStay stay : stays) {
+            Room room = stay.roomId().equals(family.getRoomId()) ? family : standard;
+            assertEquals(pricingEngine.quote(room, stay.checkIn(), stay.checkOut()), stay.totalPrice());
+        }
+    }
+
+    @Test
+    void partySizeFiltersRoomsAndTiesGoToTheEarlierCheckIn() {
+        List<FlexibleStay> stays = flexibleStaySearch.search(hotel.getId(), null, 2, monday, monday.plusDays(7), 3, 2);
+
+        // Only the family room fits; Thursday and Saturday check-ins both cost 80 + 160
+        assertEquals(List.of(160.0, 240.0), stays.stream().map(FlexibleStay::totalPrice).toList());
+        assertEquals(List.of(monday.plusDays(2), monday.plusDays(3)),
+                stays.stream().map(FlexibleStay::checkIn).toList());
+        assertTrue(stays.stream().allMatch(stay -> stay.roomId().equals(family.getRoomId())));
+    }
+
+    @Test
+    void searchesACityOverHttpAndRejectsBadRanges() throws Exception {
+        mockMvc.perform(get("/api/hotels/flex-search")
+                        .param("city", "Flexton")
+                        .param("nights", "2")
+                        .param("from", monday.toString())
+                        .param("to", monday.plusDays(7).toString())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].hotelName").value("Flexible Hotel"))
+                .andExpect(jsonPath("$[0].roomNumber").value("F-2"))
+                .andExpect(jsonPath("$[0].totalPrice").value(160.0));
+
+        mockMvc.perform(get("/api/hotels/flex-search")
+                        .param("city", "Flexton")
+                        .param("nights", "8")
+                        .param("from", monday.toString())
+                        .param("to", monday.plusDays(7).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/hotels/flex-search")
+                        .param("nights", "2")
+                        .param("from", monday.toString())
+                        .param("to", monday.plusDays(7).toString()))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,191 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.HotelFacets;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.listener.HotelChangedEvent;
+import com.hotelreservation.backend.repository.HotelRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class HotelCatalogTest {
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private HotelSearchService hotelSearchService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        hotelRepository.deleteAllById(created);
+    }
+
+    @Test
+    void committedWritesReachTheSnapshot() throws InterruptedException {
+        Hotel hotel = hotelRepository.save(hotel("Catalog Inn", 140.0, "Garden"));
+        created.add(hotel.getId());
+        awaitTrue(() -> hotelCatalog.find(hotel.getId()).isPresent());
+
+        hotel.getTags().add("Sauna");
+        hotelRepository.save(hotel);
+        awaitTrue(() -> hotelCatalog.find(hotel.getId()).map(v -> v.tags().contains("Sauna")).orElse(false));
+
+        hotelRepository.deleteById(hotel.getId());
+        created.clear();
+        awaitTrue(() -> hotelCatalog.find(hotel.getId()).isEmpty());
+    }
+
+    @Test
+    void snapshotSearchMatchesDatabaseSearch() throws InterruptedException {
+        for (double price : new double[] {210.0, 95.0, 95.0, 130.0}) {
+            created.add(hotelRepository.save(hotel("Catalog Stay " + price, price, "Lake")).getId());
+        }
+        awaitTrue(() -> created.stream().allMatch(id -> hotelCatalog.find(id).isPresent()));
+
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity("catalog");
+        criteria.setTags(List.of("lake"));
+        criteria.setSort("-price");
+        criteria.setLimit(3);
+
+        CursorPage<HotelView> fromSnapshot = hotelCatalog.search(criteria);
+        CursorPage<HotelView> fromDatabase = hotelSearchService.search(criteria);
+        assertEquals(fromDatabase.getItems().stream().map(HotelView::id).toList(),
+                fromSnapshot.getItems().stream().map(HotelView::id).toList());
+        assertEquals(fromDatabase.getNextCursor(), fromSnapshot.getNextCursor());
+
+        criteria.setAfter(fromSnapshot.getNextCursor());
+        CursorPage<HotelView> last = hotelCatalog.search(criteria);
+        assertEquals(1, last.getItems().size());
+        assertEquals(95.0, last.getItems().get(0).pricePerNight());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void nameCursorsCarryOverBetweenDatabaseAndSnapshot() throws InterruptedException {
+        // A case-sensitive order would put "Catalog Zebra" before "catalog alpha"
+        for (String name : new String[] {"catalog alpha", "Catalog Zebra", "CATALOG beta", "catalog Gamma"}) {
+            created.add(hotelRepository.save(hotel(name, 100.0, "Names")).getId());
+        }
+        awaitTrue(() -> created.stream().allMatch(id -> hotelCatalog.find(id).isPresent()));
+
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setTags(List.of("names"));
+        criteria.setSort("name");
+        criteria.setLimit(2);
+
+        // Page one from the database, page two from the snapshot with its cursor, and the reverse
+        CursorPage<HotelView> firstFromDatabase = hotelSearchService.search(criteria);
+        CursorPage<HotelView> firstFromSnapshot = hotelCatalog.search(criteria);
+        assertEquals(List.of("catalog alpha", "CATALOG beta"),
+                firstFromDatabase.getItems().stream().map(HotelView::name).toList());
+        assertEquals(firstFromDatabase.getNextCursor(), firstFromSnapshot.getNextCursor());
+
+        criteria.setAfter(firstFromDatabase.getNextCursor());
+        assertEquals(List.of("catalog Gamma", "Catalog Zebra"),
+                hotelCatalog.search(criteria).getItems().stream().map(HotelView::name).toList());
+        assertEquals(List.of("catalog Gamma", "Catalog Zebra"),
+                hotelSearchService.search(criteria).getItems().stream().map(HotelView::name).toList());
+    }
+
+    @Test
+    void idsBeyondIntRangeArePatchedAndRebuilt() throws InterruptedException {
+        long id = Integer.MAX_VALUE + 10L;
+        jdbcTemplate.update("INSERT INTO hotels (id, name, city, country, rating, price_per_night, version) "
+                + "VALUES (?, 'Wide Id Inn', 'Catalog City', 'Testland', 4.0, 120.0, 0)", id);
+        jdbcTemplate.update("INSERT INTO hotel_tags (hotel_id, tag) VALUES (?, 'Widened')", id);
+        created.add(id);
+
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setTags(List.of("widened"));
+
+        // Written behind the listener's back, so announce it: first a patch, then a full rebuild
+        hotelCatalog.onHotelChanged(new HotelChangedEvent(id));
+        awaitTrue(() -> hotelCatalog.find(id).isPresent());
+        assertEquals(List.of(id), hotelCatalog.findAll(criteria).stream().map(HotelView::id).toList());
+
+        long patched = hotelCatalog.version();
+        hotelCatalog.refresh();
+        awaitTrue(() -> hotelCatalog.version() > patched);
+        assertEquals(List.of(id), hotelCatalog.search(criteria).getItems().stream().map(HotelView::id).toList());
+    }
+
+    @Test
+    void facetsCountTheWholeResult() throws InterruptedException {
+        Hotel spaBeach = hotel("Catalog Spa Beach", 120.0, "Spa");
+        spaBeach.getTags().add("Beach");
+        spaBeach.setBadge("Top Pick");
+        created.add(hotelRepository.save(spaBeach).getId());
+        Hotel spa = hotel("Catalog Spa", 150.0, "Spa");
+        created.add(hotelRepository.save(spa).getId());
+        awaitTrue(() -> created.stream().allMatch(id -> hotelCatalog.find(id).isPresent()));
+
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity("Catalog City");
+        criteria.setTags(List.of("spa"));
+        criteria.setLimit(1);
+
+        assertEquals(1, hotelCatalog.search(criteria).getItems().size());
+        HotelFacets facets = hotelCatalog.facets(criteria);
+        assertEquals(2, facets.getTags().get("Spa"));
+        assertEquals(1, facets.getTags().get("Beach"));
+        assertEquals(Map.of("Top Pick", 1), facets.getBadges());
+
+        criteria.setTags(List.of("Spa", "Beach"));
+        assertEquals(List.of(spaBeach.getId()),
+                hotelCatalog.search(criteria).getItems().stream().map(HotelView::id).toList());
+    }
+
+    @Test
+    void exposesSnapshotMetrics() {
+        hotelCatalog.refresh();
+        assertNotNull(meterRegistry.find("hotel.catalog.age").gauge());
+        assertTrue(meterRegistry.find("hotel.catalog.rebuild").timer().count() > 0);
+        assertTrue(hotelCatalog.ageSeconds() >= 0);
+    }
+
+    private static Hotel hotel(String name, double price, String tag) {
+        Hotel hotel = new Hotel();
+        hotel.setName(name);
+        hotel.setCity("Catalog City");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(price);
+        hotel.setTags(new ArrayList<>(List.of(tag)));
+        return hotel;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Catalog did not catch up within 5s");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.HotelSearchCriteria;
+import com.hotelreservation.backend.dto.HotelView;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.repository.HotelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class HotelSearchServiceTest {
+
+    @Autowired
+    private HotelSearchService hotelSearchService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @BeforeEach
+    void setUp() {
+        double[] prices = {250.0, 120.0, 180.0, 120.0, 90.0};
+        for (int i = 0; i < prices.length; i++) {
+            Hotel hotel = new Hotel();
+            hotel.setName("Seek Hotel " + i);
+            hotel.setCity("Seekville");
+            hotel.setCountry("Testland");
+            hotel.setRating(3.0 + i * 0.5);
+            hotel.setPricePerNight(prices[i]);
+            hotel.setTags(new ArrayList<>(i % 2 == 0 ? List.of("Spa", "Pool") : List.of("Pool")));
+            hotelRepository.save(hotel);
+        }
+    }
+
+    @Test
+    void pagesByPriceWithoutGapsOrDuplicates() {
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity("seek");
+        criteria.setSort("price");
+        criteria.setLimit(2);
+
+        List<Double> prices = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        int pages = 0;
+        do {
+            CursorPage<HotelView> page = hotelSearchService.search(criteria);
+            page.getItems().forEach(h -> {
+                prices.add(h.pricePerNight());
+                ids.add(h.id());
+            });
+            criteria.setAfter(page.getNextCursor());
+            pages++;
+        } while (criteria.getAfter() != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(90.0, 120.0, 120.0, 180.0, 250.0), prices);
+        assertEquals(5, ids.stream().distinct().count());
+    }
+
+    @Test
+    void combinesFiltersInOneQuery() {
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCountry("testland");
+        criteria.setTags(List.of("spa"));
+        criteria.setMinRating(3.5);
+        criteria.setMaxPrice(200.0);
+        criteria.setSort("-rating");
+
+        List<HotelView> hotels = hotelSearchService.search(criteria).getItems();
+
+        assertEquals(List.of("Seek Hotel 4", "Seek Hotel 2"), hotels.stream().map(HotelView::name).toList());
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSort() {
+        HotelSearchCriteria criteria = new HotelSearchCriteria();
+        criteria.setCity("Seekville");
+        criteria.setSort("price");
+        criteria.setLimit(1);
+        String cursor = hotelSearchService.search(criteria).getNextCursor();
+
+        criteria.setSort("name");
+        criteria.setAfter(cursor);
+        assertThrows(IllegalArgumentException.class, () -> hotelSearchService.search(criteria));
+    }
+}
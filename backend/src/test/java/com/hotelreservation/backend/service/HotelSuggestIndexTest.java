@@ -0,0 +1,99 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelSuggestion;
+import com.hotelreservation.backend.dto.HotelView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotelSuggestIndexTest {
+
+    private static HotelView hotel(long id, String name, String city, String country, double rating) {
+        return new HotelView(id, name, city, country, rating, 100.0, null, List.of(), null, null);
+    }
+
+    private final HotelView grand = hotel(1, "Grand Luxury Resort", "Paris", "France", 4.8);
+    private final HotelView parkside = hotel(2, "Parkside Inn", "Paris", "France", 4.1);
+    private final HotelView zurich = hotel(3, "Alpine Lodge", "Zürich", "Switzerland", 4.6);
+
+    private final HotelSuggestIndex index = HotelSuggestIndex.build(List.of(grand, parkside, zurich));
+
+    private static List<String> texts(List<HotelSuggestion> suggestions) {
+        return suggestions.stream().map(HotelSuggestion::getText).toList();
+    }
+
+    private static List<String> described(List<HotelSuggestion> suggestions) {
+        return suggestions.stream().map(s -> s.getType() + ":" + s.getText() + ":" + s.getHotelId()).toList();
+    }
+
+    @Test
+    void ranksCitiesWithMoreHotelsAheadOfHotels() {
+        List<HotelSuggestion> suggestions = index.suggest("par", 5);
+        assertEquals(List.of("Paris", "Parkside Inn"), texts(suggestions));
+        assertEquals("city", suggestions.get(0).getType());
+        assertEquals(2L, suggestions.get(1).getHotelId());
+        assertEquals("Paris, France", suggestions.get(1).getDetail());
+    }
+
+    @Test
+    void matchesWordStartsAndFoldsAccents() {
+        assertEquals(List.of("Grand Luxury Resort"), texts(index.suggest("luxury re", 5)));
+        assertEquals(List.of("Zürich"), texts(index.suggest("zur", 5)));
+        assertTrue(index.suggest("uxury", 5).isEmpty());
+        assertEquals(1, index.suggest("a", 1).size());
+    }
+
+    @Test
+    void patchMovesHotelsBetweenCities() {
+        HotelView moved = hotel(2, "Parkside Inn", "Lyon", "France", 4.1);
+        HotelSuggestIndex patched = index.patch(List.of(parkside), List.of(moved));
+
+        assertEquals(List.of("Paris"), texts(patched.suggest("paris", 5)));
+        assertEquals(List.of("Lyon"), texts(patched.suggest("ly", 5)));
+        assertEquals(texts(index.suggest("par", 5)), List.of("Paris", "Parkside Inn"));
+
+        HotelSuggestIndex emptied = patched.patch(List.of(grand), List.of());
+        assertTrue(emptied.suggest("paris", 5).isEmpty());
+        assertEquals(List.of("France"), texts(emptied.suggest("fr", 5)));
+    }
+
+    @Test
+    void broadPrefixesOnALargeCatalogRankLikeAFullScan() {
+        List<HotelView> hotels = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            hotels.add(hotel(i + 1, "Hotel " + i + " Plaza", "City " + (i % 2000), "Country " + (i % 150), 3 + i % 20 / 10.0));
+        }
+        HotelSuggestIndex large = HotelSuggestIndex.build(hotels);
+        HotelSuggestIndex scanning = HotelSuggestIndex.build(hotels, Integer.MAX_VALUE);
+        assertTrue(large.precomputedPrefixes() > 0);
+
+        for (String prefix : List.of("h", "hotel", "hotel 1", "hotel 12345 plaza", "c", "city 1", "city 15",
+                "country", "country 7", "p", "plaza", "x")) {
+            for (int limit : List.of(1, 8, 20)) {
+                assertEquals(described(scanning.suggest(prefix, limit)), described(large.suggest(prefix, limit)),
+                        prefix + " / " + limit);
+            }
+        }
+
+        // A patch re-ranks only the prefixes it touches, and must agree with a full scan too
+        List<HotelView> removed = List.of(hotels.get(5), hotels.get(12_345));
+        List<HotelView> added = List.of(
+                hotel(6, "Hotel Zenith", "City 1", "Country 5", 5.0),
+                hotel(12_346, "Plaza Royale", "Zurich", "Country 7", 4.9),
+                hotel(60_000, "Hotel 1 Annex", "City 10", "Country 10", 4.8));
+        HotelSuggestIndex patched = large.patch(removed, added);
+        HotelSuggestIndex patchedScanning = scanning.patch(removed, added);
+        for (String prefix : List.of("h", "hotel", "hotel 1", "hotel 12345 plaza", "hotel z", "c", "city 1",
+                "country", "country 7", "p", "plaza", "z", "zurich")) {
+            assertEquals(described(patchedScanning.suggest(prefix, 20)), described(patched.suggest(prefix, 20)), prefix);
+        }
+
+        // A whole-label match first, then the cities with the most hotels by name
+        assertEquals(List.of("City 1", "City 10", "City 100"), texts(large.suggest("city 1", 3)));
+        assertEquals(List.of("Country 0", "Country 1", "Country 10"), texts(large.suggest("c", 3)));
+        assertEquals(HotelSuggestIndex.MAX_LIMIT, large.suggest("hotel", 100).size());
+    }
+}
@@ -0,0 +1,190 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.LoyaltyBalance;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class LoyaltyEngineTest {
+
+    @Autowired
+    private LoyaltyEngine loyaltyEngine;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setFullName("Loyal Guest");
+        customer.setEmail("loyal@example.com");
+        customer.setPhoneNumber("+1234567890");
+        customer = customerRepository.save(customer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loyaltyEngine.flush();
+        customerRepository.deleteById(customer.getCustomerId());
+    }
+
+    @Test
+    void pendingPointsCountBeforeAndAfterTheFlush() {
+        loyaltyEngine.accrue(customer.getCustomerId(), 120);
+        loyaltyEngine.accrue(customer.getCustomerId(), 30);
+        assertEquals(150, balance().points());
+
+        loyaltyEngine.flush();
+
+        assertEquals(150, storedPoints());
+        assertEquals(new LoyaltyBalance(customer.getCustomerId(), 150, 0), balance());
+    }
+
+    @Test
+    void pointsThatCannotBeJournaledAreWrittenThrough() throws Exception {
+        loyaltyEngine.accrue(customer.getCustomerId(), 40);
+        Object segment = ReflectionTestUtils.getField(loyaltyEngine, "active");
+        ((FileChannel) ReflectionTestUtils.getField(segment, "channel")).close();
+
+        loyaltyEngine.accrue(customer.getCustomerId(), 25);
+
+        // Only the journaled points are pending; the others are already stored
+        assertEquals(new LoyaltyBalance(customer.getCustomerId(), 65, 40), balance());
+        assertEquals(25, storedPoints());
+        assertNotSame(segment, ReflectionTestUtils.getField(loyaltyEngine, "active"));
+
+        loyaltyEngine.accrue(customer.getCustomerId(), 10);
+        assertEquals(new LoyaltyBalance(customer.getCustomerId(), 75, 50), balance());
+    }
+
+    @Test
+    void rolledBackTransactionsEarnNothing() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            loyaltyEngine.accrue(customer.getCustomerId(), 100);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, balance().points());
+    }
+
+    @Test
+    void bookingEarnsPointsAndCancellingTakesThemBack() {
+        Hotel hotel = new Hotel();
+        hotel.setName("Points Hotel");
+        hotel.setCity("Rewards");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        Room room = new Room();
+        room.setRoomNumber("P-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(80.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+
+        try {
+            LocalDate checkIn = LocalDate.now().plusDays(30);
+            Reservation reservation = bookingService.createReservation(room.getRoomId(), customer.getCustomerId(),
+                    checkIn, checkIn.plusDays(3));
+            assertEquals(240, balance().points());
+
+            bookingService.cancel(reservation.getReservationId());
+            assertEquals(0, balance().points());
+
+            bookingService.delete(reservation.getReservationId());
+        } finally {
+            roomRepository.deleteById(room.getRoomId());
+            hotelRepository.deleteById(hotel.getId());
+            availabilityIndex.rebuild();
+        }
+    }
+
+    @Test
+    void journalLeftByACrashIsReplayedExactlyOnce() throws Exception {
+        // A segment that was never flushed, ending in a torn record
+        writeSegment("11111111-1111-1111-1111-111111111111", 70, 5);
+        // A segment whose flush committed but whose file was not deleted yet
+        writeSegment("22222222-2222-2222-2222-222222222222", 1000);
+        jdbcTemplate.update("INSERT INTO loyalty_flushes (segment, flushed_at) VALUES (?, CURRENT_TIMESTAMP)",
+                "22222222-2222-2222-2222-222222222222");
+
+        LoyaltyEngine restarted = new LoyaltyEngine(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                journalDir.toString(), 1000, 1.0);
+        restarted.start();
+        try {
+            assertEquals(75, storedPoints());
+            try (var files = Files.list(journalDir)) {
+                assertEquals(1, files.count()); // only the restarted engine's own open segment
+            }
+        } finally {
+            restarted.shutdown();
+            jdbcTemplate.update("DELETE FROM loyalty_flushes");
+        }
+    }
+
+    private void writeSegment(String id, long... deltas) throws Exception {
+        ByteBuffer records = ByteBuffer.allocate(deltas.length * 16 + 7);
+        Arrays.stream(deltas).forEach(delta -> records.putLong(customer.getCustomerId()).putLong(delta));
+        records.put(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        Files.write(journalDir.resolve("loyalty-" + id + ".log"), records.array());
+    }
+
+    private LoyaltyBalance balance() {
+        return loyaltyEngine.balance(customer.getCustomerId()).orElseThrow();
+    }
+
+    private long storedPoints() {
+        return jdbcTemplate.queryForObject("SELECT loyalty_points FROM customers WHERE cust_id = ?",
+                Long.class, customer.getCustomerId());
+    }
+}
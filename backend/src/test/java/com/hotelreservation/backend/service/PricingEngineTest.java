@@ -0,0 +1,202 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.dto.RoomTypeRates;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.RatePlan;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RatePlanRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PricingEngineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private RatePlanRepository ratePlanRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private Hotel hotel;
+    private final List<Room> rooms = new ArrayList<>();
+    // A Monday well inside the rate calendar
+    private final LocalDate monday = LocalDate.now().plusDays(60).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Pricing Hotel");
+        hotel.setCity("Tariff");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        for (int i = 0; i < 2; i++) {
+            Room room = new Room();
+            room.setRoomNumber("R-" + i);
+            room.setRoomType("Deluxe");
+            room.setPricePerNight(100.0);
+            room.setHotel(hotel);
+            rooms.add(roomRepository.save(room));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ratePlanRepository.findByHotelId(hotel.getId()).forEach(plan -> ratePlanRepository.deleteById(plan.getId()));
+        for (Room room : rooms) {
+            reservationRepository.findAll().stream()
+                    .filter(reservation -> reservation.getRoom().getRoomId().equals(room.getRoomId()))
+                    .forEach(reservation -> {
+                        Long customerId = reservation.getCustomer().getCustomerId();
+                        reservationRepository.deleteById(reservation.getReservationId());
+                        customerRepository.deleteById(customerId);
+                    });
+            roomRepository.deleteById(room.getRoomId());
+        }
+        hotelRepository.deleteById(hotel.getId());
+        inventoryLedger.invalidate(hotel.getId(), "Deluxe");
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void withoutARatePlanEveryNightCostsTheBasePrice() {
+        assertEquals(700.0, pricingEngine.quote(rooms.get(0), monday, monday.plusDays(7)));
+    }
+
+    @Test
+    void staysPastTheCalendarArePricedAHorizonAtATime() {
+        int nights = pricingEngine.maxRangeDays() * 3 + 10;
+        assertEquals(100.0 * nights, pricingEngine.quote(rooms.get(0), monday, monday.plusDays(nights)));
+        assertThrows(IllegalArgumentException.class, () -> pricingEngine.nightlyMultipliers(hotel.getId(),
+                rooms.get(0).getRoomType(), monday, monday.plusDays(pricingEngine.maxRangeDays() + 1)));
+    }
+
+    @Test
+    void weekendAndSeasonMultipliersCompose() throws Exception {
+        RatePlan plan = new RatePlan();
+        plan.setHotel(hotel);
+        plan.setWeekendMultiplier(1.5);
+        // Wednesday through Friday is high season
+        plan.getSeasons().add(new RatePlan.Season(monday.plusDays(2), monday.plusDays(4), 2.0));
+        ratePlanRepository.save(plan);
+
+        // Mon 1, Tue 1, Wed 2, Thu 2, Fri 2 * 1.5, Sat 1.5, Sun 1
+        assertEquals(1150.0, pricingEngine.quote(rooms.get(0), monday, monday.plusDays(7)));
+
+        List<RoomTypeRates> rates = pricingEngine.rates(hotel.getId(), monday, monday.plusDays(7));
+        assertEquals(1, rates.size());
+        assertEquals("Deluxe", rates.get(0).roomType());
+        assertEquals(List.of(100.0, 100.0, 200.0, 200.0, 300.0, 150.0, 100.0),
+                rates.get(0).nights().stream().map(RoomTypeRates.NightlyRate::price).toList());
+        assertEquals(1150.0, rates.get(0).total());
+
+        mockMvc.perform(get("/api/hotels/" + hotel.getId() + "/rates")
+                        .param("from", monday.plusDays(4).toString())
+                        .param("to", monday.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nights[0].price").value(300.0))
+                .andExpect(jsonPath("$[0].total").value(450.0));
+        mockMvc.perform(get("/api/hotels/" + hotel.getId() + "/rates")
+                        .param("from", monday.toString())
+                        .param("to", monday.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void aHotelHasOneHotelWidePlan() {
+        RatePlan first = new RatePlan();
+        first.setHotel(hotel);
+        first.setWeekendMultiplier(1.5);
+        ratePlanRepository.save(first);
+
+        RatePlan second = new RatePlan();
+        second.setHotel(hotel);
+        second.setWeekendMultiplier(3.0);
+        assertThrows(DataIntegrityViolationException.class, () -> ratePlanRepository.saveAndFlush(second));
+
+        // Mon to Fri at the base price, then the Friday night at 1.5
+        assertEquals(550.0, pricingEngine.quote(rooms.get(0), monday, monday.plusDays(5)));
+    }
+
+    @Test
+    void bookingsArePricedByTheServerAndRaiseOccupancyRates() throws Exception {
+        RatePlan plan = new RatePlan();
+        plan.setHotel(hotel);
+        plan.setRoomType("Deluxe");
+        plan.getOccupancyTiers().add(new RatePlan.OccupancyTier(0.5, 1.25));
+        ratePlanRepository.save(plan);
+        assertEquals(200.0, pricingEngine.quote(rooms.get(1), monday, monday.plusDays(2)));
+
+        HotelBookingRequest request = new HotelBookingRequest();
+        request.setHotelId(hotel.getId());
+        request.setRoomId(rooms.get(0).getRoomId());
+        request.setCheckIn(monday);
+        request.setCheckOut(monday.plusDays(2));
+        request.setGuests(1);
+        request.setContactName("Price Taker");
+        request.setContactEmail("price.taker@example.com");
+        request.setContactPhone("+1234567890");
+        request.setTotalPrice(1.0);
+        Reservation reservation = bookingService.createHotelBooking(request);
+        assertEquals(200.0, reservation.getTotalPrice());
+
+        // Half the Deluxe rooms are now taken on both nights; the booking event refreshes the calendar
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (pricingEngine.quote(rooms.get(1), monday, monday.plusDays(2)) != 250.0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(250.0, pricingEngine.quote(rooms.get(1), monday, monday.plusDays(2)));
+        // Only the first of these nights is half full
+        assertEquals(225.0, pricingEngine.quote(rooms.get(1), monday.plusDays(1), monday.plusDays(3)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.CursorPage;
+import com.hotelreservation.backend.dto.ReservationSearchCriteria;
+import com.hotelreservation.backend.dto.ReservationSummary;
+import com.hotelreservation.backend.entity.Customer;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.Reservation;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+public class ReservationSearchServiceTest {
+
+    private static final LocalDate BASE = LocalDate.of(2032, 5, 1);
+
+    @Autowired
+    private ReservationSearchService reservationSearchService;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private Hotel hotel;
+    private Customer guest;
+
+    @BeforeEach
+    void setUp() {
+        hotel = new Hotel();
+        hotel.setName("Ledger Hotel");
+        hotel.setCity("Seekville");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(100.0);
+        hotel = hotelRepository.save(hotel);
+
+        Room room = new Room();
+        room.setRoomNumber("S-1");
+        room.setRoomType("Standard");
+        room.setPricePerNight(100.0);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+
+        guest = new Customer();
+        guest.setFullName("Seek Guest");
+        guest.setEmail("seek.guest@example.com");
+        guest.setPhoneNumber("+100000001");
+        guest = customerRepository.save(guest);
+
+        // Seven stays, several sharing a check-in date so the id tie-breaker matters
+        int[] offsets = {0, 0, 2, 2, 2, 5, 9};
+        for (int i = 0; i < offsets.length; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setRoom(room);
+            reservation.setCustomer(guest);
+            reservation.setCheckInDate(BASE.plusDays(offsets[i]));
+            reservation.setCheckOutDate(BASE.plusDays(offsets[i] + 1));
+            reservation.setTotalPrice(100.0);
+            reservation.setStatus(i == 3 ? Reservation.ReservationStatus.CANCELLED
+                                         : Reservation.ReservationStatus.CONFIRMED);
+            reservationRepository.save(reservation);
+        }
+    }
+
+    @Test
+    void pagesByCheckInWithoutGapsOrDuplicates() {
+        ReservationSearchCriteria criteria = new ReservationSearchCriteria();
+        criteria.setHotelId(hotel.getId());
+        criteria.setLimit(3);
+
+        List<ReservationSummary> seen = new ArrayList<>();
+        int pages = 0;
+        do {
+            CursorPage<ReservationSummary> page = reservationSearchService.search(criteria);
+            seen.addAll(page.getItems());
+            criteria.setAfter(page.getNextCursor());
+            pages++;
+        } while (criteria.getAfter() != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        assertEquals(7, new HashSet<>(seen.stream().map(ReservationSummary::reservationId).toList()).size());
+        for (int i = 1; i < seen.size(); i++) {
+            ReservationSummary previous = seen.get(i - 1);
+            ReservationSummary current = seen.get(i);
+            assertTrue(previous.checkInDate().isBefore(current.checkInDate())
+                    || (previous.checkInDate().equals(current.checkInDate())
+                        && previous.reservationId() < current.reservationId()));
+        }
+        assertEquals("Ledger Hotel", seen.get(0).hotelName());
+        assertEquals("seek.guest@example.com", seen.get(0).customerEmail());
+    }
+
+    @Test
+    void filtersByStatusCustomerAndDateOverlap() {
+        ReservationSearchCriteria criteria = new ReservationSearchCriteria();
+        criteria.setCustomerId(guest.getCustomerId());
+        criteria.setStatus("confirmed");
+        criteria.setFrom(BASE.plusDays(1));
+        criteria.setTo(BASE.plusDays(6));
+
+        List<ReservationSummary> items = reservationSearchService.search(criteria).getItems();
+
+        // Stays on days 2 (two confirmed) and 5; day 0 checks out on day 1 and the day-9 stay starts later
+        assertEquals(3, items.size());
+        assertTrue(items.stream().allMatch(r -> r.status() == Reservation.ReservationStatus.CONFIRMED));
+        assertEquals(List.of(BASE.plusDays(2), BASE.plusDays(2), BASE.plusDays(5)),
+                items.stream().map(ReservationSummary::checkInDate).toList());
+    }
+
+    @Test
+    void rejectsBadInput() {
+        ReservationSearchCriteria criteria = new ReservationSearchCriteria();
+        assertThrows(IllegalArgumentException.class, () -> criteria.setStatus("lost"));
+
+        criteria.setFrom(BASE.plusDays(3));
+        criteria.setTo(BASE.plusDays(3));
+        assertThrows(IllegalArgumentException.class, () -> reservationSearchService.search(criteria));
+
+        ReservationSearchCriteria paged = new ReservationSearchCriteria();
+        paged.setAfter("not-a-cursor");
+        assertThrows(IllegalArgumentException.class, () -> reservationSearchService.search(paged));
+    }
+}
@@ -0,0 +1,211 @@
+package com.hotelreservation.backend.service;
+
+import com.hotelreservation.backend.dto.HotelBookingRequest;
+import com.hotelreservation.backend.dto.HotelStay;
+import com.hotelreservation.backend.entity.Hotel;
+import com.hotelreservation.backend.entity.RatePlan;
+import com.hotelreservation.backend.entity.Room;
+import com.hotelreservation.backend.repository.CustomerRepository;
+import com.hotelreservation.backend.repository.HotelRepository;
+import com.hotelreservation.backend.repository.RatePlanRepository;
+import com.hotelreservation.backend.repository.ReservationRepository;
+import com.hotelreservation.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StaySearchServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StaySearchService staySearchService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private HotelCatalog hotelCatalog;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RatePlanRepository ratePlanRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Hotel> hotels = new ArrayList<>();
+    private final List<Room> rooms = new ArrayList<>();
+    private final LocalDate checkIn = LocalDate.now().plusDays(40);
+    private final LocalDate checkOut = checkIn.plusDays(3);
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        Hotel harbour = hotel("Harbour Inn");
+        room(harbour, "H-1", "Standard", 50.0, 2);
+        Room suite = room(harbour, "H-2", "Suite", 100.0, 4);
+        room(harbour, "H-3", "Suite", 120.0, 4);
+        Hotel garden = hotel("Garden House");
+        room(garden, "G-1", "Standard", 60.0, 2);
+
+        // The cheaper suite is taken for the middle night
+        HotelBookingRequest request = new HotelBookingRequest();
+        request.setHotelId(harbour.getId());
+        request.setRoomId(suite.getRoomId());
+        request.setCheckIn(checkIn.plusDays(1));
+        request.setCheckOut(checkIn.plusDays(2));
+        request.setGuests(4);
+        request.setContactName("Suite Holder");
+        request.setContactEmail("suite.holder@example.com");
+        request.setContactPhone("+1234567890");
+        bookingService.createHotelBooking(request);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (hotels.stream().anyMatch(hotel -> hotelCatalog.find(hotel.getId()).isEmpty())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private Hotel hotel(String name) {
+        Hotel hotel = new Hotel();
+        hotel.setName(name);
+        hotel.setCity("Searchport");
+        hotel.setCountry("Testland");
+        hotel.setRating(4.0);
+        hotel.setPricePerNight(50.0);
+        hotel = hotelRepository.save(hotel);
+        hotels.add(hotel);
+        return hotel;
+    }
+
+    private Room room(Hotel hotel, String number, String type, double price, int capacity) {
+        Room room = new Room();
+        room.setRoomNumber(number);
+        room.setRoomType(type);
+        room.setPricePerNight(price);
+        room.setCapacity(capacity);
+        room.setHotel(hotel);
+        room = roomRepository.save(room);
+        rooms.add(room);
+        return room;
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Room room : rooms) {
+            reservationRepository.findAll().stream()
+                    .filter(reservation -> reservation.getRoom().getRoomId().equals(room.getRoomId()))
+                    .forEach(reservation -> {
+                        Long customerId = reservation.getCustomer().getCustomerId();
+                        reservationRepository.deleteById(reservation.getReservationId());
+                        customerRepository.deleteById(customerId);
+                    });
+            roomRepository.deleteById(room.getRoomId());
+            inventoryLedger.invalidate(room.getHotel().getId(), room.getRoomType());
+        }
+        hotels.forEach(hotel -> hotelRepository.deleteById(hotel.getId()));
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    void eachHotelComesWithItsCheapestFreeRoomCheapestHotelFirst() {
+        List<HotelStay> stays = staySearchService.search("Searchport", checkIn, checkOut, 2, 10);
+
+        assertEquals(List.of("Harbour Inn", "Garden House"), stays.stream().map(stay -> stay.hotel().name()).toList());
+        assertEquals("H-1", stays.get(0).cheapestRoom().getRoomNumber());
+        assertEquals(150.0, stays.get(0).cheapestRoom().getTotalPrice());
+        assertEquals(3L, stays.get(0).cheapestRoom().getNights());
+        assertEquals(180.0, stays.get(1).cheapestRoom().getTotalPrice());
+
+        assertEquals(1, staySearchService.search("Searchport", checkIn, checkOut, 2, 1).size());
+    }
+
+    @Test
+    void roomsTooSmallOrBookedOnAnyNightAreSkipped() {
+        List<HotelStay> stays = staySearchService.search("Searchport", checkIn, checkOut, 3, 10);
+
+        // Garden House has nothing for three; the cheaper suite is booked for one night
+        assertEquals(1, stays.size());
+        assertEquals("H-3", stays.get(0).cheapestRoom().getRoomNumber());
+        assertEquals(360.0, stays.get(0).cheapestRoom().getTotalPrice());
+
+        // The night before the booking both suites are free
+        assertEquals("H-2", staySearchService.search("Searchport", checkIn, checkIn.plusDays(1), 4, 10)
+                .get(0).cheapestRoom().getRoomNumber());
+        assertTrue(staySearchService.search("Searchport", checkIn, checkOut, 5, 10).isEmpty());
+    }
+
+    @Test
+    void ratePlansAreLoadedUpFrontAndNoCalendarIsBuilt() {
+        RatePlan plan = new RatePlan();
+        plan.setHotel(hotels.get(1));
+        plan.getSeasons().add(new RatePlan.Season(checkIn, checkOut, 2.0));
+        ratePlanRepository.save(plan);
+        double builds = meterRegistry.get("pricing.calendar.builds").counter().count();
+
+        List<HotelStay> stays = staySearchService.search("Searchport", checkIn, checkOut, 2, 10);
+
+        assertEquals("Garden House", stays.get(1).hotel().name());
+        assertEquals(360.0, stays.get(1).cheapestRoom().getTotalPrice());
+        assertEquals(builds, meterRegistry.get("pricing.calendar.builds").counter().count());
+    }
+
+    @Test
+    void searchIsPublicAndValidatesItsParameters() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("city", "Searchport")
+                        .param("checkIn", checkIn.toString())
+                        .param("checkOut", checkOut.toString())
+                        .param("guests", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].hotel.name").value("Harbour Inn"))
+                .andExpect(jsonPath("$[0].cheapestRoom.roomNumber").value("H-3"));
+
+        mockMvc.perform(get("/api/search")
+                        .param("city", "Searchport")
+                        .param("checkIn", checkOut.toString())
+                        .param("checkOut", checkIn.toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search")
+                        .param("city", "Searchport")
+                        .param("checkIn", checkIn.toString())
+                        .param("checkOut", checkOut.toString())
+                        .param("guests", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,82 @@
+package com.hotelreservation.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final List<String> fired = new ArrayList<>();
+    private final HashedTimerWheel<String> wheel = new HashedTimerWheel<>(10, 8, now::get, fired::add);
+
+    @Test
+    void firesNeverEarlyAndWithinATickOfTheDeadline() {
+        wheel.schedule("a", 25);
+
+        now.addAndGet(24);
+        assertEquals(0, wheel.advance());
+        now.addAndGet(5);
+        wheel.advance();
+        assertTrue(fired.isEmpty());
+
+        // The deadline falls in the tick [20, 30), which has passed at 30
+        now.addAndGet(1);
+        assertEquals(1, wheel.advance());
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesBeyondOneTurnWaitTheirRounds() {
+        // 8 buckets of 10 ms make an 80 ms turn
+        wheel.schedule("late", 250);
+        wheel.schedule("soon", 15);
+
+        now.addAndGet(100);
+        wheel.advance();
+        assertEquals(List.of("soon"), fired);
+        now.addAndGet(149);
+        wheel.advance();
+        assertEquals(List.of("soon"), fired);
+        now.addAndGet(11);
+        wheel.advance();
+        assertEquals(List.of("soon", "late"), fired);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFireAndCancelLosesToExpiry() {
+        HashedTimerWheel.Timeout<String> kept = wheel.schedule("kept", 30);
+        HashedTimerWheel.Timeout<String> dropped = wheel.schedule("dropped", 30);
+        wheel.advance();
+        assertTrue(dropped.cancel());
+        assertFalse(dropped.cancel());
+        assertEquals(1, wheel.size());
+
+        now.addAndGet(40);
+        wheel.advance();
+        assertEquals(List.of("kept"), fired);
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+    }
+
+    @Test
+    void manyTimeoutsExpireInDeadlineOrderByTick() {
+        for (int i = 0; i < 100_000; i++) {
+            wheel.schedule(String.valueOf(i), i % 1000);
+        }
+        assertEquals(100_000, wheel.size());
+
+        now.addAndGet(500);
+        int early = wheel.advance();
+        // Deadlines 0..499 are in ticks that have fully passed
+        assertEquals(500 * 100, early);
+        now.addAndGet(510);
+        assertEquals(100_000 - early, wheel.advance());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,48 @@
+package com.hotelreservation.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NightBitmapTest {
+
+    private final long day = LocalDate.of(2025, 6, 1).toEpochDay();
+
+    @Test
+    void checkOutDayIsNotOccupied() {
+        NightBitmap nights = new NightBitmap();
+        nights.set(day, day + 3);
+
+        assertFalse(nights.isFree(day + 2, day + 4));
+        assertTrue(nights.isFree(day + 3, day + 5));
+        assertTrue(nights.isFree(day - 2, day));
+    }
+
+    @Test
+    void rangesSpanningWordBoundaries() {
+        NightBitmap nights = new NightBitmap();
+        nights.set(day + 60, day + 200);
+
+        assertFalse(nights.isFree(day, day + 61));
+        assertFalse(nights.isFree(day + 199, day + 400));
+        assertTrue(nights.isFree(day + 200, day + 400));
+
+        nights.clear(day + 100, day + 130);
+        assertTrue(nights.isFree(day + 100, day + 130));
+        assertFalse(nights.isFree(day + 99, day + 101));
+        assertTrue(nights.isSet(day + 130));
+    }
+
+    @Test
+    void growsBackwardsWithoutLosingBits() {
+        NightBitmap nights = new NightBitmap();
+        nights.set(day + 500, day + 502);
+        nights.set(day, day + 1);
+
+        assertTrue(nights.isSet(day));
+        assertTrue(nights.isSet(day + 501));
+        assertFalse(nights.isSet(day + 502));
+    }
+}
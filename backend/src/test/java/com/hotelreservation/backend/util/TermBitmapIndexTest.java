@@ -0,0 +1,47 @@
+package com.hotelreservation.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermBitmapIndexTest {
+
+    private final TermBitmapIndex index = TermBitmapIndex.builder()
+            .add(1, List.of("Spa", "Beach"))
+            .add(2, List.of("beach"))
+            .add(3, List.of("Spa", "Beach", "Pool"))
+            .build();
+
+    @Test
+    void intersectsTermsCaseInsensitively() {
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), index.allOf(List.of("spa", "BEACH")));
+        assertTrue(index.allOf(List.of("Spa", "Ski")).isEmpty());
+    }
+
+    @Test
+    void countsWithinResult() {
+        Map<String, Integer> counts = index.counts(RoaringBitmap.bitmapOf(1, 2));
+        assertEquals(List.of("Beach", "Spa"), List.copyOf(counts.keySet()));
+        assertEquals(2, counts.get("Beach"));
+        assertEquals(1, counts.get("Spa"));
+    }
+
+    @Test
+    void patchLeavesOriginalUntouched() {
+        TermBitmapIndex patched = index.patch(2, List.of("beach"), List.of("Spa", "Ski"));
+
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3), patched.allOf(List.of("spa")));
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), patched.allOf(List.of("beach")));
+        assertEquals(RoaringBitmap.bitmapOf(2), patched.allOf(List.of("ski")));
+        assertEquals(RoaringBitmap.bitmapOf(1, 3), index.allOf(List.of("spa")));
+        assertEquals(3, index.termCount());
+
+        TermBitmapIndex removed = patched.patch(2, List.of("Spa", "Ski"), List.of());
+        assertEquals(3, removed.termCount());
+        assertSame(removed, removed.patch(1, List.of("Spa"), List.of("spa")));
+    }
+}